@@ -0,0 +1,61 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read side of a product catalog, organised by region.
+ */
+public interface Catalog {
+    /**
+     * Returns the regions known to this catalog.
+     *
+     * @return region names
+     */
+    Collection<String> getRegions();
+
+    /**
+     * Returns a read-only view of the products of a region.
+     *
+     * @param region region name
+     * @return products of the region, or null if the region is not supported
+     */
+    List<Product> getProducts(String region);
+
+    /**
+     * Returns a read-only view of the products of a region including their sub types.
+     *
+     * @param region region name
+     * @return products of the region, or null if the region is not supported
+     */
+    List<GenericProduct> getGenericProducts(String region);
+
+    /**
+     * Returns the catalog version in which the products of a region last changed.
+     * Catalogs which never change report 0 for every supported region.
+     *
+     * @param region region name
+     * @return region version, or -1 if the region is not supported
+     */
+    default long getRegionVersion(String region) {
+        return getProducts(region) == null ? -1 : 0;
+    }
+
+    /**
+     * Returns a slice of the products of a region ordered by price, cheapest first.
+     * Products without a price come last; products with equal prices keep their catalog order.
+     * The default implementation keeps a bounded heap of {@code offset + limit} products.
+     *
+     * @param region region name
+     * @param offset number of cheaper products to skip
+     * @param limit  maximum number of products to return
+     * @return the requested slice, or null if the region is not supported
+     */
+    default List<Product> getProductsByPrice(String region, int offset, int limit) {
+        List<Product> products = getProducts(region);
+        return products == null ? null : PriceOrder.select(products, offset, limit);
+    }
+}
@@ -0,0 +1,371 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Catalog analytics computed in place over the columns of a {@link ProductStore}.
+ * The rows are split into ranges which are aggregated in parallel on a fork-join pool into
+ * primitive per-region accumulators and merged pairwise, so no product objects are created and
+ * no per-row values are boxed. A range only accumulates the regions it has rows of, so the work and
+ * memory per task follow the rows, not the number of regions in the catalog.
+ * Catalogs in other layouts are not copied: each of their regions is aggregated by its own task
+ * over the products the catalog returns for it, with the same primitive accumulators.
+ */
+public final class CatalogAggregator {
+    private static final int DEFAULT_LEAF_ROWS = 1 << 15;
+
+    private final ForkJoinPool pool;
+    private final int leafRows;
+
+    public CatalogAggregator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public CatalogAggregator(ForkJoinPool pool) {
+        this(pool, DEFAULT_LEAF_ROWS);
+    }
+
+    CatalogAggregator(ForkJoinPool pool, int leafRows) {
+        this.pool = pool;
+        this.leafRows = leafRows;
+    }
+
+    /**
+     * Computes product counts and min/max/average prices of every region.
+     *
+     * @param catalog catalog to aggregate
+     * @return statistics per region, in region order
+     */
+    public Map<String, RegionStats> regionStats(Catalog catalog) {
+        if (!(catalog instanceof ProductStore)) {
+            return perRegion(catalog, region -> regionStats(region, catalog.getProducts(region)));
+        }
+        ProductStore store = (ProductStore) catalog;
+        PriceAccumulator total = pool.invoke(new PriceTask(store, 0, store.size()));
+        Map<String, RegionStats> stats = new LinkedHashMap<>();
+        int seen = 0;
+        for (int region = 0; region < store.regionCount(); region++) {
+            String name = store.regionName(region);
+            if (seen < total.regions.length && total.regions[seen] == region) {
+                stats.put(name, new RegionStats(name, total.products[seen], total.priced[seen],
+                        total.min[seen], total.max[seen], total.sum[seen]));
+                seen++;
+            } else {
+                stats.put(name, new RegionStats(name, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE, 0));
+            }
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Counts the products per value of a sub type key in every region.
+     * Products without the key are not counted.
+     *
+     * @param catalog catalog to aggregate
+     * @param key     sub type key, e.g. "color"
+     * @return product count per value, per region in region order
+     */
+    public Map<String, Map<String, Long>> subTypeDistribution(Catalog catalog, String key) {
+        if (!(catalog instanceof ProductStore)) {
+            return perRegion(catalog, region -> subTypeDistribution(catalog.getGenericProducts(region), key));
+        }
+        ProductStore store = (ProductStore) catalog;
+        SubTypeAccumulator total = pool.invoke(new SubTypeTask(store, key, 0, store.size()));
+        Map<String, Map<String, Long>> distribution = new LinkedHashMap<>();
+        int seen = 0;
+        for (int region = 0; region < store.regionCount(); region++) {
+            Map<String, Long> counts = new HashMap<>();
+            if (seen < total.regions.length && total.regions[seen] == region) {
+                total.counts[seen++].forEach((value, count) -> counts.put(value, count[0]));
+            }
+            distribution.put(store.regionName(region), Collections.unmodifiableMap(counts));
+        }
+        return Collections.unmodifiableMap(distribution);
+    }
+
+    /**
+     * Aggregates every region of a catalog in its own task and collects the results in region order.
+     */
+    private <T> Map<String, T> perRegion(Catalog catalog, Function<String, T> aggregate) {
+        List<String> regions = new ArrayList<>(catalog.getRegions());
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(regions.size());
+        for (String region : regions) {
+            tasks.add(ForkJoinTask.adapt(() -> aggregate.apply(region)));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        Map<String, T> results = new LinkedHashMap<>();
+        for (int i = 0; i < regions.size(); i++) {
+            results.put(regions.get(i), tasks.get(i).join());
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * Statistics of the products of one region; a region removed meanwhile has none.
+     */
+    private static RegionStats regionStats(String region, List<Product> products) {
+        long priced = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long sum = 0;
+        if (products == null) {
+            products = Collections.emptyList();
+        }
+        for (Product product : products) {
+            long price = Prices.toMinorUnits(product.getPrice());
+            if (price != Prices.UNPRICED) {
+                priced++;
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+                sum += price;
+            }
+        }
+        return new RegionStats(region, products.size(), priced, min, max, sum);
+    }
+
+    private static Map<String, Long> subTypeDistribution(List<GenericProduct> products, String key) {
+        Map<String, long[]> counts = new HashMap<>();
+        if (products != null) {
+            for (GenericProduct product : products) {
+                Map<String, String> subTypes = product.getSubTypes();
+                String value = subTypes == null ? null : subTypes.get(key);
+                if (value != null) {
+                    counts.computeIfAbsent(value, v -> new long[1])[0]++;
+                }
+            }
+        }
+        Map<String, Long> distribution = new HashMap<>();
+        counts.forEach((value, count) -> distribution.put(value, count[0]));
+        return Collections.unmodifiableMap(distribution);
+    }
+
+    /**
+     * Returns the ids of the regions with rows in [from, to), ascending. Rows are grouped by region,
+     * so this walks the runs of regions, not the rows, and a leaf only holds the regions it saw.
+     */
+    private static int[] regionsIn(ProductStore store, int from, int to) {
+        int count = 0;
+        for (int row = from; row < to; row = Math.min(to, store.regionStart(store.getRegionId(row) + 1))) {
+            count++;
+        }
+        int[] regions = new int[count];
+        count = 0;
+        for (int row = from; row < to; row = Math.min(to, store.regionStart(store.getRegionId(row) + 1))) {
+            regions[count++] = store.getRegionId(row);
+        }
+        return regions;
+    }
+
+    /**
+     * Number of slots of two accumulators over adjacent row ranges: their regions are ascending and only the
+     * last region of the left one may also be the first of the right one.
+     */
+    private static int mergedLength(int[] left, int[] right) {
+        boolean shared = left.length > 0 && right.length > 0 && left[left.length - 1] == right[0];
+        return left.length + right.length - (shared ? 1 : 0);
+    }
+
+    /**
+     * Price aggregates of the regions in {@link #regions}, slot by slot.
+     */
+    private static final class PriceAccumulator {
+        private final int[] regions;
+        private final long[] products;
+        private final long[] priced;
+        private final long[] min;
+        private final long[] max;
+        private final long[] sum;
+
+        private PriceAccumulator(int[] regions) {
+            this.regions = regions;
+            products = new long[regions.length];
+            priced = new long[regions.length];
+            min = new long[regions.length];
+            max = new long[regions.length];
+            sum = new long[regions.length];
+            Arrays.fill(min, Long.MAX_VALUE);
+            Arrays.fill(max, Long.MIN_VALUE);
+        }
+
+        /**
+         * Merges the accumulator of the row range following this one.
+         */
+        private PriceAccumulator merge(PriceAccumulator next) {
+            int length = mergedLength(regions, next.regions);
+            int offset = length - next.regions.length;
+            if (length == regions.length) {
+                /* next saw only the last region of this one */
+                add(offset, next, 0);
+                return this;
+            }
+            int[] mergedRegions = Arrays.copyOf(regions, length);
+            System.arraycopy(next.regions, 0, mergedRegions, offset, next.regions.length);
+            PriceAccumulator merged = new PriceAccumulator(mergedRegions);
+            for (int slot = 0; slot < regions.length; slot++) {
+                merged.add(slot, this, slot);
+            }
+            for (int slot = 0; slot < next.regions.length; slot++) {
+                merged.add(offset + slot, next, slot);
+            }
+            return merged;
+        }
+
+        private void add(int slot, PriceAccumulator other, int otherSlot) {
+            products[slot] += other.products[otherSlot];
+            priced[slot] += other.priced[otherSlot];
+            min[slot] = Math.min(min[slot], other.min[otherSlot]);
+            max[slot] = Math.max(max[slot], other.max[otherSlot]);
+            sum[slot] += other.sum[otherSlot];
+        }
+    }
+
+    private final class PriceTask extends RecursiveTask<PriceAccumulator> {
+        private final ProductStore store;
+        private final int from;
+        private final int to;
+
+        private PriceTask(ProductStore store, int from, int to) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PriceAccumulator compute() {
+            if (to - from > leafRows) {
+                int mid = (from + to) >>> 1;
+                PriceTask left = new PriceTask(store, from, mid);
+                left.fork();
+                PriceAccumulator right = new PriceTask(store, mid, to).compute();
+                return left.join().merge(right);
+            }
+            PriceAccumulator accumulator = new PriceAccumulator(regionsIn(store, from, to));
+            int row = from;
+            for (int slot = 0; slot < accumulator.regions.length; slot++) {
+                /* rows are grouped by region, so each run of one region is a plain loop over the price column */
+                int end = Math.min(to, store.regionStart(accumulator.regions[slot] + 1));
+                long priced = 0;
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                long sum = 0;
+                accumulator.products[slot] = end - row;
+                for (; row < end; row++) {
+                    long price = store.getPriceMinorUnits(row);
+                    if (price != Prices.UNPRICED) {
+                        priced++;
+                        min = Math.min(min, price);
+                        max = Math.max(max, price);
+                        sum += price;
+                    }
+                }
+                accumulator.priced[slot] = priced;
+                accumulator.min[slot] = min;
+                accumulator.max[slot] = max;
+                accumulator.sum[slot] = sum;
+            }
+            return accumulator;
+        }
+    }
+
+    /**
+     * Value counts of the regions in {@link #regions}, slot by slot.
+     */
+    private static final class SubTypeAccumulator {
+        private final int[] regions;
+        private final Map<String, long[]>[] counts;
+
+        @SuppressWarnings("unchecked")
+        private SubTypeAccumulator(int[] regions) {
+            this.regions = regions;
+            counts = (Map<String, long[]>[]) new Map[regions.length];
+        }
+
+        /**
+         * Merges the accumulator of the row range following this one.
+         */
+        private SubTypeAccumulator merge(SubTypeAccumulator next) {
+            int length = mergedLength(regions, next.regions);
+            int offset = length - next.regions.length;
+            SubTypeAccumulator merged = this;
+            if (length != regions.length) {
+                int[] mergedRegions = Arrays.copyOf(regions, length);
+                System.arraycopy(next.regions, 0, mergedRegions, offset, next.regions.length);
+                merged = new SubTypeAccumulator(mergedRegions);
+                System.arraycopy(counts, 0, merged.counts, 0, counts.length);
+            }
+            for (int slot = 0; slot < next.regions.length; slot++) {
+                Map<String, long[]> target = merged.counts[offset + slot];
+                if (target == null) {
+                    merged.counts[offset + slot] = next.counts[slot];
+                    continue;
+                }
+                next.counts[slot].forEach((value, count) -> {
+                    long[] existing = target.putIfAbsent(value, count);
+                    if (existing != null) {
+                        existing[0] += count[0];
+                    }
+                });
+            }
+            return merged;
+        }
+    }
+
+    private final class SubTypeTask extends RecursiveTask<SubTypeAccumulator> {
+        private final ProductStore store;
+        private final String key;
+        private final int from;
+        private final int to;
+
+        private SubTypeTask(ProductStore store, String key, int from, int to) {
+            this.store = store;
+            this.key = key;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SubTypeAccumulator compute() {
+            if (to - from > leafRows) {
+                int mid = (from + to) >>> 1;
+                SubTypeTask left = new SubTypeTask(store, key, from, mid);
+                left.fork();
+                SubTypeAccumulator right = new SubTypeTask(store, key, mid, to).compute();
+                return left.join().merge(right);
+            }
+            SubTypeAccumulator accumulator = new SubTypeAccumulator(regionsIn(store, from, to));
+            int row = from;
+            for (int slot = 0; slot < accumulator.regions.length; slot++) {
+                int end = Math.min(to, store.regionStart(accumulator.regions[slot] + 1));
+                Map<String, long[]> counts = new HashMap<>();
+                for (; row < end; row++) {
+                    Map<String, String> subTypes = store.getSubTypes(row);
+                    String value = subTypes == null ? null : subTypes.get(key);
+                    if (value != null) {
+                        counts.computeIfAbsent(value, v -> new long[1])[0]++;
+                    }
+                }
+                accumulator.counts[slot] = counts;
+            }
+            return accumulator;
+        }
+    }
+}
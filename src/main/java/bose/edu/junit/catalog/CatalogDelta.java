@@ -0,0 +1,66 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+/**
+ * A single change to the products of a region. Products are identified by name within their region.
+ */
+public final class CatalogDelta {
+    public enum Type {
+        ADD, UPDATE, REMOVE
+    }
+
+    private final Type type;
+    private final String region;
+    private final String name;
+    private final GenericProduct product;
+
+    private CatalogDelta(Type type, String region, String name, GenericProduct product) {
+        this.type = type;
+        this.region = region;
+        this.name = name;
+        this.product = product;
+    }
+
+    public static CatalogDelta add(String region, Product product) {
+        return add(region, new GenericProduct(product.getName(), product.getPrice(), null));
+    }
+
+    public static CatalogDelta add(String region, GenericProduct product) {
+        return new CatalogDelta(Type.ADD, region, product.getName(), product);
+    }
+
+    public static CatalogDelta update(String region, Product product) {
+        return update(region, new GenericProduct(product.getName(), product.getPrice(), null));
+    }
+
+    public static CatalogDelta update(String region, GenericProduct product) {
+        return new CatalogDelta(Type.UPDATE, region, product.getName(), product);
+    }
+
+    public static CatalogDelta remove(String region, String name) {
+        return new CatalogDelta(Type.REMOVE, region, name, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the new state of the product.
+     *
+     * @return the product, null for {@link Type#REMOVE}
+     */
+    public GenericProduct getProduct() {
+        return product;
+    }
+}
@@ -0,0 +1,17 @@
+package bose.edu.junit.catalog;
+
+import java.util.Set;
+
+/**
+ * Callback for catalogs whose content changes over time.
+ */
+@FunctionalInterface
+public interface CatalogListener {
+    /**
+     * Called after a new catalog version has been published.
+     *
+     * @param version new catalog version
+     * @param regions regions whose products changed in this version
+     */
+    void regionsChanged(long version, Set<String> regions);
+}
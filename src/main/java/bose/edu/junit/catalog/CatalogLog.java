@@ -0,0 +1,301 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only segment of the catalog write-ahead log. Every applied batch of deltas is one record:
+ *
+ * <pre>
+ * record  := length:int crc32:int payload:byte[length]   (crc32 of the payload)
+ * payload := sequence:long deltaCount:int delta*
+ * delta   := type:byte region:string name:string product? (product for ADD and UPDATE)
+ * product := record of {@link CatalogSnapshot}
+ * </pre>
+ * Appends only encode into memory; {@link #sync(long)} implements group commit: one waiting thread at a
+ * time writes and fsyncs everything appended so far, and the threads whose records were part of that
+ * write return without another fsync.
+ */
+final class CatalogLog implements AutoCloseable {
+    private static final int HEADER = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Records appended but not written yet, and the spare buffer they are swapped with on sync.
+     */
+    private Buffer pending = new Buffer();
+    private Buffer spare = new Buffer();
+    private long appended;
+    private long synced;
+    private boolean flushing;
+    private long size;
+    private IOException failure;
+
+    private CatalogLog(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Opens a segment for appending, creating it if needed.
+     */
+    static CatalogLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new CatalogLog(path, channel);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the bytes written and pending in this segment.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Encodes a batch into the pending records. Callers append in sequence order.
+     *
+     * @return ticket to pass to {@link #sync(long)}
+     */
+    synchronized long append(long sequence, List<CatalogDelta> batch) {
+        if (failure != null) {
+            throw new UncheckedIOException("Log is unusable after a failed write", failure);
+        }
+        encoded.reset();
+        try (DataOutputStream out = new DataOutputStream(encoded)) {
+            out.writeLong(sequence);
+            out.writeInt(batch.size());
+            for (CatalogDelta delta : batch) {
+                out.writeByte(delta.getType().ordinal());
+                CatalogSnapshot.writeString(out, delta.getRegion());
+                CatalogSnapshot.writeString(out, delta.getName());
+                if (delta.getType() != CatalogDelta.Type.REMOVE) {
+                    CatalogSnapshot.writeRecord(out, delta.getProduct());
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        byte[] payload = encoded.toByteArray();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        pending.writeInt(payload.length);
+        pending.writeInt((int) crc.getValue());
+        pending.write(payload, 0, payload.length);
+        size += HEADER + payload.length;
+        return ++appended;
+    }
+
+    /**
+     * Makes the record of a ticket durable, together with every record appended before the write.
+     *
+     * @param ticket ticket returned by {@link #append(long, List)}
+     * @throws IOException if writing or fsyncing fails; the log accepts no further records then
+     */
+    void sync(long ticket) throws IOException {
+        while (true) {
+            Buffer batch;
+            long upTo;
+            synchronized (this) {
+                while (flushing && synced < ticket && failure == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the log");
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                if (synced >= ticket) {
+                    return;
+                }
+                /* become the leader: write everything appended so far while followers wait */
+                flushing = true;
+                batch = pending;
+                pending = spare;
+                upTo = appended;
+            }
+            IOException error = null;
+            try {
+                ByteBuffer bytes = batch.asByteBuffer();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            } catch (IOException ex) {
+                error = ex;
+            }
+            batch.reset();
+            synchronized (this) {
+                flushing = false;
+                spare = batch;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    synced = upTo;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes and fsyncs every appended record.
+     */
+    void syncAll() throws IOException {
+        long ticket;
+        synchronized (this) {
+            ticket = appended;
+        }
+        sync(ticket);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            syncAll();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the valid records of a segment. A torn or corrupt record ends the segment: it and everything
+     * after it are reported as the invalid tail.
+     *
+     * @param path     segment file
+     * @param consumer receives sequence and deltas of every valid record
+     * @return length of the valid prefix of the segment
+     */
+    static long replay(Path path, BiConsumer<Long, List<CatalogDelta>> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            CRC32 checksum = new CRC32();
+            while (position + HEADER <= length) {
+                header.clear();
+                readFully(channel, header, position);
+                int payloadLength = header.getInt(0);
+                if (payloadLength < 0 || position + HEADER + payloadLength > length) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+                readFully(channel, payload, position + HEADER);
+                checksum.reset();
+                checksum.update(payload.array(), 0, payloadLength);
+                if ((int) checksum.getValue() != header.getInt(4)) {
+                    break;
+                }
+                decode(payload.array(), consumer);
+                position += HEADER + payloadLength;
+            }
+            return position;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static void decode(byte[] payload, BiConsumer<Long, List<CatalogDelta>> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        int count = in.readInt();
+        List<CatalogDelta> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CatalogDelta.Type type = CatalogDelta.Type.values()[in.readByte()];
+            String region = readString(in);
+            String name = readString(in);
+            switch (type) {
+                case ADD:
+                    batch.add(CatalogDelta.add(region, readProduct(in)));
+                    break;
+                case UPDATE:
+                    batch.add(CatalogDelta.update(region, readProduct(in)));
+                    break;
+                default:
+                    batch.add(CatalogDelta.remove(region, name));
+            }
+        }
+        consumer.accept(sequence, batch);
+    }
+
+    private static GenericProduct readProduct(DataInputStream in) throws IOException {
+        String name = readString(in);
+        String price = readString(in);
+        int subTypeCount = in.readInt();
+        Map<String, String> subTypes = null;
+        if (subTypeCount >= 0) {
+            subTypes = new LinkedHashMap<>();
+            for (int i = 0; i < subTypeCount; i++) {
+                subTypes.put(readString(in), readString(in));
+            }
+        }
+        return new GenericProduct(name, price, subTypes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Growable byte buffer which exposes its content without copying.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private Buffer() {
+            super(64 * 1024);
+        }
+
+        private void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        private ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
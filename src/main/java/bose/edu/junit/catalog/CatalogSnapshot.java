@@ -0,0 +1,177 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes catalogs in a compact binary snapshot format which is loaded by memory mapping it,
+ * see {@link MappedCatalog}.
+ *
+ * <pre>
+ * file    := MAGIC:int FORMAT_VERSION:int headerLength:int catalogVersion:long regionCount:int entry*  block*
+ * entry   := region:string blockOffset:long blockLength:long productCount:int
+ * block   := recordOffset:int[productCount] record*      (offsets relative to the block)
+ * record  := name:string price:string subTypeCount:int (key:string value:string)*
+ * string  := length:int utf8:byte[length]                (length -1 is null)
+ * </pre>
+ * All numbers are big endian. A subTypeCount of -1 marks a product without sub types.
+ * A single region block is limited to 2GB, the file as a whole is not.
+ */
+public final class CatalogSnapshot {
+    static final int MAGIC = 0x50434154;
+    static final int FORMAT_VERSION = 1;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the catalog. The file is written next to the target, forced to the device and
+     * moved in place, and the directory is forced after the move, so neither readers nor a restart after a
+     * crash observe a partially written snapshot.
+     *
+     * @param catalog catalog to write
+     * @param version catalog version recorded in the snapshot
+     * @param path    target file
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(Catalog catalog, long version, Path path) throws IOException {
+        write(catalog, version, path, Storage.DEFAULT);
+    }
+
+    static void write(Catalog catalog, long version, Path path, Storage storage) throws IOException {
+        List<String> regions = new ArrayList<>(catalog.getRegions());
+        List<List<GenericProduct>> products = new ArrayList<>();
+        long headerLength = 4 + 4 + 4 + 8 + 4;
+        for (String region : regions) {
+            products.add(catalog.getGenericProducts(region));
+            headerLength += stringLength(region) + 8 + 8 + 4;
+        }
+
+        long[] blockLengths = new long[regions.size()];
+        for (int i = 0; i < regions.size(); i++) {
+            long length = 4L * products.get(i).size();
+            for (GenericProduct product : products.get(i)) {
+                length += recordLength(product);
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Region [" + regions.get(i) + "] exceeds 2GB");
+            }
+            blockLengths[i] = length;
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt((int) headerLength);
+            out.writeLong(version);
+            out.writeInt(regions.size());
+            long blockOffset = headerLength;
+            for (int i = 0; i < regions.size(); i++) {
+                writeString(out, regions.get(i));
+                out.writeLong(blockOffset);
+                out.writeLong(blockLengths[i]);
+                out.writeInt(products.get(i).size());
+                blockOffset += blockLengths[i];
+            }
+            for (List<GenericProduct> block : products) {
+                int recordOffset = 4 * block.size();
+                for (GenericProduct product : block) {
+                    out.writeInt(recordOffset);
+                    recordOffset += recordLength(product);
+                }
+                for (GenericProduct product : block) {
+                    writeRecord(out, product);
+                }
+            }
+            out.flush();
+            storage.force(channel);
+        }
+        storage.move(temp, path);
+        storage.syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Maps a snapshot written by {@link #write(Catalog, long, Path)}.
+     *
+     * @param path snapshot file
+     * @return catalog reading directly from the mapped file
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static MappedCatalog open(Path path) throws IOException {
+        return MappedCatalog.open(path);
+    }
+
+    static void writeRecord(DataOutputStream out, GenericProduct product) throws IOException {
+        writeString(out, product.getName());
+        writeString(out, product.getPrice());
+        Map<String, String> subTypes = product.getSubTypes();
+        if (subTypes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(subTypes.size());
+        for (Map.Entry<String, String> entry : subTypes.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long recordLength(GenericProduct product) {
+        long length = stringLength(product.getName()) + stringLength(product.getPrice()) + 4;
+        if (product.getSubTypes() != null) {
+            for (Map.Entry<String, String> entry : product.getSubTypes().entrySet()) {
+                length += stringLength(entry.getKey()) + stringLength(entry.getValue());
+            }
+        }
+        return length;
+    }
+
+    private static int stringLength(String value) {
+        if (value == null) {
+            return 4;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                /* unpaired surrogates are replaced by '?' when encoding */
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return 4 + length;
+    }
+}
@@ -0,0 +1,300 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link VersionedCatalog} whose batches survive restarts. A directory holds the latest snapshot
+ * ({@link CatalogSnapshot}) and the write-ahead log segments ({@link CatalogLog}) written since;
+ * {@link #open(Path, long)} loads the snapshot and replays the log on top of it.
+ * <p>
+ * {@link #apply(List)} returns once the batch is fsynced; concurrent callers share fsyncs (group commit).
+ * A batch is validated and logged first and only becomes visible to readers and listeners once the log
+ * holds it durably, in version order; a batch the log fails to write is never published.
+ * When the active segment grows beyond the compaction threshold, a background thread writes a new
+ * snapshot and deletes the segments it covers once the snapshot and the directory entry are forced to the
+ * device; its failures are counted, see {@link #getCompactionFailures()}. New segments are forced into the
+ * directory before batches are logged to them.
+ */
+public class DurableCatalog implements Catalog, AutoCloseable {
+    static final String SNAPSHOT = "catalog.snapshot";
+    private static final String SEGMENT_PREFIX = "catalog-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final Storage storage;
+    private final VersionedCatalog catalog;
+    private final long compactionBytes;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final AtomicLong compactionFailures = new AtomicLong();
+    private volatile IOException lastCompactionFailure;
+    private final Object compactionLock = new Object();
+    private volatile CatalogLog log;
+
+    private DurableCatalog(Path directory, Storage storage, VersionedCatalog catalog, long compactionBytes)
+            throws IOException {
+        this.directory = directory;
+        this.storage = storage;
+        this.catalog = catalog;
+        this.compactionBytes = compactionBytes;
+        this.log = openSegment(catalog.getVersion() + 1);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens or creates a durable catalog, recovering the state of the last run: the snapshot is loaded and
+     * every logged batch after it is applied again. A torn record at the end of the last segment, left by a
+     * crash during a write, is cut off.
+     *
+     * @param directory       directory of the snapshot and log segments, created if needed
+     * @param compactionBytes size of the active segment which triggers a compaction
+     * @return the recovered catalog
+     * @throws IOException if the files cannot be read or the log is corrupt before its last record
+     */
+    public static DurableCatalog open(Path directory, long compactionBytes) throws IOException {
+        return open(directory, compactionBytes, Storage.DEFAULT);
+    }
+
+    static DurableCatalog open(Path directory, long compactionBytes, Storage storage) throws IOException {
+        Files.createDirectories(directory);
+        VersionedCatalog catalog = new VersionedCatalog();
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            MappedCatalog mapped = CatalogSnapshot.open(snapshot);
+            catalog = new VersionedCatalog(mapped, mapped.getVersion());
+        }
+
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            VersionedCatalog target = catalog;
+            long valid = CatalogLog.replay(segment, (sequence, batch) -> {
+                if (sequence <= target.getVersion()) {
+                    return;
+                }
+                if (sequence != target.getVersion() + 1) {
+                    throw new IllegalStateException("Log sequence " + sequence + " does not follow version "
+                            + target.getVersion() + " in " + segment);
+                }
+                target.apply(batch);
+            });
+            if (valid < Files.size(segment)) {
+                if (i < segments.size() - 1) {
+                    throw new IOException("Corrupt record at " + valid + " in " + segment);
+                }
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        }
+        return new DurableCatalog(directory, storage, catalog, compactionBytes);
+    }
+
+    public void addListener(CatalogListener listener) {
+        catalog.addListener(listener);
+    }
+
+    public void removeListener(CatalogListener listener) {
+        catalog.removeListener(listener);
+    }
+
+    /**
+     * Applies a batch like {@link VersionedCatalog#apply(List)} and makes it durable.
+     *
+     * @param batch deltas in the order they are applied
+     * @return the new catalog version
+     * @throws IllegalArgumentException if a delta is invalid; nothing is applied or logged then
+     * @throws UncheckedIOException     if the log cannot be written
+     */
+    public long apply(List<CatalogDelta> batch) {
+        VersionedCatalog.Prepared prepared;
+        long ticket;
+        CatalogLog target;
+        synchronized (this) {
+            prepared = catalog.prepare(batch);
+            if (prepared == null) {
+                return catalog.getVersion();
+            }
+            target = log;
+            try {
+                ticket = target.append(prepared.getVersion(), batch);
+            } catch (RuntimeException ex) {
+                catalog.discard(prepared);
+                throw ex;
+            }
+        }
+        try {
+            target.sync(ticket);
+        } catch (IOException ex) {
+            catalog.discard(prepared);
+            throw new UncheckedIOException(ex);
+        }
+        catalog.publish(prepared);
+        if (log.size() >= compactionBytes && compacting.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException ex) {
+                    lastCompactionFailure = ex;
+                    compactionFailures.incrementAndGet();
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+        return prepared.getVersion();
+    }
+
+    /**
+     * Returns how many background compactions failed. The log keeps every batch meanwhile, so a failure
+     * costs disk space and recovery time, not data; the next apply beyond the threshold tries again.
+     *
+     * @return failed background compactions
+     */
+    public long getCompactionFailures() {
+        return compactionFailures.get();
+    }
+
+    /**
+     * Returns the error of the latest failed background compaction.
+     *
+     * @return the error, or null if no compaction failed
+     */
+    public IOException getLastCompactionFailure() {
+        return lastCompactionFailure;
+    }
+
+    /**
+     * Writes a snapshot of the latest logged version and deletes the log segments it covers.
+     * Batches keep being applied meanwhile, into a new segment. Batches logged but not published yet are
+     * made durable by closing their segment before the snapshot is written, so the snapshot may be ahead
+     * of readers for a moment but never ahead of the log.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            Catalog frozen;
+            long version;
+            CatalogLog previous = null;
+            synchronized (this) {
+                VersionedCatalog latest = catalog.freezePrepared();
+                frozen = latest;
+                version = latest.getVersion();
+                if (!log.getPath().equals(segment(version + 1))) {
+                    previous = log;
+                    log = openSegment(version + 1);
+                }
+            }
+            if (previous != null) {
+                previous.close();
+            }
+            /* the snapshot is durable in place when this returns, only then may the log it covers go */
+            CatalogSnapshot.write(frozen, version, directory.resolve(SNAPSHOT), storage);
+            for (Path segment : segments(directory)) {
+                if (firstSequence(segment) <= version) {
+                    storage.delete(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the version of the latest applied batch.
+     *
+     * @return catalog version
+     */
+    public long getVersion() {
+        return catalog.getVersion();
+    }
+
+    @Override
+    public long getRegionVersion(String region) {
+        return catalog.getRegionVersion(region);
+    }
+
+    @Override
+    public Collection<String> getRegions() {
+        return catalog.getRegions();
+    }
+
+    @Override
+    public List<Product> getProducts(String region) {
+        return catalog.getProducts(region);
+    }
+
+    @Override
+    public List<GenericProduct> getGenericProducts(String region) {
+        return catalog.getGenericProducts(region);
+    }
+
+    @Override
+    public List<Product> getProductsByPrice(String region, int offset, int limit) {
+        return catalog.getProductsByPrice(region, offset, limit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            log.close();
+        }
+    }
+
+    /**
+     * Opens a segment and forces its directory entry, so a batch synced to it is found after a crash.
+     */
+    private CatalogLog openSegment(long firstSequence) throws IOException {
+        CatalogLog segment = CatalogLog.open(segment(firstSequence));
+        storage.syncDirectory(directory);
+        return segment;
+    }
+
+    private Path segment(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Lists the log segments of a directory in sequence order.
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+}
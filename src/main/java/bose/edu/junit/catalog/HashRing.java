@@ -0,0 +1,104 @@
+package bose.edu.junit.catalog;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring. Every node is placed at a number of virtual positions, and a key
+ * belongs to the first node at or after the key's hash, wrapping around. Adding or removing a node
+ * only moves the keys between the changed positions and their predecessors.
+ */
+public final class HashRing {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int virtualNodes;
+    private final Set<String> nodes;
+    private final NavigableMap<Long, String> positions;
+
+    public HashRing(int virtualNodes) {
+        this(virtualNodes, Collections.emptySet());
+    }
+
+    private HashRing(int virtualNodes, Set<String> nodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableSet(nodes);
+        this.positions = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                /* on the rare collision the smaller node id wins, independent of insertion order */
+                positions.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+
+    public HashRing withNode(String node) {
+        Set<String> changed = new LinkedHashSet<>(nodes);
+        changed.add(node);
+        return new HashRing(virtualNodes, changed);
+    }
+
+    public HashRing withoutNode(String node) {
+        Set<String> changed = new LinkedHashSet<>(nodes);
+        changed.remove(node);
+        return new HashRing(virtualNodes, changed);
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the node owning a key.
+     *
+     * @param key key such as a region name
+     * @return owning node, or null if the ring is empty
+     */
+    public String nodeFor(String key) {
+        if (positions.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> owner = positions.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : positions.firstEntry().getValue();
+    }
+
+    /**
+     * Returns the fraction of the hash space each node owns; an even ring gives every node 1 / nodes.
+     *
+     * @return share of the hash space per node
+     */
+    public Map<String, Double> ownership() {
+        Map<String, Double> shares = new LinkedHashMap<>();
+        nodes.forEach(node -> shares.put(node, 0.0));
+        Long previous = positions.isEmpty() ? null : positions.lastKey();
+        for (Map.Entry<Long, String> position : positions.entrySet()) {
+            /* unsigned distance from the previous position, wrapping around for the first one */
+            double span = unsigned(position.getKey() - previous);
+            shares.merge(position.getValue(), span / 0x1p64, Double::sum);
+            previous = position.getKey();
+        }
+        if (positions.size() == 1) {
+            shares.put(positions.firstEntry().getValue(), 1.0);
+        }
+        return shares;
+    }
+
+    private static double unsigned(long value) {
+        return value >= 0 ? value : value + 0x1p64;
+    }
+
+    private static long hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,200 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Catalog backed by a memory mapped snapshot written by {@link CatalogSnapshot}.
+ * Opening only reads the region directory and maps the file once, or once per 2GB of blocks;
+ * products stay off heap in the page cache and are decoded when they are accessed.
+ */
+public final class MappedCatalog implements Catalog {
+    private final long version;
+    private final Map<String, Block> blocks;
+
+    private MappedCatalog(long version, Map<String, Block> blocks) {
+        this.version = version;
+        this.blocks = blocks;
+    }
+
+    static MappedCatalog open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer preamble = ByteBuffer.allocate(12);
+            readFully(channel, preamble, 0);
+            if (preamble.getInt(0) != CatalogSnapshot.MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + path);
+            }
+            if (preamble.getInt(4) != CatalogSnapshot.FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + preamble.getInt(4) + ": " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(preamble.getInt(8));
+            readFully(channel, header, 0);
+            header.position(12);
+            long version = header.getLong();
+            int regionCount = header.getInt();
+
+            /*
+             * Blocks are sliced from as few mappings as possible, one per 2GB of blocks, instead of one
+             * mapping per region which would run into the mapping limit of the process for many regions.
+             */
+            long fileSize = channel.size();
+            ByteBuffer mapping = null;
+            long mappingOffset = 0;
+            Map<String, Block> blocks = new LinkedHashMap<>();
+            for (int i = 0; i < regionCount; i++) {
+                String region = readString(header, header.position());
+                header.position(header.position() + 4 + Math.max(header.getInt(header.position()), 0));
+                long offset = header.getLong();
+                long length = header.getLong();
+                int count = header.getInt();
+                if (mapping == null || offset < mappingOffset || offset + length > mappingOffset + mapping.capacity()) {
+                    mappingOffset = offset;
+                    mapping = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            Math.min(fileSize - offset, Integer.MAX_VALUE));
+                }
+                blocks.put(region, new Block(slice(mapping, (int) (offset - mappingOffset), (int) length), count));
+            }
+            return new MappedCatalog(version, blocks);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer mapping, int offset, int length) {
+        ByteBuffer slice = mapping.duplicate();
+        /* through Buffer, whose position and limit return Buffer on Java 8 */
+        Buffer bounds = slice;
+        bounds.limit(offset + length);
+        bounds.position(offset);
+        return slice.slice();
+    }
+
+    /**
+     * Returns the catalog version recorded in the snapshot.
+     *
+     * @return catalog version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Collection<String> getRegions() {
+        return Collections.unmodifiableSet(blocks.keySet());
+    }
+
+    @Override
+    public List<Product> getProducts(String region) {
+        Block block = blocks.get(region);
+        return block == null ? null : new BlockView<Product>(block) {
+            @Override
+            Product decode(ByteBuffer buffer, int offset) {
+                String name = readString(buffer, offset);
+                offset += stringLength(buffer, offset);
+                return new Product(name, readString(buffer, offset));
+            }
+        };
+    }
+
+    @Override
+    public List<GenericProduct> getGenericProducts(String region) {
+        Block block = blocks.get(region);
+        return block == null ? null : new BlockView<GenericProduct>(block) {
+            @Override
+            GenericProduct decode(ByteBuffer buffer, int offset) {
+                String name = readString(buffer, offset);
+                offset += stringLength(buffer, offset);
+                String price = readString(buffer, offset);
+                offset += stringLength(buffer, offset);
+                int subTypeCount = buffer.getInt(offset);
+                offset += 4;
+                if (subTypeCount < 0) {
+                    return new GenericProduct(name, price, null);
+                }
+                Map<String, String> subTypes = new LinkedHashMap<>();
+                for (int i = 0; i < subTypeCount; i++) {
+                    String key = readString(buffer, offset);
+                    offset += stringLength(buffer, offset);
+                    subTypes.put(key, readString(buffer, offset));
+                    offset += stringLength(buffer, offset);
+                }
+                return new GenericProduct(name, price, subTypes);
+            }
+        };
+    }
+
+    private static int stringLength(ByteBuffer buffer, int offset) {
+        return 4 + Math.max(buffer.getInt(offset), 0);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + 4 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Block {
+        private final ByteBuffer buffer;
+        private final int count;
+
+        private Block(ByteBuffer buffer, int count) {
+            this.buffer = buffer;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Read-only list decoding records straight from the mapped block with absolute reads only,
+     * so views can be shared between threads.
+     */
+    private abstract static class BlockView<T> extends AbstractList<T> implements RandomAccess {
+        private final Block block;
+
+        private BlockView(Block block) {
+            this.block = block;
+        }
+
+        abstract T decode(ByteBuffer buffer, int offset);
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= block.count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + block.count);
+            }
+            return decode(block.buffer, block.buffer.getInt(4 * index));
+        }
+
+        @Override
+        public int size() {
+            return block.count;
+        }
+    }
+}
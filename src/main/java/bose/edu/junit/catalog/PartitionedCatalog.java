@@ -0,0 +1,325 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Catalog whose regions are spread over shards by a consistent-hash {@link HashRing}; every read is
+ * routed to the shard owning the region. The shards are {@link VersionedCatalog}s, which stand in
+ * for nodes in process.
+ * <p>
+ * Adding or removing a shard moves only the regions whose owner changes, empty ones included: they are
+ * copied to the new owner, the new ring is published, then they are dropped from the old owner. Reads
+ * never lock and see a region either on its old or on its new owner: a read which finds no region reads
+ * again if the ring changed meanwhile, as the region may just have been dropped from the owner it was
+ * routed to.
+ * <p>
+ * A moved region reports one version more than it had on its old owner and keeps counting from there, so
+ * region versions only grow, and regions which did not move keep their versions. Listeners are notified of
+ * the regions changed by {@link #apply(List)} and of the moved ones, with a version of this catalog which
+ * counts those notifications.
+ */
+public class PartitionedCatalog implements Catalog {
+    private final ConcurrentMap<String, Shard> shards = new ConcurrentHashMap<>();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Routing routing;
+    private long version;
+
+    public PartitionedCatalog(int virtualNodes) {
+        this.routing = new Routing(new HashRing(virtualNodes), Collections.emptyMap());
+    }
+
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a shard and moves the regions it now owns to it.
+     *
+     * @param id    shard id, placed on the ring
+     * @param shard catalog holding the shard's regions, usually empty
+     * @return the regions moved to the new shard
+     */
+    public synchronized Set<String> addShard(String id, VersionedCatalog shard) {
+        if (shards.containsKey(id)) {
+            throw new IllegalArgumentException("Shard [" + id + "] already exists");
+        }
+        shards.put(id, new Shard(shard));
+        return rebalance(routing.ring.withNode(id));
+    }
+
+    /**
+     * Removes a shard after moving its regions to their new owners.
+     *
+     * @param id shard id
+     * @return the regions moved away from the shard
+     */
+    public synchronized Set<String> removeShard(String id) {
+        if (!shards.containsKey(id)) {
+            throw new IllegalArgumentException("Shard [" + id + "] does not exist");
+        }
+        HashRing next = routing.ring.withoutNode(id);
+        if (next.getNodes().isEmpty() && !shards.get(id).catalog.getRegions().isEmpty()) {
+            throw new IllegalStateException("Cannot remove the last shard while it holds regions");
+        }
+        Set<String> moved = rebalance(next);
+        shards.remove(id);
+        return moved;
+    }
+
+    /**
+     * Removes a region from its owner, together with the version offset it got from moves.
+     *
+     * @param region region name
+     * @return true if the region existed
+     */
+    public synchronized boolean removeRegion(String region) {
+        Routing current = routing;
+        String id = current.ring.nodeFor(region);
+        if (id == null || shards.get(id).catalog.getRegionVersion(region) < 0) {
+            return false;
+        }
+        shards.get(id).catalog.removeRegion(region);
+        if (current.versionOffsets.containsKey(region)) {
+            Map<String, Long> offsets = new HashMap<>(current.versionOffsets);
+            offsets.remove(region);
+            routing = new Routing(current.ring, offsets);
+        }
+        notifyListeners(Collections.singleton(region));
+        return true;
+    }
+
+    /**
+     * Applies a batch by splitting it per owning shard. Each shard applies its part atomically,
+     * the batch as a whole is not atomic across shards.
+     *
+     * @param batch deltas in the order they are applied
+     * @throws IllegalArgumentException if a delta is invalid on its shard
+     * @throws IllegalStateException    if there are no shards
+     */
+    public synchronized void apply(List<CatalogDelta> batch) {
+        Map<String, List<CatalogDelta>> perShard = new LinkedHashMap<>();
+        for (CatalogDelta delta : batch) {
+            String owner = routing.ring.nodeFor(delta.getRegion());
+            if (owner == null) {
+                throw new IllegalStateException("No shards");
+            }
+            perShard.computeIfAbsent(owner, k -> new ArrayList<>()).add(delta);
+        }
+        Set<String> changed = new LinkedHashSet<>();
+        try {
+            for (Map.Entry<String, List<CatalogDelta>> part : perShard.entrySet()) {
+                shards.get(part.getKey()).catalog.apply(part.getValue());
+                part.getValue().forEach(delta -> changed.add(delta.getRegion()));
+            }
+        } finally {
+            /* the parts applied before a failing one stay applied */
+            notifyListeners(changed);
+        }
+    }
+
+    /**
+     * Returns the shard owning a region.
+     *
+     * @param region region name
+     * @return shard id, or null if there are no shards
+     */
+    public String shardFor(String region) {
+        return routing.ring.nodeFor(region);
+    }
+
+    /**
+     * Reports regions, products, routed lookups and hash space ownership of every shard.
+     *
+     * @return statistics per shard id
+     */
+    public Map<String, ShardStats> getShardStats() {
+        HashRing current = routing.ring;
+        Map<String, Double> ownership = current.ownership();
+        Map<String, ShardStats> stats = new LinkedHashMap<>();
+        for (String id : current.getNodes()) {
+            Shard shard = shards.get(id);
+            int regions = 0;
+            long products = 0;
+            for (String region : shard.catalog.getRegions()) {
+                if (id.equals(current.nodeFor(region))) {
+                    regions++;
+                    products += shard.catalog.getGenericProducts(region).size();
+                }
+            }
+            stats.put(id, new ShardStats(id, regions, products, shard.lookups.sum(), ownership.get(id)));
+        }
+        return stats;
+    }
+
+    @Override
+    public Collection<String> getRegions() {
+        while (true) {
+            Routing current = routing;
+            Set<String> regions = new LinkedHashSet<>();
+            for (String id : current.ring.getNodes()) {
+                Shard shard = shards.get(id);
+                if (shard == null) {
+                    continue;
+                }
+                for (String region : shard.catalog.getRegions()) {
+                    if (id.equals(current.ring.nodeFor(region))) {
+                        regions.add(region);
+                    }
+                }
+            }
+            /* a rebalance meanwhile may have dropped moved regions from owners listed before */
+            if (routing == current) {
+                return Collections.unmodifiableSet(regions);
+            }
+        }
+    }
+
+    @Override
+    public List<Product> getProducts(String region) {
+        return read(region, VersionedCatalog::getProducts);
+    }
+
+    @Override
+    public List<GenericProduct> getGenericProducts(String region) {
+        return read(region, VersionedCatalog::getGenericProducts);
+    }
+
+    @Override
+    public long getRegionVersion(String region) {
+        while (true) {
+            Routing current = routing;
+            String id = current.ring.nodeFor(region);
+            Shard owner = id == null ? null : shards.get(id);
+            long shardVersion = owner == null ? -1 : owner.catalog.getRegionVersion(region);
+            if (shardVersion >= 0) {
+                return shardVersion + current.versionOffsets.getOrDefault(region, 0L);
+            }
+            if (routing == current) {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public List<Product> getProductsByPrice(String region, int offset, int limit) {
+        return read(region, (catalog, key) -> catalog.getProductsByPrice(key, offset, limit));
+    }
+
+    int versionOffsetCount() {
+        return routing.versionOffsets.size();
+    }
+
+    /**
+     * Reads a region from its owner, again from the new owner if a rebalance dropped it meanwhile.
+     */
+    private <T> T read(String region, BiFunction<VersionedCatalog, String, T> reader) {
+        while (true) {
+            Routing current = routing;
+            Shard owner = route(current, region);
+            T value = owner == null ? null : reader.apply(owner.catalog, region);
+            if (value != null || routing == current) {
+                return value;
+            }
+        }
+    }
+
+    private Shard route(Routing current, String region) {
+        String id = current.ring.nodeFor(region);
+        Shard owner = id == null ? null : shards.get(id);
+        if (owner != null) {
+            owner.lookups.increment();
+        }
+        return owner;
+    }
+
+    /**
+     * Moves every region whose owner differs between the current ring and the next one, then publishes it.
+     */
+    private Set<String> rebalance(HashRing next) {
+        Routing current = routing;
+        Map<String, String> moves = new LinkedHashMap<>();
+        for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+            for (String region : shard.getValue().catalog.getRegions()) {
+                String owner = current.ring.nodeFor(region);
+                String target = next.nodeFor(region);
+                if (shard.getKey().equals(owner) && target != null && !target.equals(owner)) {
+                    moves.put(region, owner);
+                }
+            }
+        }
+        Map<String, Long> offsets = new HashMap<>();
+        /* offsets of regions removed from their shards meanwhile are dropped */
+        current.versionOffsets.forEach((region, offset) -> {
+            String owner = current.ring.nodeFor(region);
+            if (owner != null && shards.get(owner).catalog.getRegionVersion(region) >= 0) {
+                offsets.put(region, offset);
+            }
+        });
+        for (Map.Entry<String, String> move : moves.entrySet()) {
+            String region = move.getKey();
+            long reported = getRegionVersion(region);
+            VersionedCatalog target = shards.get(next.nodeFor(region)).catalog;
+            target.replaceRegion(region, shards.get(move.getValue()).catalog.getGenericProducts(region));
+            offsets.put(region, reported + 1 - target.getRegionVersion(region));
+        }
+        routing = new Routing(next, offsets);
+        for (Map.Entry<String, String> move : moves.entrySet()) {
+            shards.get(move.getValue()).catalog.removeRegion(move.getKey());
+        }
+        notifyListeners(moves.keySet());
+        return moves.keySet();
+    }
+
+    private void notifyListeners(Set<String> regions) {
+        if (regions.isEmpty()) {
+            return;
+        }
+        long next = ++version;
+        Set<String> changed = Collections.unmodifiableSet(new LinkedHashSet<>(regions));
+        for (CatalogListener listener : listeners) {
+            listener.regionsChanged(next, changed);
+        }
+    }
+
+    private static final class Routing {
+        private final HashRing ring;
+        /**
+         * Added to the shard version of each region which moved, so its reported version keeps growing.
+         */
+        private final Map<String, Long> versionOffsets;
+
+        private Routing(HashRing ring, Map<String, Long> versionOffsets) {
+            this.ring = ring;
+            this.versionOffsets = versionOffsets;
+        }
+    }
+
+    private static final class Shard {
+        private final VersionedCatalog catalog;
+        private final LongAdder lookups = new LongAdder();
+
+        private Shard(VersionedCatalog catalog) {
+            this.catalog = catalog;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordering of products by price, cheapest first, then by position.
+ */
+final class PriceOrder {
+    private PriceOrder() {
+    }
+
+    /**
+     * Sort key of a price: unpriced products sort after every priced one.
+     */
+    static long key(long minorUnits) {
+        return minorUnits == Prices.UNPRICED ? Long.MAX_VALUE : minorUnits;
+    }
+
+    static int compare(long key, int position, long otherKey, int otherPosition) {
+        int byPrice = Long.compare(key, otherKey);
+        return byPrice != 0 ? byPrice : Integer.compare(position, otherPosition);
+    }
+
+    /**
+     * Sorts positions by price, for catalogs which keep the full order of an immutable product list.
+     * Heap sorts parallel primitive arrays; the position breaks ties, so the order is stable without boxing.
+     *
+     * @param products products to order
+     * @return positions of the products, cheapest first
+     */
+    static int[] sort(List<GenericProduct> products) {
+        long[] keys = new long[products.size()];
+        int[] positions = new int[keys.length];
+        for (int position = 0; position < keys.length; position++) {
+            keys[position] = key(Prices.toMinorUnits(products.get(position).getPrice()));
+            positions[position] = position;
+            siftUp(keys, positions, position);
+        }
+        sortHeap(keys, positions, keys.length);
+        return positions;
+    }
+
+    /**
+     * Selects the products at positions [offset, offset + limit) of the price order with a bounded
+     * max-heap, in O(n log k) time and O(k) space for k = offset + limit.
+     */
+    static List<Product> select(List<Product> products, int offset, int limit) {
+        int k = (int) Math.min(products.size(), (long) offset + limit);
+        if (offset < 0 || limit <= 0 || offset >= k) {
+            return Collections.emptyList();
+        }
+        long[] keys = new long[k];
+        int[] positions = new int[k];
+        int size = 0;
+        for (int position = 0; position < products.size(); position++) {
+            long key = key(Prices.toMinorUnits(products.get(position).getPrice()));
+            if (size < k) {
+                keys[size] = key;
+                positions[size] = position;
+                siftUp(keys, positions, size++);
+            } else if (compare(key, position, keys[0], positions[0]) < 0) {
+                keys[0] = key;
+                positions[0] = position;
+                siftDown(keys, positions, size);
+            }
+        }
+        sortHeap(keys, positions, size);
+        List<Product> slice = new ArrayList<>(k - offset);
+        for (int i = offset; i < k; i++) {
+            slice.add(products.get(positions[i]));
+        }
+        return slice;
+    }
+
+    /**
+     * Pops a max-heap from the back, the largest remaining entry going to the end, leaving it sorted ascending.
+     */
+    private static void sortHeap(long[] keys, int[] positions, int size) {
+        for (int end = size - 1; end > 0; end--) {
+            swap(keys, positions, 0, end);
+            siftDown(keys, positions, end);
+        }
+    }
+
+    private static void siftUp(long[] keys, int[] positions, int child) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (compare(keys[child], positions[child], keys[parent], positions[parent]) <= 0) {
+                return;
+            }
+            swap(keys, positions, child, parent);
+            child = parent;
+        }
+    }
+
+    private static void siftDown(long[] keys, int[] positions, int size) {
+        int parent = 0;
+        while (true) {
+            int largest = parent;
+            for (int child = 2 * parent + 1; child <= 2 * parent + 2 && child < size; child++) {
+                if (compare(keys[child], positions[child], keys[largest], positions[largest]) > 0) {
+                    largest = child;
+                }
+            }
+            if (largest == parent) {
+                return;
+            }
+            swap(keys, positions, parent, largest);
+            parent = largest;
+        }
+    }
+
+    private static void swap(long[] keys, int[] positions, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int position = positions[i];
+        positions[i] = positions[j];
+        positions[j] = position;
+    }
+}
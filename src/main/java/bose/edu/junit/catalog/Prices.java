@@ -0,0 +1,105 @@
+package bose.edu.junit.catalog;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversion of display prices such as "1000$" or "$1,299.99" to integral minor units (cents).
+ */
+public final class Prices {
+    /**
+     * Minor units of a price that carries no digits at all.
+     */
+    public static final long UNPRICED = Long.MIN_VALUE;
+
+    private static final int MINOR_DIGITS = 2;
+
+    private Prices() {
+    }
+
+    /**
+     * Parses the numeric part of a display price, ignoring currency symbols and grouping separators.
+     * Digits beyond the second fraction digit are truncated.
+     *
+     * @param price display price
+     * @return price in minor units, or {@link #UNPRICED} if the price has no digits
+     */
+    public static long toMinorUnits(String price) {
+        return price == null ? UNPRICED : parse(price);
+    }
+
+    /**
+     * Parses a display price from UTF-8 bytes without decoding them; same rules as {@link #toMinorUnits(String)}.
+     *
+     * @param utf8 bytes holding the price
+     * @param from first byte, inclusive
+     * @param to   last byte, exclusive
+     * @return price in minor units, or {@link #UNPRICED} if the price has no digits
+     */
+    public static long toMinorUnits(byte[] utf8, int from, int to) {
+        return parse(new ByteView(utf8, from, to));
+    }
+
+    private static long parse(CharSequence price) {
+        long units = 0;
+        int fractionDigits = -1;
+        boolean hasDigits = false;
+        for (int i = 0; i < price.length(); i++) {
+            char c = price.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fractionDigits >= MINOR_DIGITS) {
+                    continue;
+                }
+                units = units * 10 + (c - '0');
+                hasDigits = true;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            }
+        }
+        if (!hasDigits) {
+            return UNPRICED;
+        }
+        for (int i = Math.max(fractionDigits, 0); i < MINOR_DIGITS; i++) {
+            units *= 10;
+        }
+        return units;
+    }
+
+    /**
+     * UTF-8 bytes seen as characters one byte each. The bytes of multi-byte characters map to chars above
+     * 0x7F, which are neither digits nor the decimal point, so the parser skips them like any other symbol.
+     */
+    private static final class ByteView implements CharSequence {
+        private final byte[] utf8;
+        private final int from;
+        private final int to;
+
+        private ByteView(byte[] utf8, int from, int to) {
+            this.utf8 = utf8;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (utf8[from + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteView(utf8, from + start, from + end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(utf8, from, to - from, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, columnar product catalog.
+ * Products are kept in parallel primitive arrays (name id, price id, price in minor units, region id)
+ * grouped by region, and {@link Product}/{@link GenericProduct} instances are only created on access.
+ */
+public final class ProductStore implements Catalog {
+    private final String[] regions;
+    private final String[] names;
+    private final String[] prices;
+
+    private final int[] regionIds;
+    private final int[] nameIds;
+    private final int[] priceIds;
+    private final long[] priceMinorUnits;
+    private final Map<String, String>[] subTypes;
+
+    /**
+     * Rows of region r are [regionStart[r], regionStart[r + 1]).
+     */
+    private final int[] regionStart;
+    private final Map<String, Integer> regionIndex;
+    /**
+     * Rows of each region sorted by price, computed on first use.
+     */
+    private final AtomicReferenceArray<int[]> priceOrders;
+
+    private ProductStore(Builder builder) {
+        Dictionary nameDictionary = new Dictionary();
+        Dictionary priceDictionary = new Dictionary();
+        int rows = 0;
+        for (List<GenericProduct> products : builder.products.values()) {
+            rows += products.size();
+        }
+
+        this.regions = builder.products.keySet().toArray(new String[0]);
+        this.regionIds = new int[rows];
+        this.nameIds = new int[rows];
+        this.priceIds = new int[rows];
+        this.priceMinorUnits = new long[rows];
+        this.subTypes = newSubTypes(rows);
+        this.regionStart = new int[regions.length + 1];
+        this.regionIndex = new HashMap<>();
+        this.priceOrders = new AtomicReferenceArray<>(regions.length);
+
+        int row = 0;
+        for (int region = 0; region < regions.length; region++) {
+            regionIndex.put(regions[region], region);
+            regionStart[region] = row;
+            for (GenericProduct product : builder.products.get(regions[region])) {
+                regionIds[row] = region;
+                nameIds[row] = nameDictionary.idOf(product.getName());
+                priceIds[row] = priceDictionary.idOf(product.getPrice());
+                priceMinorUnits[row] = Prices.toMinorUnits(product.getPrice());
+                subTypes[row] = product.getSubTypes();
+                row++;
+            }
+        }
+        regionStart[regions.length] = row;
+        this.names = nameDictionary.values();
+        this.prices = priceDictionary.values();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Copies any catalog into columnar form.
+     *
+     * @param catalog catalog to copy
+     * @return a new store holding the same products
+     */
+    public static ProductStore copyOf(Catalog catalog) {
+        Builder builder = builder();
+        for (String region : catalog.getRegions()) {
+            builder.addRegion(region);
+            for (GenericProduct product : catalog.getGenericProducts(region)) {
+                builder.add(region, product);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Collection<String> getRegions() {
+        return Collections.unmodifiableList(Arrays.asList(regions));
+    }
+
+    @Override
+    public List<Product> getProducts(String region) {
+        Integer id = regionIndex.get(region);
+        return id == null ? null : new RowView<>(regionStart[id], regionStart[id + 1], this::getProduct);
+    }
+
+    @Override
+    public List<GenericProduct> getGenericProducts(String region) {
+        Integer id = regionIndex.get(region);
+        return id == null ? null : new RowView<>(regionStart[id], regionStart[id + 1], this::getGenericProduct);
+    }
+
+    /**
+     * Returns a slice of the precomputed price order of a region; only the returned products are created.
+     */
+    @Override
+    public List<Product> getProductsByPrice(String region, int offset, int limit) {
+        Integer id = regionIndex.get(region);
+        if (id == null) {
+            return null;
+        }
+        int[] order = priceOrder(id);
+        int to = (int) Math.min(order.length, (long) offset + limit);
+        if (offset < 0 || offset >= to) {
+            return Collections.emptyList();
+        }
+        return new RowView<>(offset, to, index -> getProduct(order[index]));
+    }
+
+    /**
+     * Returns the number of rows in this store.
+     *
+     * @return row count
+     */
+    public int size() {
+        return nameIds.length;
+    }
+
+    public Product getProduct(int row) {
+        return new Product(names[nameIds[row]], prices[priceIds[row]]);
+    }
+
+    public GenericProduct getGenericProduct(int row) {
+        return new GenericProduct(names[nameIds[row]], prices[priceIds[row]], subTypes[row]);
+    }
+
+    public String getRegion(int row) {
+        return regions[regionIds[row]];
+    }
+
+    public long getPriceMinorUnits(int row) {
+        return priceMinorUnits[row];
+    }
+
+    Map<String, String> getSubTypes(int row) {
+        return subTypes[row];
+    }
+
+    int getRegionId(int row) {
+        return regionIds[row];
+    }
+
+    int regionCount() {
+        return regions.length;
+    }
+
+    String regionName(int region) {
+        return regions[region];
+    }
+
+    /**
+     * Returns the first row of a region; {@code regionStart(regionCount())} is {@link #size()}.
+     */
+    int regionStart(int region) {
+        return regionStart[region];
+    }
+
+    /**
+     * Scans all rows for prices within [minMinorUnits, maxMinorUnits].
+     *
+     * @param minMinorUnits lowest price, inclusive
+     * @param maxMinorUnits highest price, inclusive
+     * @return matching row numbers in ascending order
+     */
+    public int[] findByPriceRange(long minMinorUnits, long maxMinorUnits) {
+        return findByPriceRange(0, size(), minMinorUnits, maxMinorUnits);
+    }
+
+    /**
+     * Scans the rows of a region for prices within [minMinorUnits, maxMinorUnits].
+     *
+     * @param region        region name
+     * @param minMinorUnits lowest price, inclusive
+     * @param maxMinorUnits highest price, inclusive
+     * @return matching row numbers in ascending order, empty if the region is not supported
+     */
+    public int[] findByPriceRange(String region, long minMinorUnits, long maxMinorUnits) {
+        Integer id = regionIndex.get(region);
+        if (id == null) {
+            return new int[0];
+        }
+        return findByPriceRange(regionStart[id], regionStart[id + 1], minMinorUnits, maxMinorUnits);
+    }
+
+    /**
+     * Scans all rows for product names starting with the given prefix.
+     *
+     * @param prefix name prefix, case sensitive
+     * @return matching row numbers in ascending order
+     */
+    public int[] findByNamePrefix(String prefix) {
+        return findByNamePrefix(0, size(), prefix);
+    }
+
+    /**
+     * Scans the rows of a region for product names starting with the given prefix.
+     *
+     * @param region region name
+     * @param prefix name prefix, case sensitive
+     * @return matching row numbers in ascending order, empty if the region is not supported
+     */
+    public int[] findByNamePrefix(String region, String prefix) {
+        Integer id = regionIndex.get(region);
+        if (id == null) {
+            return new int[0];
+        }
+        return findByNamePrefix(regionStart[id], regionStart[id + 1], prefix);
+    }
+
+    private int[] priceOrder(int region) {
+        int[] order = priceOrders.get(region);
+        if (order == null) {
+            /* computed once per region; a racing thread computes the same order */
+            order = IntStream.range(regionStart[region], regionStart[region + 1]).boxed()
+                    .sorted((a, b) -> PriceOrder.compare(PriceOrder.key(priceMinorUnits[a]), a,
+                            PriceOrder.key(priceMinorUnits[b]), b))
+                    .mapToInt(Integer::intValue).toArray();
+            priceOrders.set(region, order);
+        }
+        return order;
+    }
+
+    private int[] findByPriceRange(int from, int to, long min, long max) {
+        int[] hits = new int[to - from];
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            long price = priceMinorUnits[row];
+            hits[count] = row;
+            count += (price >= min & price <= max) ? 1 : 0;
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    private int[] findByNamePrefix(int from, int to, String prefix) {
+        /* Match the (much smaller) dictionary once, then scan the id column. */
+        boolean[] matching = new boolean[names.length];
+        for (int id = 0; id < names.length; id++) {
+            matching[id] = names[id] != null && names[id].startsWith(prefix);
+        }
+        int[] hits = new int[to - from];
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            hits[count] = row;
+            count += matching[nameIds[row]] ? 1 : 0;
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String>[] newSubTypes(int rows) {
+        return (Map<String, String>[]) new Map[rows];
+    }
+
+    /**
+     * Read-only list over a row range, creating elements on access.
+     */
+    private static final class RowView<T> extends AbstractList<T> implements RandomAccess {
+        private final int from;
+        private final int to;
+        private final IntFunction<T> factory;
+
+        private RowView(int from, int to, IntFunction<T> factory) {
+            this.from = from;
+            this.to = to;
+            this.factory = factory;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return factory.apply(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Assigns dense ids to distinct strings.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Collects products per region, in insertion order, before laying them out in columns.
+     */
+    public static final class Builder {
+        private final Map<String, List<GenericProduct>> products = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Registers a region, which is supported even if it has no products.
+         *
+         * @param region region name
+         * @return this builder
+         */
+        public Builder addRegion(String region) {
+            products.computeIfAbsent(region, k -> new ArrayList<>());
+            return this;
+        }
+
+        public Builder add(String region, Product product) {
+            return add(region, new GenericProduct(product.getName(), product.getPrice(), null));
+        }
+
+        public Builder add(String region, GenericProduct product) {
+            products.computeIfAbsent(region, k -> new ArrayList<>()).add(product);
+            return this;
+        }
+
+        public ProductStore build() {
+            return new ProductStore(this);
+        }
+    }
+}
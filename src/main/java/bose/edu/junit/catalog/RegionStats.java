@@ -0,0 +1,67 @@
+package bose.edu.junit.catalog;
+
+/**
+ * Product count and price statistics of one region, prices in minor units.
+ * Products whose price has no digits are counted but do not contribute to the price statistics.
+ */
+public final class RegionStats {
+    private final String region;
+    private final long productCount;
+    private final long pricedCount;
+    private final long minPrice;
+    private final long maxPrice;
+    private final long totalPrice;
+
+    public RegionStats(String region, long productCount, long pricedCount, long minPrice, long maxPrice,
+                       long totalPrice) {
+        this.region = region;
+        this.productCount = productCount;
+        this.pricedCount = pricedCount;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.totalPrice = totalPrice;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public long getPricedCount() {
+        return pricedCount;
+    }
+
+    /**
+     * @return lowest price, or {@link Prices#UNPRICED} if no product of the region has a price
+     */
+    public long getMinPrice() {
+        return pricedCount == 0 ? Prices.UNPRICED : minPrice;
+    }
+
+    /**
+     * @return highest price, or {@link Prices#UNPRICED} if no product of the region has a price
+     */
+    public long getMaxPrice() {
+        return pricedCount == 0 ? Prices.UNPRICED : maxPrice;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * @return average price of the priced products, or NaN if there are none
+     */
+    public double getAveragePrice() {
+        return pricedCount == 0 ? Double.NaN : (double) totalPrice / pricedCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegionStats[region=%s, products=%d, priced=%d, min=%d, max=%d, avg=%.2f]",
+                region, productCount, pricedCount, getMinPrice(), getMaxPrice(), getAveragePrice());
+    }
+}
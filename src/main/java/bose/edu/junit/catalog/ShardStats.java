@@ -0,0 +1,58 @@
+package bose.edu.junit.catalog;
+
+/**
+ * Load and key distribution of one shard of a {@link PartitionedCatalog}.
+ */
+public final class ShardStats {
+    private final String shard;
+    private final int regions;
+    private final long products;
+    private final long lookups;
+    private final double ownership;
+
+    public ShardStats(String shard, int regions, long products, long lookups, double ownership) {
+        this.shard = shard;
+        this.regions = regions;
+        this.products = products;
+        this.lookups = lookups;
+        this.ownership = ownership;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    /**
+     * @return number of regions the shard owns
+     */
+    public int getRegions() {
+        return regions;
+    }
+
+    /**
+     * @return number of products in the regions the shard owns
+     */
+    public long getProducts() {
+        return products;
+    }
+
+    /**
+     * @return number of region lookups routed to the shard
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return share of the hash space the shard owns, between 0 and 1
+     */
+    public double getOwnership() {
+        return ownership;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ShardStats[shard=%s, regions=%d, products=%d, lookups=%d, ownership=%.3f]",
+                shard, regions, products, lookups, ownership);
+    }
+}
@@ -0,0 +1,50 @@
+package bose.edu.junit.catalog;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File system operations whose order decides what survives a crash: a file is forced before it is moved
+ * in place, the directory is forced after a file was created or moved in it, and files covered by a new
+ * snapshot are only deleted after both. Tests override it to record the order.
+ */
+class Storage {
+    static final Storage DEFAULT = new Storage();
+
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * Forces the content and metadata of a file to the device.
+     */
+    void force(FileChannel channel) throws IOException {
+        channel.force(true);
+    }
+
+    /**
+     * Replaces the target by the source in one step.
+     */
+    void move(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Forces the entries of a directory, so files created, moved or deleted in it survive a crash.
+     */
+    void syncDirectory(Path directory) throws IOException {
+        if (WINDOWS) {
+            /* directories cannot be opened as channels there, and NTFS journals its entries */
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,380 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mutable catalog which applies batches of {@link CatalogDelta}s.
+ * Every batch publishes a new immutable snapshot; readers go through a single atomic pointer and
+ * never lock, and regions untouched by a batch are shared between snapshots instead of being copied.
+ */
+public class VersionedCatalog implements Catalog {
+    private final AtomicReference<Snapshot> current;
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Latest prepared snapshot, ahead of {@link #current} while prepared batches wait to be published.
+     */
+    private Snapshot prepared;
+
+    public VersionedCatalog() {
+        this(new Snapshot(0, Collections.emptyMap()));
+    }
+
+    /**
+     * Creates a catalog starting with the content of another catalog at version 0.
+     *
+     * @param initial initial content
+     */
+    public VersionedCatalog(Catalog initial) {
+        this(initial, 0);
+    }
+
+    /**
+     * Creates a catalog starting with the content of another catalog at a given version,
+     * e.g. the version recorded in a snapshot. Every region starts at that version.
+     *
+     * @param initial initial content
+     * @param version initial version
+     */
+    public VersionedCatalog(Catalog initial, long version) {
+        Map<String, Region> regions = new HashMap<>();
+        for (String region : initial.getRegions()) {
+            Map<String, GenericProduct> products = new LinkedHashMap<>();
+            for (GenericProduct product : initial.getGenericProducts(region)) {
+                products.put(product.getName(), product);
+            }
+            regions.put(region, new Region(version, products));
+        }
+        this.current = new AtomicReference<>(new Snapshot(version, regions));
+        this.prepared = current.get();
+    }
+
+    private VersionedCatalog(Snapshot snapshot) {
+        this.current = new AtomicReference<>(snapshot);
+        this.prepared = snapshot;
+    }
+
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies a batch of deltas atomically: either all of them become visible in one new version or,
+     * if any of them is invalid, none of them.
+     * An ADD of an existing product, and an UPDATE or REMOVE of a missing product, are invalid.
+     *
+     * @param batch deltas in the order they are applied
+     * @return the new catalog version
+     * @throws IllegalArgumentException if a delta is invalid
+     */
+    public synchronized long apply(List<CatalogDelta> batch) {
+        Prepared next = prepare(batch);
+        if (next == null) {
+            return prepared.version;
+        }
+        publish(next);
+        return next.getVersion();
+    }
+
+    /**
+     * Validates a batch and builds its snapshot on top of the latest prepared one, without publishing it.
+     * Prepared batches are published with {@link #publish(Prepared)} in version order, or dropped with
+     * {@link #discard(Prepared)}; readers and listeners see nothing of them until then.
+     *
+     * @param batch deltas in the order they are applied
+     * @return the prepared batch, or null if the batch changes nothing
+     * @throws IllegalArgumentException if a delta is invalid
+     */
+    synchronized Prepared prepare(List<CatalogDelta> batch) {
+        Snapshot snapshot = prepared;
+        long version = snapshot.version + 1;
+
+        Map<String, Map<String, GenericProduct>> changed = new LinkedHashMap<>();
+        for (CatalogDelta delta : batch) {
+            Map<String, GenericProduct> products = changed.computeIfAbsent(delta.getRegion(), region -> {
+                Region existing = snapshot.regions.get(region);
+                return existing == null ? new LinkedHashMap<>() : new LinkedHashMap<>(existing.products);
+            });
+            boolean exists = products.containsKey(delta.getName());
+            switch (delta.getType()) {
+                case ADD:
+                    check(!exists, "already exists", delta);
+                    products.put(delta.getName(), delta.getProduct());
+                    break;
+                case UPDATE:
+                    check(exists, "does not exist", delta);
+                    products.put(delta.getName(), delta.getProduct());
+                    break;
+                case REMOVE:
+                    check(exists, "does not exist", delta);
+                    products.remove(delta.getName());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown delta type " + delta.getType());
+            }
+        }
+        if (changed.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Region> regions = new HashMap<>(snapshot.regions);
+        changed.forEach((region, products) -> regions.put(region, new Region(version, products)));
+        prepared = new Snapshot(version, regions);
+        return new Prepared(snapshot, prepared, Collections.unmodifiableSet(new LinkedHashSet<>(changed.keySet())));
+    }
+
+    /**
+     * Publishes a prepared batch and notifies the listeners, once every earlier prepared batch is published.
+     *
+     * @param next prepared batch
+     * @throws IllegalStateException if an earlier batch it builds on was discarded
+     */
+    synchronized void publish(Prepared next) {
+        boolean interrupted = false;
+        while (current.get() != next.base) {
+            if (next.base.discarded || current.get().version >= next.getVersion()) {
+                /* whatever was prepared on top of this batch is lost with it */
+                discard(next);
+                throw new IllegalStateException("Batch " + next.getVersion() + " builds on a discarded batch");
+            }
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        current.set(next.snapshot);
+        notifyAll();
+        for (CatalogListener listener : listeners) {
+            listener.regionsChanged(next.getVersion(), next.regions);
+        }
+    }
+
+    /**
+     * Drops a prepared batch and every batch prepared on top of it; the next batch builds on its base again.
+     *
+     * @param failed prepared batch which must not become visible
+     */
+    synchronized void discard(Prepared failed) {
+        failed.snapshot.discarded = true;
+        if (prepared.version >= failed.getVersion()) {
+            prepared = failed.base;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Replaces the content of a region in one new version, creating the region if needed, e.g. an empty one.
+     *
+     * @param region   region name
+     * @param products new content of the region
+     * @return the new catalog version
+     */
+    synchronized long replaceRegion(String region, List<GenericProduct> products) {
+        Map<String, GenericProduct> content = new LinkedHashMap<>();
+        for (GenericProduct product : products) {
+            content.put(product.getName(), product);
+        }
+        return publishRegion(region, content);
+    }
+
+    /**
+     * Drops a region with its products in one new version.
+     *
+     * @param region region name
+     * @return the new catalog version, or the current one if the region does not exist
+     */
+    synchronized long removeRegion(String region) {
+        if (!prepared.regions.containsKey(region)) {
+            return prepared.version;
+        }
+        return publishRegion(region, null);
+    }
+
+    private long publishRegion(String region, Map<String, GenericProduct> products) {
+        Snapshot snapshot = prepared;
+        long version = snapshot.version + 1;
+        Map<String, Region> regions = new HashMap<>(snapshot.regions);
+        if (products == null) {
+            regions.remove(region);
+        } else {
+            regions.put(region, new Region(version, products));
+        }
+        prepared = new Snapshot(version, regions);
+        publish(new Prepared(snapshot, prepared, Collections.singleton(region)));
+        return version;
+    }
+
+    /**
+     * Returns the latest prepared snapshot, including batches not published yet, as an immutable catalog.
+     *
+     * @return catalog at the latest prepared version
+     */
+    synchronized VersionedCatalog freezePrepared() {
+        return new VersionedCatalog(prepared);
+    }
+
+    /**
+     * Returns the version of the latest published snapshot.
+     *
+     * @return catalog version
+     */
+    public long getVersion() {
+        return current.get().version;
+    }
+
+    /**
+     * Returns the latest published snapshot as an immutable catalog; batches applied later do not change it.
+     *
+     * @return catalog at {@link #getVersion()} as of this call
+     */
+    public Catalog freeze() {
+        return new VersionedCatalog(current.get());
+    }
+
+    @Override
+    public long getRegionVersion(String region) {
+        Region products = current.get().regions.get(region);
+        return products == null ? -1 : products.version;
+    }
+
+    @Override
+    public Collection<String> getRegions() {
+        return Collections.unmodifiableSet(current.get().regions.keySet());
+    }
+
+    @Override
+    public List<Product> getProducts(String region) {
+        Region products = current.get().regions.get(region);
+        return products == null ? null : new ProductView(products.list);
+    }
+
+    @Override
+    public List<GenericProduct> getGenericProducts(String region) {
+        Region products = current.get().regions.get(region);
+        return products == null ? null : products.list;
+    }
+
+    /**
+     * Returns a slice of the price order of a region, which is sorted once per region version on first use
+     * and shared by every later call until the region changes; only the returned products are created.
+     */
+    @Override
+    public List<Product> getProductsByPrice(String region, int offset, int limit) {
+        Region products = current.get().regions.get(region);
+        if (products == null) {
+            return null;
+        }
+        int[] order = products.priceOrder();
+        int to = (int) Math.min(order.length, (long) offset + limit);
+        if (offset < 0 || offset >= to) {
+            return Collections.emptyList();
+        }
+        List<Product> slice = new ArrayList<>(to - offset);
+        for (int i = offset; i < to; i++) {
+            GenericProduct product = products.list.get(order[i]);
+            slice.add(new Product(product.getName(), product.getPrice()));
+        }
+        return slice;
+    }
+
+    private static void check(boolean condition, String problem, CatalogDelta delta) {
+        if (!condition) {
+            throw new IllegalArgumentException(String.format("%s of product [%s] in region [%s]: product %s",
+                    delta.getType(), delta.getName(), delta.getRegion(), problem));
+        }
+    }
+
+    /**
+     * Batch validated by {@link #prepare(List)}, waiting to be published or discarded.
+     */
+    static final class Prepared {
+        private final Snapshot base;
+        private final Snapshot snapshot;
+        private final Set<String> regions;
+
+        private Prepared(Snapshot base, Snapshot snapshot, Set<String> regions) {
+            this.base = base;
+            this.snapshot = snapshot;
+            this.regions = regions;
+        }
+
+        long getVersion() {
+            return snapshot.version;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Map<String, Region> regions;
+        private boolean discarded;
+
+        private Snapshot(long version, Map<String, Region> regions) {
+            this.version = version;
+            this.regions = regions;
+        }
+    }
+
+    private static final class Region {
+        private final long version;
+        private final Map<String, GenericProduct> products;
+        private final List<GenericProduct> list;
+        private volatile int[] priceOrder;
+
+        private Region(long version, Map<String, GenericProduct> products) {
+            this.version = version;
+            this.products = products;
+            this.list = Collections.unmodifiableList(new ArrayList<>(products.values()));
+        }
+
+        private int[] priceOrder() {
+            int[] order = priceOrder;
+            if (order == null) {
+                /* computed once per region version; a racing thread computes the same order */
+                order = PriceOrder.sort(list);
+                priceOrder = order;
+            }
+            return order;
+        }
+    }
+
+    private static final class ProductView extends AbstractList<Product> implements RandomAccess {
+        private final List<GenericProduct> products;
+
+        private ProductView(List<GenericProduct> products) {
+            this.products = products;
+        }
+
+        @Override
+        public Product get(int index) {
+            GenericProduct product = products.get(index);
+            return new Product(product.getName(), product.getPrice());
+        }
+
+        @Override
+        public int size() {
+            return products.size();
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package bose.edu.junit.http;
+
+import bose.edu.junit.serialization.JsonSerializer;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Utf8Response;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Non-blocking HTTP/1.1 front end of the {@link Controller}: {@code GET /products?region=<region>} answers
+ * the UTF-8 JSON of {@link Controller#getAllProductsAsUtf8ResponseFor(String, String)} with the status of
+ * that response as the HTTP status, e.g. 400 for an unknown region or 429 for a request over its limit.
+ * The caller of the rate limits is the IP address of the client, so clients behind one proxy share a limit.
+ * <p>
+ * One event loop thread accepts connections, parses requests and writes responses; the controller runs on
+ * a worker executor so a slow fetch never stalls other connections. Connections are kept alive, and
+ * pipelined requests are dispatched together and answered in request order. Bodies are the controller's
+ * byte arrays, written behind a small header with one gathering write. Request bodies are not supported.
+ * <p>
+ * {@code GET /ready} answers "200" once the readiness flag given at start is set and "503" before, so a
+ * load balancer can hold traffic back while e.g. a {@link bose.edu.junit.warmup.WarmUp} runs.
+ */
+public final class ProductHttpServer implements AutoCloseable {
+    static final String PATH = "/products";
+    static final String READY_PATH = "/ready";
+    private static final int MAX_HEAD = 8 * 1024;
+    /**
+     * Requests of one connection in flight at most; beyond it the connection is not read until some are answered.
+     */
+    private static final int MAX_PIPELINED = 64;
+
+    private static final JsonSerializer JSON = JsonSerializer.getDefault();
+    private static final byte[] BAD_REQUEST = error("400", "Bad request");
+    private static final byte[] MISSING_REGION = error("400", "Region is required");
+    private static final byte[] NOT_FOUND = error("404", "Not found");
+    private static final byte[] METHOD_NOT_ALLOWED = error("405", "Method not allowed");
+    private static final byte[] HEAD_TOO_LARGE = error("431", "Request header fields too large");
+    private static final byte[] SERVER_ERROR = error("500", "Error in fetching products, please try later");
+    private static final byte[] UNAVAILABLE = error("503", "Server is busy, please try later");
+    private static final byte[] VERSION_NOT_SUPPORTED = error("505", "HTTP version not supported");
+    private static final byte[] READY = error("200", "Ready");
+    private static final byte[] NOT_READY = error("503", "Warming up");
+
+    private final Controller controller;
+    private final BooleanSupplier readiness;
+    private final ExecutorService workers;
+    private final boolean ownsWorkers;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final Thread loop;
+    private volatile boolean running = true;
+
+    private ProductHttpServer(Controller controller, InetSocketAddress address, BooleanSupplier readiness,
+                              ExecutorService workers, boolean ownsWorkers) throws IOException {
+        this.controller = controller;
+        this.readiness = readiness;
+        this.workers = workers;
+        this.ownsWorkers = ownsWorkers;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException ex) {
+            server.close();
+            selector.close();
+            throw ex;
+        }
+        this.loop = new Thread(this::run, "product-http-" + getAddress().getPort());
+        loop.start();
+    }
+
+    /**
+     * Starts a server with a worker pool of twice the available processors, shut down with the server.
+     *
+     * @param controller controller answering the requests
+     * @param address    address to bind, port 0 for an ephemeral port
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static ProductHttpServer start(Controller controller, InetSocketAddress address) throws IOException {
+        return start(controller, address, () -> true);
+    }
+
+    /**
+     * Starts a server with a worker pool of twice the available processors, shut down with the server.
+     *
+     * @param controller controller answering the requests
+     * @param address    address to bind, port 0 for an ephemeral port
+     * @param readiness  flag answered on {@code /ready}, polled per request
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static ProductHttpServer start(Controller controller, InetSocketAddress address,
+                                          BooleanSupplier readiness) throws IOException {
+        int threads = 2 * Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "product-http-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return new ProductHttpServer(controller, address, readiness, workers, true);
+        } catch (IOException ex) {
+            workers.shutdown();
+            throw ex;
+        }
+    }
+
+    /**
+     * Starts a server calling the controller on the given executor, which stays owned by the caller.
+     *
+     * @param controller controller answering the requests
+     * @param address    address to bind, port 0 for an ephemeral port
+     * @param workers    executor running the controller calls
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static ProductHttpServer start(Controller controller, InetSocketAddress address,
+                                          ExecutorService workers) throws IOException {
+        return start(controller, address, workers, () -> true);
+    }
+
+    /**
+     * Starts a server calling the controller on the given executor, which stays owned by the caller.
+     *
+     * @param controller controller answering the requests
+     * @param address    address to bind, port 0 for an ephemeral port
+     * @param workers    executor running the controller calls
+     * @param readiness  flag answered on {@code /ready}, polled per request
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static ProductHttpServer start(Controller controller, InetSocketAddress address,
+                                          ExecutorService workers, BooleanSupplier readiness) throws IOException {
+        return new ProductHttpServer(controller, address, readiness, workers, false);
+    }
+
+    /**
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) server.socket().getLocalSocketAddress();
+    }
+
+    /**
+     * Stops accepting, closes every connection and waits for the event loop to end.
+     * Requests still running on the workers are answered to closed connections, which drops them.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsWorkers) {
+            workers.shutdown();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+                for (Connection connection; (connection = completed.poll()) != null; ) {
+                    connection.advance();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        connection.advance();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException ex) {
+            /* the server stops with the loop */
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                /* nothing left to release */
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                String caller = ((InetSocketAddress) channel.getRemoteAddress()).getAddress().getHostAddress();
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key, caller));
+            } catch (IOException ex) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Called by a worker when an exchange is answered; wakes the loop once for any number of completions.
+     */
+    private void completed(Connection connection) {
+        completed.add(connection);
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ex) {
+            /* the connection is gone either way */
+        }
+    }
+
+    private static byte[] error(String status, String message) {
+        return JSON.toUtf8(new Response(status, message, null));
+    }
+
+    /**
+     * Returns the HTTP status of a controller response, 500 for a status which is not one.
+     */
+    static int httpStatus(String status) {
+        if (status != null && status.length() == 3) {
+            try {
+                int code = Integer.parseInt(status);
+                if (code >= 100 && code <= 599) {
+                    return code;
+                }
+            } catch (NumberFormatException ex) {
+                /* answered as a server error below */
+            }
+        }
+        return 500;
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 429:
+                return "Too Many Requests";
+            case 431:
+                return "Request Header Fields Too Large";
+            case 503:
+                return "Service Unavailable";
+            case 505:
+                return "HTTP Version Not Supported";
+            default:
+                return "Internal Server Error";
+        }
+    }
+
+    /**
+     * One request of a connection. The response is set once, by the loop or a worker, and written by the loop.
+     */
+    private static final class Exchange {
+        private final boolean close;
+        private volatile ByteBuffer[] response;
+
+        private Exchange(boolean close) {
+            this.close = close;
+        }
+
+        private void complete(int status, byte[] body) {
+            StringBuilder head = new StringBuilder(128)
+                    .append("HTTP/1.1 ").append(status).append(' ').append(reason(status))
+                    .append("\r\nContent-Type: application/json\r\nContent-Length: ").append(body.length);
+            if (status == 405) {
+                head.append("\r\nAllow: GET");
+            }
+            if (close) {
+                head.append("\r\nConnection: close");
+            }
+            head.append("\r\n\r\n");
+            response = new ByteBuffer[]{
+                    ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)), ByteBuffer.wrap(body)};
+        }
+    }
+
+    /**
+     * State of one client connection, only touched by the event loop.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        /**
+         * Caller identity of the rate limits.
+         */
+        private final String caller;
+        /**
+         * Received bytes not parsed yet, in write mode.
+         */
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_HEAD);
+        /**
+         * Exchanges in request order; the head is the one written next.
+         */
+        private final ArrayDeque<Exchange> exchanges = new ArrayDeque<>();
+        private ByteBuffer[] writing;
+        private boolean endOfInput;
+        private boolean lastRequest;
+        private boolean closed;
+
+        private Connection(SocketChannel channel, SelectionKey key, String caller) {
+            this.channel = channel;
+            this.key = key;
+            this.caller = caller;
+        }
+
+        private void read() {
+            try {
+                if (channel.read(in) < 0) {
+                    endOfInput = true;
+                }
+            } catch (IOException ex) {
+                close();
+            }
+        }
+
+        /**
+         * Parses and writes as far as possible, then waits for the events which allow more.
+         */
+        private void advance() {
+            boolean progress = true;
+            while (progress && !closed) {
+                progress = parse() | write();
+            }
+            if (closed) {
+                return;
+            }
+            if ((endOfInput || lastRequest) && exchanges.isEmpty()) {
+                close();
+                return;
+            }
+            int interest = 0;
+            if (!endOfInput && !lastRequest && exchanges.size() < MAX_PIPELINED && in.hasRemaining()) {
+                interest |= SelectionKey.OP_READ;
+            }
+            if (writing != null) {
+                interest |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(interest);
+        }
+
+        /**
+         * @return true if at least one request was parsed
+         */
+        private boolean parse() {
+            boolean parsed = false;
+            in.flip();
+            try {
+                while (!lastRequest && exchanges.size() < MAX_PIPELINED) {
+                    int end = headEnd();
+                    if (end < 0) {
+                        if (in.remaining() == in.capacity()) {
+                            respond(new Exchange(true), 431, HEAD_TOO_LARGE);
+                            parsed = true;
+                        }
+                        break;
+                    }
+                    String head = new String(in.array(), in.position(), end - in.position(), StandardCharsets.ISO_8859_1);
+                    in.position(end + 4);
+                    dispatch(head);
+                    parsed = true;
+                }
+            } finally {
+                in.compact();
+            }
+            return parsed;
+        }
+
+        /**
+         * @return offset of the blank line ending the head of the next request, or -1 if it is incomplete
+         */
+        private int headEnd() {
+            byte[] bytes = in.array();
+            for (int i = in.position(); i + 3 < in.limit(); i++) {
+                if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void dispatch(String head) {
+            String[] lines = head.split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length != 3) {
+                respond(new Exchange(true), 400, BAD_REQUEST);
+                return;
+            }
+            String method = requestLine[0];
+            String target = requestLine[1];
+            String version = requestLine[2];
+            if (!"HTTP/1.1".equals(version) && !"HTTP/1.0".equals(version)) {
+                respond(new Exchange(true), 505, VERSION_NOT_SUPPORTED);
+                return;
+            }
+
+            String connection = null;
+            boolean hasBody = false;
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    respond(new Exchange(true), 400, BAD_REQUEST);
+                    return;
+                }
+                String name = lines[i].substring(0, colon).trim();
+                String value = lines[i].substring(colon + 1).trim();
+                if ("Connection".equalsIgnoreCase(name)) {
+                    connection = value;
+                } else if ("Transfer-Encoding".equalsIgnoreCase(name)
+                        || "Content-Length".equalsIgnoreCase(name) && !"0".equals(value)) {
+                    hasBody = true;
+                }
+            }
+            boolean close = "HTTP/1.1".equals(version)
+                    ? "close".equalsIgnoreCase(connection) : !"keep-alive".equalsIgnoreCase(connection);
+            if (hasBody) {
+                /* the body cannot be skipped reliably without parsing it, so the connection ends here */
+                respond(new Exchange(true), 400, BAD_REQUEST);
+                return;
+            }
+
+            Exchange exchange = new Exchange(close);
+            int query = target.indexOf('?');
+            String path = query < 0 ? target : target.substring(0, query);
+            if (!PATH.equals(path) && !READY_PATH.equals(path)) {
+                respond(exchange, 404, NOT_FOUND);
+                return;
+            }
+            if (!"GET".equals(method)) {
+                respond(exchange, 405, METHOD_NOT_ALLOWED);
+                return;
+            }
+            if (READY_PATH.equals(path)) {
+                boolean ready = readiness.getAsBoolean();
+                respond(exchange, ready ? 200 : 503, ready ? READY : NOT_READY);
+                return;
+            }
+            String region;
+            try {
+                region = query < 0 ? null : parameter(target.substring(query + 1), "region");
+            } catch (IllegalArgumentException ex) {
+                respond(exchange, 400, BAD_REQUEST);
+                return;
+            }
+            if (region == null || region.isEmpty()) {
+                respond(exchange, 400, MISSING_REGION);
+                return;
+            }
+
+            enqueue(exchange);
+            try {
+                workers.execute(() -> {
+                    Utf8Response response;
+                    try {
+                        response = controller.getAllProductsAsUtf8ResponseFor(caller, region);
+                    } catch (RuntimeException ex) {
+                        exchange.complete(500, SERVER_ERROR);
+                        completed(this);
+                        return;
+                    }
+                    exchange.complete(httpStatus(response.getStatus()), response.getJson());
+                    completed(this);
+                });
+            } catch (RejectedExecutionException ex) {
+                exchange.complete(503, UNAVAILABLE);
+            }
+        }
+
+        private void respond(Exchange exchange, int status, byte[] body) {
+            exchange.complete(status, body);
+            enqueue(exchange);
+        }
+
+        private void enqueue(Exchange exchange) {
+            exchanges.add(exchange);
+            lastRequest |= exchange.close;
+        }
+
+        /**
+         * @return true if at least one response was written completely
+         */
+        private boolean write() {
+            boolean written = false;
+            try {
+                while (true) {
+                    if (writing == null) {
+                        Exchange head = exchanges.peek();
+                        if (head == null || head.response == null) {
+                            return written;
+                        }
+                        writing = head.response;
+                    }
+                    channel.write(writing);
+                    if (writing[writing.length - 1].hasRemaining()) {
+                        return written;
+                    }
+                    writing = null;
+                    written = true;
+                    if (exchanges.poll().close) {
+                        close();
+                        return true;
+                    }
+                }
+            } catch (IOException ex) {
+                close();
+                return true;
+            }
+        }
+
+        private void close() {
+            closed = true;
+            exchanges.clear();
+            closeQuietly(key);
+        }
+    }
+
+    /**
+     * Returns the decoded value of a query parameter.
+     *
+     * @param query query string without the question mark
+     * @param name  parameter name
+     * @return the first value of the parameter, or null if it is absent
+     * @throws IllegalArgumentException if the value is not properly encoded
+     */
+    static String parameter(String query, String name) {
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (key.equals(name)) {
+                try {
+                    return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+                } catch (UnsupportedEncodingException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package bose.edu.junit.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering one Controller request. Create it, call {@link #begin()} before the
+ * work and {@link #complete(String, String, String, long)} after it, guarded by {@link #shouldCommit()}
+ * so the fields are only computed while the event is recorded.
+ */
+@Name("bose.edu.junit.ControllerRequest")
+@Label("Controller Request")
+@Category({"Product Catalog", "Controller"})
+@Description("Products request answered by the Controller")
+@StackTrace(false)
+public class ControllerRequestEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Region")
+    String region;
+
+    @Label("Status")
+    String status;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadBytes;
+
+    /**
+     * Fills in the request details and commits the event.
+     *
+     * @param operation    request variant, e.g. "json" or an encoding name
+     * @param region       requested region
+     * @param status       response status, null if unknown
+     * @param payloadBytes size of the encoded payload
+     */
+    public void complete(String operation, String region, String status, long payloadBytes) {
+        this.operation = operation;
+        this.region = region;
+        this.status = status;
+        this.payloadBytes = payloadBytes;
+        commit();
+    }
+}
@@ -0,0 +1,27 @@
+package bose.edu.junit.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic flight recorder event reporting the errors logged during the last period, emitted only when
+ * they reach the burst threshold of {@link ErrorBursts}.
+ */
+@Name("bose.edu.junit.ErrorBurst")
+@Label("Error Burst")
+@Category({"Product Catalog", "Logger"})
+@Description("Errors logged during one period, when they reach the burst threshold")
+@Period("1 s")
+@StackTrace(false)
+public class ErrorBurstEvent extends Event {
+    @Label("Errors")
+    long errors;
+
+    @Label("Last Exception")
+    String lastException;
+}
@@ -0,0 +1,61 @@
+package bose.edu.junit.monitoring;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts logged errors while {@link ErrorBurstEvent} is recorded and reports them once per period.
+ * The threshold is read from the system property {@value #THRESHOLD_PROPERTY}, default 10 errors per period.
+ * <p>
+ * A recording only runs the periodic hook if it was registered before the recording started, so
+ * {@link #register()} is called when the {@code Logger} class is initialized.
+ */
+public final class ErrorBursts {
+    static final String THRESHOLD_PROPERTY = "bose.jfr.errorBurstThreshold";
+
+    private static final long THRESHOLD = Long.getLong(THRESHOLD_PROPERTY, 10);
+    private static final EventType TYPE = EventType.getEventType(ErrorBurstEvent.class);
+    private static final LongAdder ERRORS = new LongAdder();
+    private static volatile String lastException;
+
+    static {
+        FlightRecorder.addPeriodicEvent(ErrorBurstEvent.class, ErrorBursts::emit);
+    }
+
+    private ErrorBursts() {
+    }
+
+    /**
+     * Registers the periodic hook; does nothing after the first call.
+     */
+    public static void register() {
+        /* registration happens in the static initializer */
+    }
+
+    /**
+     * Counts an error; does nothing unless the burst event is being recorded.
+     *
+     * @param ex logged exception
+     */
+    public static void record(Exception ex) {
+        /* the event type reflects the running recordings without creating an event per error */
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+        ERRORS.increment();
+        lastException = ex.getClass().getName();
+    }
+
+    private static void emit() {
+        long errors = ERRORS.sumThenReset();
+        if (errors < THRESHOLD) {
+            return;
+        }
+        ErrorBurstEvent event = new ErrorBurstEvent();
+        event.errors = errors;
+        event.lastException = lastException;
+        event.commit();
+    }
+}
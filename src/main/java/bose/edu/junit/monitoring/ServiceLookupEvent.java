@@ -0,0 +1,34 @@
+package bose.edu.junit.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering one catalog lookup of the Service; used like {@link ControllerRequestEvent}.
+ */
+@Name("bose.edu.junit.ServiceLookup")
+@Label("Service Lookup")
+@Category({"Product Catalog", "Service"})
+@Description("Products of a region looked up in the catalog")
+@StackTrace(false)
+public class ServiceLookupEvent extends Event {
+    @Label("Region")
+    String region;
+
+    @Label("Status")
+    String status;
+
+    @Label("Products")
+    int productCount;
+
+    public void complete(String region, String status, int productCount) {
+        this.region = region;
+        this.status = status;
+        this.productCount = productCount;
+        commit();
+    }
+}
@@ -0,0 +1,41 @@
+package bose.edu.junit.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering the startup warm-up, from its start until the node reports ready.
+ */
+@Name("bose.edu.junit.WarmUp")
+@Label("Warm-up")
+@Category({"Product Catalog", "Startup"})
+@Description("Caches and compiled code primed before the node reports ready")
+@StackTrace(false)
+public class WarmUpEvent extends Event {
+    @Label("Regions")
+    int regions;
+
+    @Label("Rounds")
+    int rounds;
+
+    @Label("Compilation Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long compilationMillis;
+
+    @Label("Settled")
+    @Description("Whether compilation settled before the time limit")
+    boolean settled;
+
+    public void complete(int regions, int rounds, long compilationMillis, boolean settled) {
+        this.regions = regions;
+        this.rounds = rounds;
+        this.compilationMillis = compilationMillis;
+        this.settled = settled;
+        commit();
+    }
+}
@@ -0,0 +1,83 @@
+package bose.edu.junit.search;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Filter on product sub types, composed of attribute equality with AND and OR,
+ * e.g. {@code AttributeQuery.and(eq("color", "silver"), eq("storage", "256GB"))}.
+ */
+public abstract class AttributeQuery {
+    private AttributeQuery() {
+    }
+
+    public static AttributeQuery eq(String key, String value) {
+        return new Equals(key, value);
+    }
+
+    public static AttributeQuery and(AttributeQuery... queries) {
+        return new Composite(true, Arrays.asList(queries));
+    }
+
+    public static AttributeQuery or(AttributeQuery... queries) {
+        return new Composite(false, Arrays.asList(queries));
+    }
+
+    /**
+     * Evaluates the query against an index.
+     *
+     * @param index index of one region
+     * @return ids of the matching products, owned by the caller
+     */
+    abstract RoaringBitmap evaluate(SubTypeIndex index);
+
+    private static final class Equals extends AttributeQuery {
+        private final String key;
+        private final String value;
+
+        private Equals(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        RoaringBitmap evaluate(SubTypeIndex index) {
+            return index.lookup(key, value).clone();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private static final class Composite extends AttributeQuery {
+        private final boolean and;
+        private final List<AttributeQuery> queries;
+
+        private Composite(boolean and, List<AttributeQuery> queries) {
+            if (queries.isEmpty()) {
+                throw new IllegalArgumentException("At least one query is required");
+            }
+            this.and = and;
+            this.queries = queries;
+        }
+
+        @Override
+        RoaringBitmap evaluate(SubTypeIndex index) {
+            Iterator<RoaringBitmap> operands = queries.stream().map(query -> query.evaluate(index)).iterator();
+            return and ? FastAggregation.and(operands) : FastAggregation.or(operands);
+        }
+
+        @Override
+        public String toString() {
+            return queries.stream().map(String::valueOf)
+                    .collect(Collectors.joining(and ? " AND " : " OR ", "(", ")"));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package bose.edu.junit.search;
+
+import bose.edu.junit.catalog.Catalog;
+import bose.edu.junit.catalog.CatalogListener;
+import bose.edu.junit.valueobjects.GenericProduct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full-text and typeahead search over product names and sub type values of a catalog.
+ * The index keeps one {@link SearchSegment} per region; register it as a {@link CatalogListener}
+ * before changing the catalog and only the segments of changed regions are rebuilt.
+ * <p>
+ * Rebuilds run on the indexing executor rather than on the thread applying the change, and each new
+ * segment replaces the old one in a single put, so searches keep using the previous segment until then.
+ * Changes arriving while a rebuild is pending are coalesced into it: a region is rebuilt once from the
+ * latest catalog state however many batches touched it. {@link #awaitIndexed} waits for a version.
+ * {@link #close()} shuts down the indexing thread the index created itself; changes are ignored afterwards.
+ */
+public class ProductSearchIndex implements CatalogListener, AutoCloseable {
+    private static final Comparator<SearchHit> RANK = Comparator.comparing(SearchHit::getProduct, SearchSegment.RANK);
+
+    private final Catalog catalog;
+    private final Executor indexer;
+    private final ExecutorService ownedIndexer;
+    private final ConcurrentMap<String, SearchSegment> segments = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong requestedVersion = new AtomicLong(-1);
+    private final Object indexedLock = new Object();
+    private long indexedVersion = -1;
+    private volatile boolean closed;
+
+    /**
+     * Creates an index rebuilding changed regions on a daemon thread of its own, which exits when idle.
+     *
+     * @param catalog catalog to index
+     */
+    public ProductSearchIndex(Catalog catalog) {
+        this(catalog, defaultIndexer(), true);
+    }
+
+    /**
+     * @param catalog catalog to index
+     * @param indexer executor running the rebuilds of changed regions, left running by {@link #close()}
+     */
+    public ProductSearchIndex(Catalog catalog, Executor indexer) {
+        this(catalog, indexer, false);
+    }
+
+    private ProductSearchIndex(Catalog catalog, Executor indexer, boolean ownsIndexer) {
+        this.catalog = catalog;
+        this.indexer = indexer;
+        this.ownedIndexer = ownsIndexer ? (ExecutorService) indexer : null;
+        catalog.getRegions().forEach(this::rebuild);
+    }
+
+    /**
+     * Finds products containing every token of the query.
+     *
+     * @param query free text
+     * @param limit maximum number of results
+     * @return best ranked matches, shorter names first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        return find(Tokenizer.tokenize(query), false, limit);
+    }
+
+    /**
+     * Completes a partially typed query: all tokens but the last must match exactly,
+     * the last one is matched as a prefix.
+     *
+     * @param query partially typed text
+     * @param limit maximum number of results
+     * @return best ranked matches, shorter names first
+     */
+    public List<SearchHit> typeahead(String query, int limit) {
+        return find(Tokenizer.tokenize(query), true, limit);
+    }
+
+    /**
+     * Waits until the changes of a catalog version are searchable.
+     *
+     * @param version catalog version passed to {@link #regionsChanged}
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return true if the version is indexed, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIndexed(long version, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (indexedLock) {
+            while (indexedVersion < version) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(indexedLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void regionsChanged(long version, Set<String> regions) {
+        if (closed) {
+            return;
+        }
+        /* pending before requested, so a drain which reads the requested version sees its regions */
+        pending.addAll(regions);
+        requestedVersion.accumulateAndGet(version, Math::max);
+        if (scheduled.compareAndSet(false, true)) {
+            indexer.execute(this::drain);
+        }
+    }
+
+    /**
+     * Stops indexing changes and shuts down the indexing thread created by this index; a pending rebuild
+     * still completes. Searches keep answering from the last segments.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (ownedIndexer != null) {
+            ownedIndexer.shutdown();
+        }
+    }
+
+    /**
+     * @return true once the indexing thread created by this index has exited
+     */
+    boolean isTerminated() {
+        return ownedIndexer == null || ownedIndexer.isTerminated();
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        long version = requestedVersion.get();
+        for (String region : pending) {
+            if (pending.remove(region)) {
+                rebuild(region);
+            }
+        }
+        synchronized (indexedLock) {
+            indexedVersion = Math.max(indexedVersion, version);
+            indexedLock.notifyAll();
+        }
+    }
+
+    private List<SearchHit> find(List<String> tokens, boolean lastIsPrefix, int limit) {
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> exact = lastIsPrefix ? tokens.subList(0, tokens.size() - 1) : tokens;
+        String prefix = lastIsPrefix ? tokens.get(tokens.size() - 1) : null;
+
+        List<SearchHit> hits = new ArrayList<>();
+        for (SearchSegment segment : segments.values()) {
+            for (int document : segment.match(exact, prefix, limit)) {
+                hits.add(new SearchHit(segment.getRegion(), segment.getDocument(document)));
+            }
+        }
+        hits.sort(RANK);
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    private static ExecutorService defaultIndexer() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "search-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void rebuild(String region) {
+        List<GenericProduct> products = catalog.getGenericProducts(region);
+        if (products == null) {
+            segments.remove(region);
+        } else {
+            segments.put(region, new SearchSegment(region, products));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package bose.edu.junit.search;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+
+/**
+ * A product found by a search, with the region it belongs to.
+ */
+public class SearchHit {
+    private final String region;
+    private final GenericProduct product;
+
+    public SearchHit(String region, GenericProduct product) {
+        this.region = region;
+        this.product = product;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public GenericProduct getProduct() {
+        return product;
+    }
+}
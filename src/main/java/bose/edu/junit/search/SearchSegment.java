@@ -0,0 +1,238 @@
+package bose.edu.junit.search;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable inverted index over the products of one region.
+ * <p>
+ * Documents are numbered in rank order (shorter names first), so posting lists sorted by document
+ * number are sorted by rank too and a top-k query stops after the first k matches.
+ * Terms are numbered in sorted order, which turns a prefix into a contiguous range of term numbers,
+ * the same lookup a trie gives, on two flat arrays. Postings and the per document term lists
+ * (the forward index) are flattened into int arrays as well.
+ */
+final class SearchSegment {
+    static final Comparator<GenericProduct> RANK = Comparator
+            .comparingInt((GenericProduct product) -> nameOf(product).length())
+            .thenComparing(SearchSegment::nameOf);
+
+    /**
+     * Up to this many matching terms a prefix query merges posting lists, beyond it scans documents in rank order.
+     */
+    private static final int MERGE_LIMIT = 32;
+
+    private final String region;
+    private final GenericProduct[] documents;
+    private final String[] terms;
+    private final int[] postingStart;
+    private final int[] postings;
+    private final int[] forwardStart;
+    private final int[] forward;
+
+    SearchSegment(String region, List<GenericProduct> products) {
+        this.region = region;
+        this.documents = products.toArray(new GenericProduct[0]);
+        Arrays.sort(documents, RANK);
+
+        List<List<String>> documentTerms = new ArrayList<>(documents.length);
+        TreeSet<String> vocabulary = new TreeSet<>();
+        for (GenericProduct document : documents) {
+            List<String> tokens = Tokenizer.tokenize(document.getName());
+            if (document.getSubTypes() != null) {
+                for (String value : document.getSubTypes().values()) {
+                    tokens.addAll(Tokenizer.tokenize(value));
+                }
+            }
+            documentTerms.add(tokens);
+            vocabulary.addAll(tokens);
+        }
+        this.terms = vocabulary.toArray(new String[0]);
+        Map<String, Integer> termIds = new HashMap<>();
+        for (int term = 0; term < terms.length; term++) {
+            termIds.put(terms[term], term);
+        }
+
+        this.forwardStart = new int[documents.length + 1];
+        int[] documentFrequency = new int[terms.length];
+        List<int[]> forwardLists = new ArrayList<>(documents.length);
+        for (int document = 0; document < documents.length; document++) {
+            int[] ids = documentTerms.get(document).stream().mapToInt(termIds::get).sorted().distinct().toArray();
+            forwardLists.add(ids);
+            forwardStart[document + 1] = forwardStart[document] + ids.length;
+            for (int id : ids) {
+                documentFrequency[id]++;
+            }
+        }
+        this.forward = new int[forwardStart[documents.length]];
+        for (int document = 0; document < documents.length; document++) {
+            int[] ids = forwardLists.get(document);
+            System.arraycopy(ids, 0, forward, forwardStart[document], ids.length);
+        }
+
+        this.postingStart = new int[terms.length + 1];
+        for (int term = 0; term < terms.length; term++) {
+            postingStart[term + 1] = postingStart[term] + documentFrequency[term];
+        }
+        this.postings = new int[postingStart[terms.length]];
+        int[] fill = Arrays.copyOf(postingStart, terms.length);
+        for (int document = 0; document < documents.length; document++) {
+            for (int i = forwardStart[document]; i < forwardStart[document + 1]; i++) {
+                postings[fill[forward[i]]++] = document;
+            }
+        }
+    }
+
+    String getRegion() {
+        return region;
+    }
+
+    GenericProduct getDocument(int document) {
+        return documents[document];
+    }
+
+    /**
+     * Finds the best ranked documents containing all exact terms and, if a prefix is given,
+     * a term starting with the prefix.
+     *
+     * @param exact  tokens which must match exactly
+     * @param prefix token which must match as a prefix, may be null
+     * @param limit  maximum number of documents
+     * @return matching documents in rank order
+     */
+    int[] match(List<String> exact, String prefix, int limit) {
+        int[] exactTerms = new int[exact.size()];
+        for (int i = 0; i < exactTerms.length; i++) {
+            exactTerms[i] = Arrays.binarySearch(terms, exact.get(i));
+            if (exactTerms[i] < 0) {
+                return new int[0];
+            }
+        }
+        int low = -1;
+        int high = -1;
+        if (prefix != null) {
+            low = lowerBound(prefix);
+            high = prefixEnd(low, prefix);
+            if (low == high) {
+                return new int[0];
+            }
+        }
+
+        if (exactTerms.length > 0) {
+            return intersect(exactTerms, low, high, limit);
+        }
+        if (prefix == null) {
+            return new int[0];
+        }
+        return high - low <= MERGE_LIMIT ? mergePrefix(low, high, limit) : scanPrefix(low, high, limit);
+    }
+
+    private int[] intersect(int[] exactTerms, int low, int high, int limit) {
+        int driver = exactTerms[0];
+        for (int term : exactTerms) {
+            if (frequency(term) < frequency(driver)) {
+                driver = term;
+            }
+        }
+        int[] hits = new int[Math.min(limit, frequency(driver))];
+        int count = 0;
+        for (int i = postingStart[driver]; i < postingStart[driver + 1] && count < hits.length; i++) {
+            int document = postings[i];
+            boolean matches = low < 0 || hasTermIn(document, low, high);
+            for (int j = 0; j < exactTerms.length && matches; j++) {
+                matches = exactTerms[j] == driver || hasTermIn(document, exactTerms[j], exactTerms[j] + 1);
+            }
+            if (matches) {
+                hits[count++] = document;
+            }
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    private int[] mergePrefix(int low, int high, int limit) {
+        int[] cursors = Arrays.copyOfRange(postingStart, low, high);
+        int[] hits = new int[limit];
+        int count = 0;
+        int last = -1;
+        while (count < limit) {
+            int best = -1;
+            for (int term = low; term < high; term++) {
+                int cursor = cursors[term - low];
+                if (cursor < postingStart[term + 1]
+                        && (best < 0 || postings[cursor] < postings[cursors[best - low]])) {
+                    best = term;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int document = postings[cursors[best - low]++];
+            if (document != last) {
+                hits[count++] = document;
+                last = document;
+            }
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    private int[] scanPrefix(int low, int high, int limit) {
+        int[] hits = new int[limit];
+        int count = 0;
+        for (int document = 0; document < documents.length && count < limit; document++) {
+            if (hasTermIn(document, low, high)) {
+                hits[count++] = document;
+            }
+        }
+        return Arrays.copyOf(hits, count);
+    }
+
+    /**
+     * Checks the forward index of a document for a term number in [low, high).
+     */
+    private boolean hasTermIn(int document, int low, int high) {
+        int from = forwardStart[document];
+        int to = forwardStart[document + 1];
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (forward[mid] < low) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from < forwardStart[document + 1] && forward[from] < high;
+    }
+
+    private int frequency(int term) {
+        return postingStart[term + 1] - postingStart[term];
+    }
+
+    private int lowerBound(String prefix) {
+        int index = Arrays.binarySearch(terms, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private int prefixEnd(int from, String prefix) {
+        int to = terms.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (terms[mid].startsWith(prefix)) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private static String nameOf(GenericProduct product) {
+        return product.getName() == null ? "" : product.getName();
+    }
+}
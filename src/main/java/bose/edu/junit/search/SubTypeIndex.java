@@ -0,0 +1,103 @@
+package bose.edu.junit.search;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable secondary index of one region, from sub type (key, value) to the positions of the
+ * products carrying it, stored as compressed bitmaps.
+ */
+public final class SubTypeIndex {
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final List<GenericProduct> products;
+    private final Map<String, Map<String, RoaringBitmap>> bitmaps;
+
+    private SubTypeIndex(List<GenericProduct> products, Map<String, Map<String, RoaringBitmap>> bitmaps) {
+        this.products = products;
+        this.bitmaps = bitmaps;
+    }
+
+    public SubTypeIndex(List<GenericProduct> products) {
+        this.products = products;
+        this.bitmaps = new HashMap<>();
+        for (int id = 0; id < products.size(); id++) {
+            Map<String, String> subTypes = products.get(id).getSubTypes();
+            if (subTypes == null) {
+                continue;
+            }
+            for (Map.Entry<String, String> entry : subTypes.entrySet()) {
+                bitmaps.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .computeIfAbsent(entry.getValue(), v -> new RoaringBitmap())
+                        .add(id);
+            }
+        }
+        bitmaps.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+    }
+
+    /**
+     * Binds the bitmaps of this index to a newer product list of the region, which is possible when every
+     * position carries the same sub types as before, e.g. after a change of prices only.
+     *
+     * @param changed products of the region after a change
+     * @return an index over the changed products sharing these bitmaps, or null if the sub types changed
+     */
+    public SubTypeIndex rebind(List<GenericProduct> changed) {
+        if (changed.size() != products.size()) {
+            return null;
+        }
+        for (int id = 0; id < changed.size(); id++) {
+            if (!Objects.equals(changed.get(id).getSubTypes(), products.get(id).getSubTypes())) {
+                return null;
+            }
+        }
+        return new SubTypeIndex(changed, bitmaps);
+    }
+
+    /**
+     * Returns the products matching a query, in catalog order.
+     *
+     * @param query sub type filter
+     * @return matching products
+     */
+    public List<GenericProduct> select(AttributeQuery query) {
+        RoaringBitmap ids = query.evaluate(this);
+        List<GenericProduct> selected = new ArrayList<>(ids.getCardinality());
+        ids.forEach((int id) -> selected.add(products.get(id)));
+        return selected;
+    }
+
+    /**
+     * Counts the products matching a query without materializing them.
+     *
+     * @param query sub type filter
+     * @return number of matching products
+     */
+    public int count(AttributeQuery query) {
+        return query.evaluate(this).getCardinality();
+    }
+
+    /**
+     * Returns the values of an attribute present in this region.
+     *
+     * @param key attribute key
+     * @return attribute values
+     */
+    public Set<String> values(String key) {
+        return Collections.unmodifiableSet(bitmaps.getOrDefault(key, Collections.emptyMap()).keySet());
+    }
+
+    RoaringBitmap lookup(String key, String value) {
+        Map<String, RoaringBitmap> values = bitmaps.get(key);
+        RoaringBitmap ids = values == null ? null : values.get(value);
+        return ids == null ? EMPTY : ids;
+    }
+}
@@ -0,0 +1,127 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a {@link Response}. The field order is the schema:
+ *
+ * <pre>
+ * response := SCHEMA_VERSION:byte status:string message:string productCount:varint product* nextPageToken:string
+ * product  := name:string price:string
+ * string   := (length + 1):varint utf8:byte[length]     (0 is null)
+ * </pre>
+ * productCount is stored plus one as well, with 0 meaning no product list.
+ */
+public class BinaryResponseCodec implements ResponseEncoder {
+    static final int SCHEMA_VERSION = 1;
+
+    @Override
+    public void encode(Response response, OutputStream out) throws IOException {
+        out.write(SCHEMA_VERSION);
+        writeString(out, response.getStatus());
+        writeString(out, response.getMessage());
+        Iterable<Product> products = response.products();
+        if (products == null) {
+            writeVarint(out, 0);
+        } else {
+            writeVarint(out, response.getProductCount() + 1);
+            for (Product product : products) {
+                writeString(out, product.getName());
+                writeString(out, product.getPrice());
+            }
+        }
+        writeString(out, response.getNextPageToken());
+    }
+
+    /**
+     * Decodes a response written by {@link #encode(Response, OutputStream)}.
+     *
+     * @param bytes encoded response
+     * @return decoded response
+     * @throws IllegalArgumentException if the bytes are not a response of a known schema version
+     */
+    public Response decode(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        int version = reader.readByte();
+        if (version != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported schema version " + version);
+        }
+        String status = reader.readString();
+        String message = reader.readString();
+        int count = reader.readVarint();
+        List<Product> products = null;
+        if (count > 0) {
+            products = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                products.add(new Product(reader.readString(), reader.readString()));
+            }
+        }
+        return new Response(status, message, products, reader.readString());
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, utf8.length + 1);
+        out.write(utf8);
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated response at " + position);
+            }
+            return bytes[position++] & 0xff;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + position);
+        }
+
+        private String readString() {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated response at " + position);
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package bose.edu.junit.serialization;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Striped pool of {@link PooledBuffer}s shared by the serialization path.
+ * Each thread starts probing at its own slot, so concurrent threads rarely touch the same slot,
+ * and taking or returning a buffer is a single atomic exchange without allocation.
+ * Buffers which grew beyond the retained capacity are dropped on release instead of being pooled,
+ * so a single large response does not pin its memory.
+ */
+public class BufferPool {
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    private static final int PROBES = 2;
+
+    private final int maxRetainedCapacity;
+    private final AtomicReferenceArray<PooledBuffer> slots;
+    private final int mask;
+
+    /**
+     * @param maxPooled           maximum number of idle buffers kept, rounded up to a power of two
+     * @param maxRetainedCapacity maximum capacity, in bytes, of a buffer kept for reuse
+     */
+    public BufferPool(int maxPooled, int maxRetainedCapacity) {
+        int slotCount = maxPooled <= 1 ? 1 : Integer.highestOneBit(maxPooled - 1) << 1;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.mask = slotCount - 1;
+    }
+
+    public PooledBuffer acquire() {
+        int start = stripe();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) != null) {
+                PooledBuffer buffer = slots.getAndSet(slot, null);
+                if (buffer != null) {
+                    return buffer;
+                }
+            }
+        }
+        return new PooledBuffer(Math.min(INITIAL_CAPACITY, maxRetainedCapacity));
+    }
+
+    public void release(PooledBuffer buffer) {
+        if (buffer.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        buffer.reset();
+        int start = stripe();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of idle buffers.
+     *
+     * @return idle buffer count
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            size += slots.get(i) == null ? 0 : 1;
+        }
+        return size;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) * 0x9E3779B9;
+    }
+}
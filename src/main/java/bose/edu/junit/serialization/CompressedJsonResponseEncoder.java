@@ -0,0 +1,114 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * JSON compressed as gzip (RFC 1952) or as zlib deflate (RFC 1950), matching the HTTP content codings.
+ * Deflaters hold native memory and are expensive to create, so they are pooled together with their
+ * stream and checksum and reset between uses; once the pool is warm no deflater, stream or checksum is
+ * created per call.
+ */
+public class CompressedJsonResponseEncoder implements ResponseEncoder {
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int MAX_POOLED_DEFLATERS = 16;
+
+    private final boolean gzip;
+    private final int level;
+    private final JsonResponseEncoder json = new JsonResponseEncoder();
+    private final Queue<Compressor> compressors = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param gzip  true for gzip framing, false for zlib framing
+     * @param level deflate compression level
+     */
+    public CompressedJsonResponseEncoder(boolean gzip, int level) {
+        this.gzip = gzip;
+        this.level = level;
+    }
+
+    @Override
+    public void encode(Response response, OutputStream out) throws IOException {
+        Compressor compressor = compressors.poll();
+        if (compressor == null) {
+            compressor = new Compressor(new Deflater(level, gzip));
+        }
+        try {
+            compressor.target(out);
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+            json.encode(response, compressor);
+            compressor.finish();
+            if (gzip) {
+                writeIntLE(out, (int) compressor.crc.getValue());
+                writeIntLE(out, (int) compressor.deflater.getBytesRead());
+            }
+        } finally {
+            compressor.reset();
+            if (compressors.size() < MAX_POOLED_DEFLATERS) {
+                compressors.offer(compressor);
+            } else {
+                compressor.deflater.end();
+            }
+        }
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    /**
+     * Deflating stream which is pointed at a new target for every response and checksums what it deflates.
+     */
+    private static final class Compressor extends DeflaterOutputStream {
+        private static final OutputStream DETACHED = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Compressor is not attached to a target");
+            }
+        };
+
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] single = new byte[1];
+
+        private Compressor(Deflater deflater) {
+            super(DETACHED, deflater);
+            this.deflater = deflater;
+        }
+
+        private void target(OutputStream target) {
+            out = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            /* DeflaterOutputStream allocates a one byte array per call */
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            super.write(b, off, len);
+        }
+
+        private void reset() {
+            out = DETACHED;
+            deflater.reset();
+            crc.reset();
+        }
+    }
+}
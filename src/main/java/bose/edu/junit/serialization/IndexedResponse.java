@@ -0,0 +1,493 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.catalog.Prices;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of a JSON {@link Response}, such as the output of the Controller.
+ * Parsing scans the UTF-8 bytes once and only records where the string values start and end;
+ * strings are decoded when they are accessed, and {@link ProductCursor} walks the products
+ * without creating an object per product. Unknown fields are skipped.
+ */
+public final class IndexedResponse {
+    private static final int NULL = -1;
+    /**
+     * Per product: name start, name end, price start, price end.
+     */
+    private static final int SLOTS = 4;
+
+    private final byte[] json;
+    private final int[] status = {NULL, NULL};
+    private final int[] message = {NULL, NULL};
+    private final int[] nextPageToken = {NULL, NULL};
+    private int[] products = new int[SLOTS * 8];
+    private int productCount = NULL;
+
+    private IndexedResponse(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Indexes a UTF-8 JSON response. The array is referenced, not copied, and must not be modified.
+     *
+     * @param json UTF-8 JSON
+     * @return the indexed response
+     * @throws IllegalArgumentException if the bytes are not a JSON object
+     */
+    public static IndexedResponse parse(byte[] json) {
+        IndexedResponse response = new IndexedResponse(json);
+        new Scanner(response).scanResponse();
+        return response;
+    }
+
+    public static IndexedResponse parse(String json) {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getStatus() {
+        return decode(status[0], status[1]);
+    }
+
+    public String getMessage() {
+        return decode(message[0], message[1]);
+    }
+
+    public String getNextPageToken() {
+        return decode(nextPageToken[0], nextPageToken[1]);
+    }
+
+    /**
+     * Compares the status without decoding it.
+     *
+     * @param expected expected status
+     * @return true if the status equals the expected one
+     */
+    public boolean hasStatus(String expected) {
+        return equals(status[0], status[1], expected);
+    }
+
+    /**
+     * @return true if the response has a product list, possibly empty
+     */
+    public boolean hasProducts() {
+        return productCount != NULL;
+    }
+
+    /**
+     * @return number of products, 0 if there is no product list
+     */
+    public int getProductCount() {
+        return Math.max(productCount, 0);
+    }
+
+    /**
+     * Returns a cursor positioned before the first product. A cursor is one reusable object for all products.
+     *
+     * @return product cursor
+     */
+    public ProductCursor products() {
+        return new ProductCursor();
+    }
+
+    /**
+     * Decodes everything into a regular response.
+     *
+     * @return materialized response
+     */
+    public Response toResponse() {
+        List<Product> list = null;
+        if (hasProducts()) {
+            list = new ArrayList<>(productCount);
+            for (ProductCursor cursor = products(); cursor.next(); ) {
+                list.add(cursor.toProduct());
+            }
+        }
+        return new Response(getStatus(), getMessage(), list, getNextPageToken());
+    }
+
+    /**
+     * Forward-only cursor over the products of an {@link IndexedResponse}.
+     */
+    public final class ProductCursor {
+        private int index = -1;
+
+        private ProductCursor() {
+        }
+
+        /**
+         * Moves to the next product.
+         *
+         * @return false if there are no more products
+         */
+        public boolean next() {
+            if (index + 1 >= getProductCount()) {
+                index = getProductCount();
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        public String name() {
+            return decode(slot(0), slot(1));
+        }
+
+        public String price() {
+            return decode(slot(2), slot(3));
+        }
+
+        /**
+         * Compares the name without decoding it.
+         *
+         * @param expected expected name, may be null
+         * @return true if the name equals the expected one
+         */
+        public boolean nameEquals(String expected) {
+            return IndexedResponse.this.equals(slot(0), slot(1), expected);
+        }
+
+        /**
+         * Parses the price like {@link Prices#toMinorUnits(String)}, directly from the JSON bytes.
+         *
+         * @return price in minor units, or {@link Prices#UNPRICED}
+         */
+        public long priceMinorUnits() {
+            int start = slot(2);
+            if (start == NULL || hasEscapes(start, slot(3))) {
+                return Prices.toMinorUnits(price());
+            }
+            return Prices.toMinorUnits(json, start, slot(3));
+        }
+
+        public Product toProduct() {
+            return new Product(name(), price());
+        }
+
+        private int slot(int slot) {
+            if (index < 0 || index >= getProductCount()) {
+                throw new IllegalStateException("Cursor is not on a product");
+            }
+            return products[index * SLOTS + slot];
+        }
+    }
+
+    private String decode(int start, int end) {
+        if (start == NULL) {
+            return null;
+        }
+        if (!hasEscapes(start, end)) {
+            return new String(json, start, end - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        int from = start;
+        for (int i = start; i < end; i++) {
+            if (json[i] != '\\') {
+                continue;
+            }
+            builder.append(new String(json, from, i - from, StandardCharsets.UTF_8));
+            char escaped = (char) json[++i];
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(new String(json, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+            from = i + 1;
+        }
+        return builder.append(new String(json, from, end - from, StandardCharsets.UTF_8)).toString();
+    }
+
+    private boolean hasEscapes(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (json[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean equals(int start, int end, String expected) {
+        if (start == NULL || expected == null) {
+            return start == NULL && expected == null;
+        }
+        for (int i = start; i < end; i++) {
+            if (json[i] < 0 || json[i] == '\\') {
+                /* escapes and multi-byte characters are compared decoded */
+                return expected.equals(decode(start, end));
+            }
+        }
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (json[start + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Single pass over the JSON text, recording string offsets into the response.
+     */
+    private static final class Scanner {
+        private final IndexedResponse response;
+        private final byte[] json;
+        private int position;
+        /**
+         * Offset of the first character of the last scanned string.
+         */
+        private int stringStart;
+
+        private Scanner(IndexedResponse response) {
+            this.response = response;
+            this.json = response.json;
+        }
+
+        private void scanResponse() {
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    int nameEnd = scanString();
+                    int nameStart = stringStart;
+                    expect(':');
+                    if (isName(nameStart, nameEnd, "status")) {
+                        scanNullableString(response.status);
+                    } else if (isName(nameStart, nameEnd, "message")) {
+                        scanNullableString(response.message);
+                    } else if (isName(nameStart, nameEnd, "nextPageToken")) {
+                        scanNullableString(response.nextPageToken);
+                    } else if (isName(nameStart, nameEnd, "products")) {
+                        scanProducts();
+                    } else {
+                        skipValue();
+                    }
+                } while (tryConsume(','));
+                expect('}');
+            }
+            skipWhitespace();
+            if (position != json.length) {
+                throw malformed();
+            }
+        }
+
+        private void scanProducts() {
+            if (tryLiteral("null")) {
+                return;
+            }
+            expect('[');
+            int count = 0;
+            if (!tryConsume(']')) {
+                do {
+                    if (response.products.length < (count + 1) * SLOTS) {
+                        response.products = Arrays.copyOf(response.products, response.products.length * 2);
+                    }
+                    scanProduct(count * SLOTS);
+                    count++;
+                } while (tryConsume(','));
+                expect(']');
+            }
+            response.productCount = count;
+        }
+
+        private void scanProduct(int base) {
+            int[] slots = response.products;
+            Arrays.fill(slots, base, base + SLOTS, NULL);
+            expect('{');
+            if (tryConsume('}')) {
+                return;
+            }
+            do {
+                int nameEnd = scanString();
+                int nameStart = stringStart;
+                expect(':');
+                if (isName(nameStart, nameEnd, "name")) {
+                    scanNullableString(slots, base);
+                } else if (isName(nameStart, nameEnd, "price")) {
+                    scanNullableString(slots, base + 2);
+                } else {
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+
+        private void scanNullableString(int[] range) {
+            scanNullableString(range, 0);
+        }
+
+        /**
+         * Records the start and end of a string value, or NULL for a null literal, at range[at] and range[at + 1].
+         */
+        private void scanNullableString(int[] range, int at) {
+            if (tryLiteral("null")) {
+                range[at] = NULL;
+                range[at + 1] = NULL;
+                return;
+            }
+            range[at + 1] = scanString();
+            range[at] = stringStart;
+        }
+
+        /**
+         * Scans a string starting at the current position.
+         *
+         * @return offset of the closing quote
+         */
+        private int scanString() {
+            expect('"');
+            stringStart = position;
+            while (position < json.length) {
+                byte b = json[position++];
+                if (b == '"') {
+                    return position - 1;
+                }
+                if (b == '\\') {
+                    scanEscape();
+                }
+            }
+            throw malformed();
+        }
+
+        /**
+         * Checks the escape following a backslash, so that decoding a string never fails later on.
+         */
+        private void scanEscape() {
+            if (position >= json.length) {
+                throw malformed();
+            }
+            switch (json[position++]) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    return;
+                case 'u':
+                    for (int end = position + 4; position < end; position++) {
+                        if (position >= json.length || Character.digit(json[position], 16) < 0) {
+                            throw malformed();
+                        }
+                    }
+                    return;
+                default:
+                    position--;
+                    throw malformed();
+            }
+        }
+
+        private void skipValue() {
+            skipWhitespace();
+            if (position >= json.length) {
+                throw malformed();
+            }
+            switch (json[position]) {
+                case '"':
+                    scanString();
+                    return;
+                case '{':
+                case '[':
+                    skipNested();
+                    return;
+                default:
+                    while (position < json.length && json[position] != ',' && json[position] != '}'
+                            && json[position] != ']') {
+                        position++;
+                    }
+            }
+        }
+
+        private void skipNested() {
+            int depth = 0;
+            do {
+                if (position >= json.length) {
+                    throw malformed();
+                }
+                byte b = json[position];
+                if (b == '"') {
+                    scanString();
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        }
+
+        private boolean isName(int start, int end, String name) {
+            if (end - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (json[start + i] != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean tryLiteral(String literal) {
+            skipWhitespace();
+            if (json.length - position < literal.length() || !isName(position, position + literal.length(), literal)) {
+                return false;
+            }
+            position += literal.length();
+            return true;
+        }
+
+        private boolean tryConsume(char c) {
+            skipWhitespace();
+            if (position < json.length && json[position] == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!tryConsume(c)) {
+                throw malformed();
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length
+                    && (json[position] == ' ' || json[position] == '\n' || json[position] == '\r' || json[position] == '\t')) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Malformed response JSON at " + position);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * UTF-8 JSON, identical to the text returned by the controller.
+ */
+public class JsonResponseEncoder implements ResponseEncoder {
+    private final JsonSerializer serializer;
+
+    public JsonResponseEncoder() {
+        this(JsonSerializer.getDefault());
+    }
+
+    public JsonResponseEncoder(JsonSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public void encode(Response response, OutputStream out) throws IOException {
+        serializer.writeUtf8(response, out);
+    }
+}
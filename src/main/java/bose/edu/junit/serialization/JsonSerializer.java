@@ -0,0 +1,100 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Response;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Serializes responses to JSON through pooled buffers instead of allocating a StringWriter, its growing
+ * StringBuilder and a byte copy on every call.
+ * The pools are bounded and buffers which grew beyond the retained size are dropped after use, so the
+ * memory kept does not grow with the number of threads or with the largest response ever served.
+ * Each thread keeps only its {@link Utf8Writer}, whose scratch array has a fixed size.
+ */
+public class JsonSerializer {
+    private static final int INITIAL_CHARS = 1024;
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+    private static final int MAX_POOLED_BUILDERS = 16;
+    private static final JsonSerializer DEFAULT = new JsonSerializer(new BufferPool(64, 1024 * 1024));
+
+    private final Gson gson = new Gson();
+    private final BufferPool buffers;
+    private final Queue<StringBuilder> builders = new ArrayBlockingQueue<>(MAX_POOLED_BUILDERS);
+    private final ThreadLocal<Utf8Writer> writers = ThreadLocal.withInitial(Utf8Writer::new);
+
+    public JsonSerializer(BufferPool buffers) {
+        this.buffers = buffers;
+    }
+
+    public static JsonSerializer getDefault() {
+        return DEFAULT;
+    }
+
+    public BufferPool getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * Returns the number of idle string builders.
+     *
+     * @return idle builder count
+     */
+    int pooledBuilders() {
+        return builders.size();
+    }
+
+    public String toJson(Response response) {
+        StringBuilder builder = builders.poll();
+        if (builder == null) {
+            builder = new StringBuilder(INITIAL_CHARS);
+        }
+        try {
+            gson.toJson(response, Response.class, builder);
+            return builder.toString();
+        } finally {
+            if (builder.capacity() <= MAX_RETAINED_CHARS) {
+                builder.setLength(0);
+                builders.offer(builder);
+            }
+        }
+    }
+
+    /**
+     * Serializes to UTF-8 JSON, encoded directly into a pooled buffer.
+     *
+     * @param response response to serialize
+     * @return UTF-8 JSON
+     */
+    public byte[] toUtf8(Response response) {
+        PooledBuffer buffer = buffers.acquire();
+        try {
+            writeUtf8(response, buffer);
+            return buffer.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Serializes UTF-8 JSON into a stream.
+     *
+     * @param response response to serialize
+     * @param out      target stream, not closed
+     * @throws IOException if the target fails
+     */
+    public void writeUtf8(Response response, OutputStream out) throws IOException {
+        Utf8Writer writer = writers.get().target(out);
+        try {
+            gson.toJson(response, Response.class, writer);
+        } finally {
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package bose.edu.junit.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer handed out by a {@link BufferPool}. Not thread safe.
+ */
+public final class PooledBuffer extends OutputStream {
+    private byte[] bytes;
+    private int size;
+
+    PooledBuffer(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(size + len);
+        System.arraycopy(b, off, bytes, size, len);
+        size += len;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Copies the content to another stream, without an intermediate array.
+     *
+     * @param out target stream
+     * @throws IOException if the target fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    /**
+     * Copies the content into a byte buffer.
+     *
+     * @param target buffer with at least {@link #size()} bytes remaining
+     */
+    public void writeTo(ByteBuffer target) {
+        target.put(bytes, 0, size);
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+        }
+    }
+}
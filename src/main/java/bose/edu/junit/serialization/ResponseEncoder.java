@@ -0,0 +1,13 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a {@link Response} in one wire format. Implementations are thread safe.
+ */
+public interface ResponseEncoder {
+    void encode(Response response, OutputStream out) throws IOException;
+}
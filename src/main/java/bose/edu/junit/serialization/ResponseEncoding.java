@@ -0,0 +1,35 @@
+package bose.edu.junit.serialization;
+
+import java.util.zip.Deflater;
+
+/**
+ * Wire formats a response can be requested in.
+ */
+public enum ResponseEncoding {
+    JSON("application/json", "identity", new JsonResponseEncoder()),
+    GZIP_JSON("application/json", "gzip", new CompressedJsonResponseEncoder(true, Deflater.BEST_SPEED)),
+    DEFLATE_JSON("application/json", "deflate", new CompressedJsonResponseEncoder(false, Deflater.BEST_SPEED)),
+    BINARY("application/x-product-response", "identity", new BinaryResponseCodec());
+
+    private final String contentType;
+    private final String contentEncoding;
+    private final ResponseEncoder encoder;
+
+    ResponseEncoding(String contentType, String contentEncoding, ResponseEncoder encoder) {
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.encoder = encoder;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public ResponseEncoder getEncoder() {
+        return encoder;
+    }
+}
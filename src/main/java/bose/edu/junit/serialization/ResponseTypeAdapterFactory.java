@@ -0,0 +1,73 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link Response} and its subclasses by streaming {@link Response#products()}, so lazy
+ * responses are serialized straight from the catalog without an intermediate product list.
+ * The output is the same as Gson's reflective serialization; reading is left to the reflective adapter.
+ * It is attached to the response classes with {@link com.google.gson.annotations.JsonAdapter}, so any
+ * Gson instance, including a plain {@code new Gson()}, writes the products of a lazy response.
+ */
+public final class ResponseTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Response.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        TypeAdapter<Response> delegate = (TypeAdapter<Response>) gson.getDelegateAdapter(this, type);
+        return (TypeAdapter<T>) new ResponseAdapter(gson, delegate);
+    }
+
+    private static final class ResponseAdapter extends TypeAdapter<Response> {
+        private final TypeAdapter<Response> delegate;
+        private final TypeAdapter<Product> products;
+
+        private ResponseAdapter(Gson gson, TypeAdapter<Response> delegate) {
+            this.delegate = delegate;
+            this.products = gson.getAdapter(Product.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, Response response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeString(out, "status", response.getStatus());
+            writeString(out, "message", response.getMessage());
+            Iterable<Product> values = response.products();
+            if (values != null) {
+                out.name("products").beginArray();
+                for (Product product : values) {
+                    products.write(out, product);
+                }
+                out.endArray();
+            }
+            writeString(out, "nextPageToken", response.getNextPageToken());
+            out.endObject();
+        }
+
+        @Override
+        public Response read(JsonReader in) throws IOException {
+            return delegate.read(in);
+        }
+
+        private static void writeString(JsonWriter out, String name, String value) throws IOException {
+            if (value != null) {
+                out.name(name).value(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package bose.edu.junit.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer which UTF-8 encodes characters straight into an output stream through a small scratch array.
+ * Unlike an {@link java.io.OutputStreamWriter} it can be retargeted and reused, so a thread keeps one.
+ * Unpaired surrogates are written as '?', like {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+final class Utf8Writer extends Writer {
+    private static final int NO_SURROGATE = -1;
+
+    private final byte[] scratch = new byte[1024];
+    private int count;
+    private int highSurrogate = NO_SURROGATE;
+    private OutputStream out;
+
+    Utf8Writer target(OutputStream out) {
+        this.out = out;
+        this.count = 0;
+        this.highSurrogate = NO_SURROGATE;
+        return this;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Writes everything pending to the target and detaches from it.
+     *
+     * @throws IOException if the target fails
+     */
+    void finish() throws IOException {
+        if (highSurrogate != NO_SURROGATE) {
+            highSurrogate = NO_SURROGATE;
+            put('?');
+        }
+        drain();
+        out = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void encode(char c) throws IOException {
+        if (count > scratch.length - 4) {
+            drain();
+        }
+        if (highSurrogate != NO_SURROGATE) {
+            int high = highSurrogate;
+            highSurrogate = NO_SURROGATE;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint((char) high, c);
+                scratch[count++] = (byte) (0xf0 | (codePoint >> 18));
+                scratch[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                scratch[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                scratch[count++] = (byte) (0x80 | (codePoint & 0x3f));
+                return;
+            }
+            scratch[count++] = '?';
+        }
+        if (c < 0x80) {
+            scratch[count++] = (byte) c;
+        } else if (c < 0x800) {
+            scratch[count++] = (byte) (0xc0 | (c >> 6));
+            scratch[count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            scratch[count++] = '?';
+        } else {
+            scratch[count++] = (byte) (0xe0 | (c >> 12));
+            scratch[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            scratch[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (count == scratch.length) {
+            drain();
+        }
+        scratch[count++] = (byte) c;
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(scratch, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package bose.edu.junit.util;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A utility class which holds a related getter and setter method.
+ * This class supports {@link ObjectCopier} and the {@code PojoTester} of the tests.
+ */
+class GetterSetterPair {
+  /**
+   * The get method.
+   */
+  private Method getter;
+
+  /**
+   * The set method.
+   */
+  private Method setter;
+
+  /**
+   * Returns the get method.
+   *
+   * @return The get method.
+   */
+  Method getGetter() {
+    return getter;
+  }
+
+  /**
+   * Sets the get Method.
+   *
+   * @param getter The get Method.
+   */
+  void setGetter(Method getter) {
+    this.getter = getter;
+  }
+
+  /**
+   * Returns the set method.
+   *
+   * @return The set method.
+   */
+  Method getSetter() {
+    return setter;
+  }
+
+  /**
+   * Sets the set Method.
+   *
+   * @param setter The set Method.
+   */
+  void setSetter(Method setter) {
+    this.setter = setter;
+  }
+
+  /**
+   * Returns if this has a getter and setting method set.
+   *
+   * @return If this has a getter and setting method set.
+   */
+  boolean hasGetterAndSetter() {
+    return this.getter != null && this.setter != null;
+  }
+
+  /**
+   * Returns the getter and setter pairs of the public methods of a class, by property name.
+   *
+   * @param clazz             class to scan
+   * @param ignoredGetMethods methods to leave out (e.g., "getClass")
+   * @return property name (e.g., "Name" for "getName") and its getter setter pair, sorted by name
+   */
+  static SortedMap<String, GetterSetterPair> scan(Class<?> clazz, Set<String> ignoredGetMethods) {
+    /* Sort items for consistent test runs. */
+    final SortedMap<String, GetterSetterPair> getterSetterMapping = new TreeMap<>();
+
+    for (final Method method : clazz.getMethods()) {
+      final String methodName = method.getName();
+
+      if (ignoredGetMethods.contains(methodName)) {
+        continue;
+      }
+
+      if (methodName.startsWith("get") && method.getParameters().length == 0) {
+        /* Found the get method. */
+        getterSetterMapping.computeIfAbsent(methodName.substring("get".length()), k -> new GetterSetterPair())
+            .setGetter(method);
+      } else if (methodName.startsWith("set") && method.getParameters().length == 1) {
+        /* Found the set method. */
+        getterSetterMapping.computeIfAbsent(methodName.substring("set".length()), k -> new GetterSetterPair())
+            .setSetter(method);
+      } else if (methodName.startsWith("is") && method.getParameters().length == 0) {
+        /* Found the is method, which really is a get method. */
+        getterSetterMapping.computeIfAbsent(methodName.substring("is".length()), k -> new GetterSetterPair())
+            .setGetter(method);
+      }
+    }
+    return getterSetterMapping;
+  }
+}
+
@@ -0,0 +1,711 @@
+package bose.edu.junit.util;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copies object graphs, e.g. a {@code Response} or a list of {@code GenericProduct}s before they are
+ * handed to another thread.
+ * <p>
+ * The copier of a class is built once, from the {@link GetterSetterPair}s of the class, and cached:
+ * the fields of the class and its superclasses are read and written through method handles, composed
+ * into one handle per class which the JVM compiles like hand written code. Fields backing a property
+ * are deep copied; other fields, such as the transient source of a lazy response, are internal state
+ * and shared with the copy. Instances are created through the constructor taking the non-transient fields
+ * in declaration order, called with the values of the source, or else through the no-argument constructor;
+ * classes with neither are rejected.
+ * <p>
+ * Values of immutable types are shared instead of copied: strings, boxed primitives, {@link BigDecimal},
+ * enums, {@code java.time} values, and classes whose fields are all final and immutable, such as
+ * {@code Product}. Collections and maps are read once into an array, which is checked, deep copied in
+ * place and then added to the copy, so a list of immutable values costs two array copies.
+ * Collections and maps are copied into the same class for the common JDK implementations, with their
+ * comparator, and unmodifiable views stay unmodifiable; empty, singleton and Guava immutable collections
+ * of immutable values are shared. Other lists, sets and maps become {@link ArrayList}s,
+ * {@link LinkedHashSet}s (or {@link TreeSet}s) and {@link LinkedHashMap}s (or {@link TreeMap}s), so a
+ * class whose copied fields are declared as another collection type, such as a {@code Queue} or a
+ * {@code ConcurrentMap}, is rejected when its copier is built.
+ * <p>
+ * Graphs must be trees: a value referenced twice is copied twice, and cycles are not supported.
+ * Copied final fields are written after construction, so publish copies to other threads safely,
+ * e.g. through an executor or a concurrent collection.
+ */
+public final class ObjectCopier {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType FIELD_COPY = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodHandle DEEP_COPY;
+    private static final MethodType INSTANTIATE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Byte.class, Short.class, Character.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class, Locale.class,
+            Currency.class, URI.class, Class.class));
+
+    /**
+     * Containers which cannot change and may be shared if their values are immutable.
+     */
+    private static final Set<Class<?>> IMMUTABLE_CONTAINERS = new HashSet<>(Arrays.asList(
+            Collections.emptyList().getClass(), Collections.emptySet().getClass(),
+            Collections.emptyMap().getClass(), Collections.singletonList(null).getClass(),
+            Collections.singleton(null).getClass(), Collections.singletonMap(null, null).getClass()));
+
+    /**
+     * Collection types a copy is always an instance of, whatever the class of the source.
+     */
+    private static final Set<Class<?>> COPIED_CONTAINERS = new HashSet<>(Arrays.asList(
+            Iterable.class, Collection.class, List.class, Set.class, SortedSet.class, Map.class, SortedMap.class,
+            ArrayList.class, LinkedList.class, HashSet.class, LinkedHashSet.class, TreeSet.class, ArrayDeque.class,
+            CopyOnWriteArrayList.class, CopyOnWriteArraySet.class, EnumSet.class, HashMap.class,
+            LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class, EnumMap.class));
+
+    private static final ThreadLocal<Set<Class<?>>> INSPECTING = ThreadLocal.withInitial(HashSet::new);
+
+    private static final ClassValue<Boolean> IMMUTABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return inspectImmutable(type);
+        }
+    };
+
+    private static final ClassValue<Copier> COPIERS = new ClassValue<Copier>() {
+        @Override
+        protected Copier computeValue(Class<?> type) {
+            return createCopier(type);
+        }
+    };
+
+    static {
+        try {
+            DEEP_COPY = LOOKUP.findStatic(ObjectCopier.class, "deepCopy",
+                    MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private ObjectCopier() {
+    }
+
+    /**
+     * Returns a deep copy of a value; immutable values are returned as they are.
+     *
+     * @param source value to copy, may be null
+     * @param <T>    type of the value
+     * @return the copy
+     * @throws IllegalArgumentException if the graph contains a JDK type which can neither be shared nor cloned
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T deepCopy(T source) {
+        if (source == null) {
+            return null;
+        }
+        Copier copier = COPIERS.get(source.getClass());
+        return copier.immutable ? source : (T) copier.copy(source, true);
+    }
+
+    /**
+     * Returns a new instance of the class of a value whose fields refer to the same values.
+     * Collections and arrays are copied with the same elements.
+     *
+     * @param source value to copy
+     * @param <T>    type of the value
+     * @return the copy, or the value itself if it is a JDK immutable value such as a string
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T shallowCopy(T source) {
+        return (T) COPIERS.get(source.getClass()).copy(source, false);
+    }
+
+    /**
+     * Sets every field of a target to the value of the field in the source.
+     *
+     * @param source object to copy from
+     * @param target object of the same class to copy into
+     * @throws IllegalArgumentException if the objects are not of the same class
+     */
+    public static void copyProperties(Object source, Object target) {
+        if (source.getClass() != target.getClass()) {
+            throw new IllegalArgumentException(String.format("Cannot copy [%s] into [%s]",
+                    source.getClass().getName(), target.getClass().getName()));
+        }
+        Copier copier = COPIERS.get(source.getClass());
+        if (!(copier instanceof BeanCopier)) {
+            throw new IllegalArgumentException("Not a bean: " + source.getClass().getName());
+        }
+        ((BeanCopier) copier).copyFields(source, target, false);
+    }
+
+    /**
+     * Returns whether instances of a class are immutable, so copies may share them.
+     *
+     * @param type runtime class of a value
+     * @return true for immutable types
+     */
+    static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE.get(type);
+    }
+
+    /**
+     * Returns whether every value of a field of the declared type is immutable, whatever its runtime class.
+     */
+    private static boolean isImmutableField(Class<?> declared) {
+        if (declared.isPrimitive() || IMMUTABLE_TYPES.contains(declared) || declared.isEnum()) {
+            return true;
+        }
+        if (!Modifier.isFinal(declared.getModifiers()) || INSPECTING.get().contains(declared)) {
+            /* a subclass may add state; a class reached again while inspecting it counts as mutable */
+            return false;
+        }
+        return IMMUTABLE.get(declared);
+    }
+
+    private static boolean inspectImmutable(Class<?> type) {
+        if (type.isPrimitive() || IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type)
+                || (type.getName().startsWith("java.time.") && !type.isInterface())) {
+            return true;
+        }
+        if (type.isArray() || type.isInterface() || isJdkType(type)) {
+            return false;
+        }
+        Set<Class<?>> inspecting = INSPECTING.get();
+        inspecting.add(type);
+        try {
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers)
+                            && (!Modifier.isFinal(modifiers) || !isImmutableField(field.getType()))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            inspecting.remove(type);
+        }
+    }
+
+    /**
+     * Returns whether deep copies of every value of a field of the declared type can be stored in the field.
+     */
+    private static boolean isCopyableField(Class<?> declared) {
+        return !(Collection.class.isAssignableFrom(declared) || Map.class.isAssignableFrom(declared))
+                || COPIED_CONTAINERS.contains(declared);
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+
+    /**
+     * Returns whether every value is immutable; runs of values of one class are checked once.
+     */
+    private static boolean allImmutable(Object[] values) {
+        Class<?> checked = null;
+        for (Object value : values) {
+            if (value != null && value.getClass() != checked) {
+                if (!IMMUTABLE.get(value.getClass())) {
+                    return false;
+                }
+                checked = value.getClass();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces every value by its deep copy.
+     */
+    private static void deepCopyAll(Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = deepCopy(values[i]);
+        }
+    }
+
+    private static Collection<Object> addAll(Collection<Object> target, Object[] elements) {
+        Collections.addAll(target, elements);
+        return target;
+    }
+
+    private static Copier createCopier(Class<?> type) {
+        if (IMMUTABLE.get(type) && (isJdkType(type) || Enum.class.isAssignableFrom(type))) {
+            return new Copier(true) {
+                @Override
+                Object copy(Object source, boolean deep) {
+                    return source;
+                }
+            };
+        }
+        if (type.isArray()) {
+            return new ArrayCopier(type.getComponentType());
+        }
+        boolean shareable = IMMUTABLE_CONTAINERS.contains(type) || ImmutableCollection.class.isAssignableFrom(type)
+                || ImmutableMap.class.isAssignableFrom(type) || type.getName().startsWith("java.util.ImmutableCollections$");
+        if (Map.class.isAssignableFrom(type)) {
+            return mapCopier(type, shareable);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return collectionCopier(type, shareable);
+        }
+        if (isJdkType(type)) {
+            return cloningCopier(type);
+        }
+        return new BeanCopier(type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Copier collectionCopier(Class<?> type, boolean shareable) {
+        if (type == ArrayList.class) {
+            return new CollectionCopier((source, elements) -> new ArrayList<>(Arrays.asList(elements)),
+                    shareable, null);
+        }
+        if (type == LinkedList.class) {
+            return new CollectionCopier((source, elements) -> new LinkedList<>(Arrays.asList(elements)),
+                    shareable, null);
+        }
+        if (type == HashSet.class) {
+            return new CollectionCopier(
+                    (source, elements) -> addAll(new HashSet<>(capacity(elements.length)), elements),
+                    shareable, null);
+        }
+        if (type == LinkedHashSet.class) {
+            return new CollectionCopier(
+                    (source, elements) -> addAll(new LinkedHashSet<>(capacity(elements.length)), elements),
+                    shareable, null);
+        }
+        if (type == TreeSet.class) {
+            return new CollectionCopier((source, elements) -> addAll(
+                    new TreeSet<>(((SortedSet<Object>) source).comparator()), elements), shareable, null);
+        }
+        if (type == ArrayDeque.class) {
+            return new CollectionCopier((source, elements) -> new ArrayDeque<>(Arrays.asList(elements)),
+                    shareable, null);
+        }
+        if (type == CopyOnWriteArrayList.class) {
+            return new CollectionCopier((source, elements) -> new CopyOnWriteArrayList<>(elements), shareable, null);
+        }
+        if (type == CopyOnWriteArraySet.class) {
+            return new CollectionCopier((source, elements) -> new CopyOnWriteArraySet<>(Arrays.asList(elements)),
+                    shareable, null);
+        }
+        if (EnumSet.class.isAssignableFrom(type)) {
+            /* the element type is only known to the source, so its clone is emptied */
+            return new CollectionCopier((source, elements) -> {
+                EnumSet copy = ((EnumSet) source).clone();
+                copy.clear();
+                return addAll(copy, elements);
+            }, shareable, null);
+        }
+        UnaryOperator<Collection<Object>> wrapper = null;
+        if (shareable || type.getName().startsWith("java.util.Collections$Unmodifiable")) {
+            if (List.class.isAssignableFrom(type)) {
+                wrapper = copy -> Collections.unmodifiableList((List<Object>) copy);
+            } else if (SortedSet.class.isAssignableFrom(type)) {
+                wrapper = copy -> Collections.unmodifiableSortedSet((SortedSet<Object>) copy);
+            } else if (Set.class.isAssignableFrom(type)) {
+                wrapper = copy -> Collections.unmodifiableSet((Set<Object>) copy);
+            } else {
+                wrapper = Collections::unmodifiableCollection;
+            }
+        }
+        if (SortedSet.class.isAssignableFrom(type)) {
+            return new CollectionCopier((source, elements) -> addAll(
+                    new TreeSet<>(((SortedSet<Object>) source).comparator()), elements), shareable, wrapper);
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return new CollectionCopier(
+                    (source, elements) -> addAll(new LinkedHashSet<>(capacity(elements.length)), elements),
+                    shareable, wrapper);
+        }
+        return new CollectionCopier((source, elements) -> new ArrayList<>(Arrays.asList(elements)), shareable, wrapper);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Copier mapCopier(Class<?> type, boolean shareable) {
+        if (type == HashMap.class) {
+            return new MapCopier((source, size) -> new HashMap<>(capacity(size)), shareable, null);
+        }
+        if (type == LinkedHashMap.class) {
+            return new MapCopier((source, size) -> new LinkedHashMap<>(capacity(size)), shareable, null);
+        }
+        if (type == ConcurrentHashMap.class) {
+            return new MapCopier((source, size) -> new ConcurrentHashMap<>(size), shareable, null);
+        }
+        if (type == EnumMap.class) {
+            /* the key type is only known to the source, so its clone is emptied */
+            return new MapCopier((source, size) -> {
+                EnumMap copy = ((EnumMap) source).clone();
+                copy.clear();
+                return copy;
+            }, shareable, null);
+        }
+        boolean sorted = SortedMap.class.isAssignableFrom(type);
+        UnaryOperator<Map<Object, Object>> wrapper = null;
+        if (shareable || type.getName().startsWith("java.util.Collections$Unmodifiable")) {
+            wrapper = sorted ? copy -> Collections.unmodifiableSortedMap((SortedMap<Object, Object>) copy)
+                    : Collections::unmodifiableMap;
+        }
+        if (sorted) {
+            return new MapCopier((source, size) -> new TreeMap<>(((SortedMap<Object, Object>) source).comparator()),
+                    shareable, wrapper);
+        }
+        return new MapCopier((source, size) -> new LinkedHashMap<>(capacity(size)), shareable, wrapper);
+    }
+
+    /**
+     * Copies JDK types such as {@link java.util.Date} through their public {@code clone()} method.
+     */
+    private static Copier cloningCopier(Class<?> type) {
+        MethodHandle clone;
+        try {
+            Method method = type.getMethod("clone");
+            clone = MethodHandles.publicLookup().unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException ex) {
+            clone = null;
+        }
+        if (!Cloneable.class.isAssignableFrom(type) || clone == null) {
+            throw new IllegalArgumentException("Cannot copy " + type.getName());
+        }
+        MethodHandle cloneMethod = clone;
+        return new Copier(false) {
+            @Override
+            Object copy(Object source, boolean deep) {
+                try {
+                    return (Object) cloneMethod.invokeExact(source);
+                } catch (Throwable ex) {
+                    throw new IllegalStateException("Unable to clone " + type.getName(), ex);
+                }
+            }
+        };
+    }
+
+    private static int capacity(int size) {
+        return Math.max((int) (size / .75f) + 1, 16);
+    }
+
+    /**
+     * Copier of the instances of one class.
+     */
+    private abstract static class Copier {
+        /**
+         * Whether instances are shared instead of deep copied.
+         */
+        private final boolean immutable;
+
+        Copier(boolean immutable) {
+            this.immutable = immutable;
+        }
+
+        abstract Object copy(Object source, boolean deep);
+    }
+
+    /**
+     * Copies the fields of a class, found through its getter setter pairs.
+     */
+    private static final class BeanCopier extends Copier {
+        private final Class<?> type;
+        /**
+         * {@code (source)Object} handle creating an instance through a constructor of the class.
+         */
+        private final MethodHandle instantiator;
+        /**
+         * {@code (target, source)void} handles which write all fields of the source into the target.
+         */
+        private final MethodHandle shallowFields;
+        private final MethodHandle deepFields;
+
+        private BeanCopier(Class<?> type) {
+            super(isImmutable(type));
+            this.type = type;
+            this.instantiator = instantiator(type);
+
+            Set<String> properties = new HashSet<>();
+            GetterSetterPair.scan(type, Collections.singleton("getClass")).keySet()
+                    .forEach(name -> properties.add(name.substring(0, 1).toLowerCase() + name.substring(1)));
+            MethodHandle shallow = null;
+            MethodHandle deep = null;
+            try {
+                for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                    for (Field field : current.getDeclaredFields()) {
+                        if (Modifier.isStatic(field.getModifiers())) {
+                            continue;
+                        }
+                        field.setAccessible(true);
+                        MethodHandle getter = LOOKUP.unreflectGetter(field);
+                        MethodHandle setter = LOOKUP.unreflectSetter(field);
+                        /* setter(target, getter(source)); primitives are copied without boxing */
+                        MethodHandle shared = MethodHandles.filterArguments(setter, 1, getter).asType(FIELD_COPY);
+                        MethodHandle copied = shared;
+                        if (properties.contains(field.getName()) && !isImmutableField(field.getType())) {
+                            if (!isCopyableField(field.getType())) {
+                                throw new IllegalArgumentException(String.format(
+                                        "Cannot copy field [%s] declared as [%s]", field.getName(),
+                                        field.getType().getName()));
+                            }
+                            MethodHandle getCopy = MethodHandles.filterReturnValue(
+                                    getter.asType(getter.type().changeReturnType(Object.class)), DEEP_COPY)
+                                    .asType(getter.type());
+                            copied = MethodHandles.filterArguments(setter, 1, getCopy).asType(FIELD_COPY);
+                        }
+                        shallow = chain(shallow, shared);
+                        deep = chain(deep, copied);
+                    }
+                }
+            } catch (IllegalAccessException | RuntimeException ex) {
+                throw new IllegalArgumentException("Cannot copy " + type.getName() + ": " + ex.getMessage(), ex);
+            }
+            this.shallowFields = shallow;
+            this.deepFields = deep;
+        }
+
+        /**
+         * Returns a handle running the canonical constructor of a class, the one taking its non-transient
+         * fields in declaration order from the superclasses down, with the field values of the source; or
+         * its no-argument constructor. Either way the constructor checks its invariants before the fields
+         * are written.
+         *
+         * @throws IllegalArgumentException if the class has neither constructor
+         */
+        private static MethodHandle instantiator(Class<?> type) {
+            if (Modifier.isAbstract(type.getModifiers())) {
+                throw new IllegalArgumentException("Cannot instantiate " + type.getName());
+            }
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                hierarchy.add(0, current);
+            }
+            List<Field> state = new ArrayList<>();
+            for (Class<?> current : hierarchy) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                        state.add(field);
+                    }
+                }
+            }
+            Class<?>[] canonical = new Class<?>[state.size()];
+            for (int i = 0; i < canonical.length; i++) {
+                canonical[i] = state.get(i).getType();
+            }
+            try {
+                Constructor<?> constructor = findConstructor(type, canonical);
+                if (constructor != null && canonical.length > 0) {
+                    MethodHandle create = LOOKUP.unreflectConstructor(constructor);
+                    MethodHandle[] getters = new MethodHandle[canonical.length];
+                    for (int i = 0; i < getters.length; i++) {
+                        state.get(i).setAccessible(true);
+                        MethodHandle getter = LOOKUP.unreflectGetter(state.get(i));
+                        getters[i] = getter.asType(getter.type().changeParameterType(0, Object.class));
+                    }
+                    /* every argument is read from the one source argument */
+                    return MethodHandles.permuteArguments(MethodHandles.filterArguments(create, 0, getters)
+                            .asType(MethodType.methodType(Object.class, objects(canonical.length))),
+                            INSTANTIATE, new int[canonical.length]);
+                }
+                constructor = findConstructor(type);
+                if (constructor != null) {
+                    return MethodHandles.dropArguments(LOOKUP.unreflectConstructor(constructor)
+                            .asType(MethodType.methodType(Object.class)), 0, Object.class);
+                }
+            } catch (IllegalAccessException | RuntimeException ex) {
+                throw new IllegalArgumentException("Cannot instantiate " + type.getName(), ex);
+            }
+            throw new IllegalArgumentException(String.format(
+                    "Cannot copy [%s]: it has neither a no-argument constructor nor one taking its fields %s",
+                    type.getName(), Arrays.toString(canonical)));
+        }
+
+        private static Constructor<?> findConstructor(Class<?> type, Class<?>... parameterTypes) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (NoSuchMethodException ex) {
+                return null;
+            }
+        }
+
+        private static Class<?>[] objects(int count) {
+            Class<?>[] types = new Class<?>[count];
+            Arrays.fill(types, Object.class);
+            return types;
+        }
+
+        /**
+         * Runs {@code next} after {@code previous}, with the same arguments.
+         */
+        private static MethodHandle chain(MethodHandle previous, MethodHandle next) {
+            return previous == null ? next : MethodHandles.foldArguments(next, previous);
+        }
+
+        @Override
+        Object copy(Object source, boolean deep) {
+            Object target;
+            try {
+                target = (Object) instantiator.invokeExact(source);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Unable to instantiate " + type.getName(), ex);
+            }
+            copyFields(source, target, deep);
+            return target;
+        }
+
+        void copyFields(Object source, Object target, boolean deep) {
+            MethodHandle fields = deep ? deepFields : shallowFields;
+            if (fields == null) {
+                return;
+            }
+            try {
+                fields.invokeExact(target, source);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Unable to copy " + type.getName(), ex);
+            }
+        }
+    }
+
+    private static final class ArrayCopier extends Copier {
+        private final Class<?> componentType;
+        private final boolean immutableElements;
+
+        private ArrayCopier(Class<?> componentType) {
+            super(false);
+            this.componentType = componentType;
+            this.immutableElements = isImmutableField(componentType);
+            if (!immutableElements && !isCopyableField(componentType)) {
+                throw new IllegalArgumentException("Cannot copy arrays of " + componentType.getName());
+            }
+        }
+
+        @Override
+        Object copy(Object source, boolean deep) {
+            int length = Array.getLength(source);
+            Object target = Array.newInstance(componentType, length);
+            System.arraycopy(source, 0, target, 0, length);
+            if (deep && !immutableElements) {
+                Object[] elements = (Object[]) target;
+                for (int i = 0; i < length; i++) {
+                    elements[i] = deepCopy(elements[i]);
+                }
+            }
+            return target;
+        }
+    }
+
+    private static final class CollectionCopier extends Copier {
+        /**
+         * Creates the copy of a source from the snapshot of its elements.
+         */
+        private final BiFunction<Collection<Object>, Object[], Collection<Object>> fromArray;
+        private final boolean shareable;
+        private final UnaryOperator<Collection<Object>> wrapper;
+
+        private CollectionCopier(BiFunction<Collection<Object>, Object[], Collection<Object>> fromArray,
+                                 boolean shareable, UnaryOperator<Collection<Object>> wrapper) {
+            super(false);
+            this.fromArray = fromArray;
+            this.shareable = shareable;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object value, boolean deep) {
+            Collection<Object> source = (Collection<Object>) value;
+            /* an array scan is several times faster than an iterator over large collections */
+            Object[] elements = source.toArray();
+            if (deep && !allImmutable(elements)) {
+                deepCopyAll(elements);
+            } else if (deep && shareable) {
+                return source;
+            }
+            Collection<Object> target = fromArray.apply(source, elements);
+            return wrapper == null ? target : wrapper.apply(target);
+        }
+    }
+
+    private static final class MapCopier extends Copier {
+        /**
+         * Creates an empty map like a source, for the given number of entries.
+         */
+        private final BiFunction<Map<Object, Object>, Integer, Map<Object, Object>> emptyLike;
+        private final boolean shareable;
+        private final UnaryOperator<Map<Object, Object>> wrapper;
+
+        private MapCopier(BiFunction<Map<Object, Object>, Integer, Map<Object, Object>> emptyLike,
+                          boolean shareable, UnaryOperator<Map<Object, Object>> wrapper) {
+            super(false);
+            this.emptyLike = emptyLike;
+            this.shareable = shareable;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object value, boolean deep) {
+            Map<Object, Object> source = (Map<Object, Object>) value;
+            Object[] entries = source.entrySet().toArray();
+            /* keys at even and values at odd positions, each read once */
+            Object[] keysAndValues = new Object[2 * entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                Map.Entry<Object, Object> entry = (Map.Entry<Object, Object>) entries[i];
+                keysAndValues[2 * i] = entry.getKey();
+                keysAndValues[2 * i + 1] = entry.getValue();
+            }
+            if (deep && !allImmutable(keysAndValues)) {
+                deepCopyAll(keysAndValues);
+            } else if (deep && shareable) {
+                return source;
+            }
+            Map<Object, Object> target = emptyLike.apply(source, entries.length);
+            for (int i = 0; i < keysAndValues.length; i += 2) {
+                target.put(keysAndValues[i], keysAndValues[i + 1]);
+            }
+            return wrapper == null ? target : wrapper.apply(target);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package bose.edu.junit.valueobjects;
+
+/**
+ * Result of a conditional product request: either the serialized response with its entity tag,
+ * or a short "not modified" body when the client already holds the current content.
+ */
+public class ConditionalResponse {
+    private final boolean modified;
+    private final String etag;
+    private final String body;
+    private final String status;
+
+    /**
+     * @param modified false for a "not modified" result
+     * @param etag     quoted entity tag, null if not cacheable
+     * @param body     serialized response
+     * @param status   status of the serialized response, so it need not be parsed back from the body
+     */
+    public ConditionalResponse(boolean modified, String etag, String body, String status) {
+        this.modified = modified;
+        this.etag = etag;
+        this.body = body;
+        this.status = status;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Returns the entity tag of the content.
+     *
+     * @return quoted entity tag, null for responses which are not cacheable
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -1,24 +1,344 @@
 package bose.edu.junit.valueobjects;
 
-import com.google.gson.Gson;
+import bose.edu.junit.monitoring.ControllerRequestEvent;
+import bose.edu.junit.serialization.BufferPool;
+import bose.edu.junit.serialization.JsonSerializer;
+import bose.edu.junit.serialization.PooledBuffer;
+import bose.edu.junit.serialization.ResponseEncoding;
+import com.google.common.base.Utf8;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 public class Controller {
+    private static final JsonSerializer JSON = JsonSerializer.getDefault();
+    private static final String SUCCESS = "200";
+    private static final String NOT_MODIFIED_STATUS = "304";
+    private static final String NOT_MODIFIED = JSON.toJson(new Response(NOT_MODIFIED_STATUS, "Not modified", null));
+    private static final Response TOO_MANY_REQUESTS =
+            new Response("429", "Too many requests, please try later", null);
+    private static final String TOO_MANY_REQUESTS_JSON = JSON.toJson(TOO_MANY_REQUESTS);
+    private static final Utf8Response TOO_MANY_REQUESTS_UTF8_RESPONSE =
+            new Utf8Response(JSON.toUtf8(TOO_MANY_REQUESTS), "429");
+
     private Service service;
     private Logger logger ;
+    private SerializedResponseCache cache;
+    private RateLimiter limiter;
+    private final ConcurrentMap<String, RegionTag> etags = new ConcurrentHashMap<>();
+    private final RequestCoalescer<String, Payload> payloads = new RequestCoalescer<>();
+    private final RequestCoalescer<String, Utf8Response> utf8Payloads = new RequestCoalescer<>();
 
     public Controller(Service service, Logger logger) {
+        this(service, logger, null);
+    }
+
+    public Controller(Service service, Logger logger, SerializedResponseCache cache) {
+        this(service, logger, cache, null);
+    }
+
+    /**
+     * @param service service fetching the products
+     * @param logger  logger of fetch errors
+     * @param cache   cache of serialized responses, may be null
+     * @param limiter admission control, may be null to admit every request
+     */
+    public Controller(Service service, Logger logger, SerializedResponseCache cache, RateLimiter limiter) {
         this.service = service;
         this.logger = logger;
+        this.cache = cache;
+        this.limiter = limiter;
     }
 
+    /**
+     * Returns the products of a region as JSON.
+     * Concurrent calls for the same region share one fetch and serialization.
+     *
+     * @param region region name
+     * @return serialized response
+     */
     public String getAllProducts(String region) {
+        return getAllProductsFor(null, region);
+    }
+
+    /**
+     * Returns the products of a region as JSON, subject to the rate limits of the caller and the region.
+     * Rejected requests get a precomputed "429" response.
+     *
+     * @param caller caller identity, null if unknown
+     * @param region region name
+     * @return serialized response
+     */
+    public String getAllProductsFor(String caller, String region) {
+        ControllerRequestEvent event = new ControllerRequestEvent();
+        event.begin();
+        Payload payload = admitted(caller, region) ? load(region) : Payload.TOO_MANY_REQUESTS;
+        if (event.shouldCommit()) {
+            event.complete("json", region, payload.status, Utf8.encodedLength(payload.json));
+        }
+        return payload.json;
+    }
+
+    /**
+     * Returns the products of a region unless the client already holds them.
+     * The entity tag of a region is computed once per catalog version of the region, so a matching
+     * tag is answered with a short "304" body without fetching or serializing anything.
+     * A tag is only issued for a body read while the region version did not change, and is kept with
+     * that body, so it never describes other content than the one it was computed from.
+     *
+     * @param region region name
+     * @param etag   entity tag the client received earlier, may be null
+     * @return the response, or a not modified result
+     */
+    public ConditionalResponse getAllProductsIfModified(String region, String etag) {
+        return getAllProductsIfModifiedFor(null, region, etag);
+    }
+
+    /**
+     * Returns the products of a region unless the client already holds them, subject to the rate limits of
+     * the caller and the region.
+     *
+     * @param caller caller identity, null if unknown
+     * @param region region name
+     * @param etag   entity tag the client received earlier, may be null
+     * @return the response, or a not modified result
+     */
+    public ConditionalResponse getAllProductsIfModifiedFor(String caller, String region, String etag) {
+        ControllerRequestEvent event = new ControllerRequestEvent();
+        event.begin();
+        ConditionalResponse response = loadIfModified(caller, region, etag);
+        if (event.shouldCommit()) {
+            event.complete("conditional", region, response.getStatus(), Utf8.encodedLength(response.getBody()));
+        }
+        return response;
+    }
+
+    private ConditionalResponse loadIfModified(String caller, String region, String etag) {
+        if (!admitted(caller, region)) {
+            return new ConditionalResponse(true, null, TOO_MANY_REQUESTS_JSON, Payload.TOO_MANY_REQUESTS.status);
+        }
+        long version = regionVersion(region);
+        RegionTag tag = etags.get(region);
+        if (version >= 0 && tag != null && tag.version == version) {
+            return tag.etag.equals(etag) ? new ConditionalResponse(false, etag, NOT_MODIFIED, NOT_MODIFIED_STATUS)
+                    : new ConditionalResponse(true, tag.etag, tag.json, SUCCESS);
+        }
+
+        /* fetched directly between two equal version reads, as cached or coalesced payloads may predate version */
+        Response response = fetch(region);
+        String json = JSON.toJson(response);
+        if (version < 0 || !SUCCESS.equals(response.getStatus()) || regionVersion(region) != version) {
+            return new ConditionalResponse(true, null, json, response.getStatus());
+        }
+        tag = new RegionTag(version, "\"" + Hashing.murmur3_128()
+                .hashString(json, StandardCharsets.UTF_8) + "\"", json);
+        /* never replace the tag of a newer version stored meanwhile */
+        etags.merge(region, tag, (current, candidate) -> current.version >= candidate.version ? current : candidate);
+        if (tag.etag.equals(etag)) {
+            return new ConditionalResponse(false, etag, NOT_MODIFIED, NOT_MODIFIED_STATUS);
+        }
+        return new ConditionalResponse(true, tag.etag, tag.json, SUCCESS);
+    }
+
+    private long regionVersion(String region) {
+        try {
+            return service.getRegionVersion(region);
+        } catch (Exception ex) {
+            logger.log(ex);
+            return -1;
+        }
+    }
+
+    /**
+     * Returns one page of the products of a region, with only the requested fields serialized.
+     * Paged and projected responses bypass the response cache.
+     *
+     * @param region region name
+     * @param query  paging and projection options
+     * @return serialized response
+     */
+    public String getAllProducts(String region, ProductQuery query) {
+        return getAllProductsFor(null, region, query);
+    }
+
+    /**
+     * Returns one page of the products of a region, subject to the rate limits of the caller and the region.
+     *
+     * @param caller caller identity, null if unknown
+     * @param region region name
+     * @param query  paging and projection options
+     * @return serialized response
+     */
+    public String getAllProductsFor(String caller, String region, ProductQuery query) {
+        ControllerRequestEvent event = new ControllerRequestEvent();
+        event.begin();
+        Response response = admitted(caller, region)
+                ? fetch(() -> service.getAllProducts(region, query)) : TOO_MANY_REQUESTS;
+        String json = JSON.toJson(response);
+        if (event.shouldCommit()) {
+            event.complete("query", region, response.getStatus(), Utf8.encodedLength(json));
+        }
+        return json;
+    }
+
+    /**
+     * Returns the products of a region in the requested wire format.
+     * Encoding happens in a pooled buffer, with pooled deflaters for the compressed encodings. Each call still
+     * allocates the response and the products the catalog hands out for it, the JFR event, the encoder's own
+     * garbage (the string bytes of the binary encoding, the Gson writer of the JSON ones) and the returned array.
+     *
+     * @param region   region name
+     * @param encoding wire format
+     * @return encoded response
+     */
+    public byte[] getAllProducts(String region, ResponseEncoding encoding) {
+        return getAllProductsFor(null, region, encoding);
+    }
+
+    /**
+     * Returns the products of a region in the requested wire format, subject to the rate limits of the
+     * caller and the region.
+     *
+     * @param caller   caller identity, null if unknown
+     * @param region   region name
+     * @param encoding wire format
+     * @return encoded response
+     */
+    public byte[] getAllProductsFor(String caller, String region, ResponseEncoding encoding) {
+        ControllerRequestEvent event = new ControllerRequestEvent();
+        event.begin();
+        Response response = admitted(caller, region) ? fetch(region) : TOO_MANY_REQUESTS;
+        BufferPool buffers = JSON.getBuffers();
+        PooledBuffer buffer = buffers.acquire();
+        try {
+            encoding.getEncoder().encode(response, buffer);
+            byte[] encoded = buffer.toByteArray();
+            if (event.shouldCommit()) {
+                event.complete(encoding.name(), region, response.getStatus(), encoded.length);
+            }
+            return encoded;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Returns the products of a region as UTF-8 JSON, encoded straight from a pooled buffer
+     * without building an intermediate String.
+     * Concurrent calls for the same region share one fetch and encoding, callers must not modify the result.
+     *
+     * @param region region name
+     * @return UTF-8 JSON
+     */
+    public byte[] getAllProductsAsUtf8(String region) {
+        return getAllProductsAsUtf8For(null, region);
+    }
+
+    /**
+     * Returns the products of a region as UTF-8 JSON, subject to the rate limits of the caller and the region.
+     * Callers must not modify the result.
+     *
+     * @param caller caller identity, null if unknown
+     * @param region region name
+     * @return UTF-8 JSON
+     */
+    public byte[] getAllProductsAsUtf8For(String caller, String region) {
+        return getAllProductsAsUtf8ResponseFor(caller, region).getJson();
+    }
+
+    /**
+     * Returns the products of a region as UTF-8 JSON together with its status, subject to the rate limits
+     * of the caller and the region. Callers must not modify the bytes.
+     *
+     * @param caller caller identity, null if unknown
+     * @param region region name
+     * @return UTF-8 JSON and its status
+     */
+    public Utf8Response getAllProductsAsUtf8ResponseFor(String caller, String region) {
+        ControllerRequestEvent event = new ControllerRequestEvent();
+        event.begin();
+        Utf8Response response = admitted(caller, region)
+                ? utf8Payloads.get(region, this::computeUtf8) : TOO_MANY_REQUESTS_UTF8_RESPONSE;
+        if (event.shouldCommit()) {
+            event.complete("utf8", region, response.getStatus(), response.getJson().length);
+        }
+        return response;
+    }
+
+    private boolean admitted(String caller, String region) {
+        return limiter == null || limiter.tryAcquire(caller, region);
+    }
+
+    private Payload load(String region) {
+        if (cache != null) {
+            String cached = cache.get(region);
+            if (cached != null) {
+                return new Payload(cached, "200");
+            }
+        }
+        return payloads.get(region, this::compute);
+    }
+
+    private Payload compute(String region) {
+        long generation = cache == null ? 0 : cache.generation(region);
+        Response response = fetch(region);
+        Payload payload = new Payload(JSON.toJson(response), response.getStatus());
+        if (cache != null && payload.successful) {
+            cache.put(region, generation, payload.json);
+        }
+        return payload;
+    }
+
+    private Utf8Response computeUtf8(String region) {
+        Response response = fetch(region);
+        return new Utf8Response(JSON.toUtf8(response), response.getStatus());
+    }
+
+    private Response fetch(String region) {
+        return fetch(() -> service.getAllProducts(region));
+    }
+
+    private Response fetch(Supplier<Response> call) {
         Response response;
         try {
-            response = service.getAllProducts(region);
+            response = call.get();
         } catch (Exception ex) {
             logger.log(ex);
             response = new Response("500", "Error in fetching products, please try later", null);
         }
-        return new Gson().toJson(response, Response.class);
+        return response;
+    }
+
+    private static final class Payload {
+        private static final Payload TOO_MANY_REQUESTS = new Payload(TOO_MANY_REQUESTS_JSON, "429");
+
+        private final String json;
+        private final String status;
+        private final boolean successful;
+
+        private Payload(String json, String status) {
+            this.json = json;
+            this.status = status;
+            this.successful = SUCCESS.equals(status);
+        }
+    }
+
+    private static final class RegionTag {
+        private final long version;
+        private final String etag;
+        private final String json;
+
+        private RegionTag(long version, String etag, String json) {
+            this.version = version;
+            this.etag = etag;
+            this.json = json;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.serialization.ResponseTypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response backed by a read-only product view, such as the one returned by
+ * {@link bose.edu.junit.catalog.Catalog#getProducts(String)}, whose elements are created on access.
+ * Status, message and product count never touch the products; serializers stream them through
+ * {@link #products()}, and {@link #getProducts()} materializes a list once, on first call.
+ * The products are not a serialized field, so the class carries the streaming adapter of {@link Response}
+ * itself: Gson does not inherit it from the superclass.
+ */
+@JsonAdapter(ResponseTypeAdapterFactory.class)
+public class LazyResponse extends Response {
+    private final transient List<Product> source;
+    private transient volatile List<Product> products;
+
+    public LazyResponse(String status, String message, List<Product> source) {
+        this(status, message, source, null);
+    }
+
+    public LazyResponse(String status, String message, List<Product> source, String nextPageToken) {
+        super(status, message, null, nextPageToken);
+        this.source = source;
+    }
+
+    @Override
+    public List<Product> getProducts() {
+        List<Product> materialized = products;
+        if (materialized == null && source != null) {
+            synchronized (this) {
+                materialized = products;
+                if (materialized == null) {
+                    materialized = Collections.unmodifiableList(new ArrayList<>(source));
+                    products = materialized;
+                }
+            }
+        }
+        return materialized;
+    }
+
+    /**
+     * Returns whether {@link #getProducts()} has materialized the products.
+     *
+     * @return true once the products are materialized
+     */
+    public boolean isMaterialized() {
+        return products != null;
+    }
+
+    @Override
+    public int getProductCount() {
+        return source == null ? 0 : source.size();
+    }
+
+    @Override
+    public Iterable<Product> products() {
+        List<Product> materialized = products;
+        return materialized != null ? materialized : source;
+    }
+}
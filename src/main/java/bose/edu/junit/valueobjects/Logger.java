@@ -1,7 +1,14 @@
 package bose.edu.junit.valueobjects;
 
+import bose.edu.junit.monitoring.ErrorBursts;
+
 public class Logger {
+    static {
+        ErrorBursts.register();
+    }
+
     public void log(Exception ex){
         // Log exception
+        ErrorBursts.record(ex);
     }
 }
@@ -0,0 +1,54 @@
+package bose.edu.junit.valueobjects;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation tokens. A token is bound to the region it was issued for and to the version of
+ * the region whose products it pages through; once the region changes, positions shift and the token
+ * expires instead of skipping or repeating products.
+ */
+final class PageToken {
+    static final int INVALID = -1;
+    static final int EXPIRED = -2;
+    private static final String PREFIX = "p2:";
+
+    private PageToken() {
+    }
+
+    static String encode(String region, long version, int offset) {
+        String token = PREFIX + version + ":" + offset + ":" + region;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token issued by {@link #encode(String, long, int)}.
+     *
+     * @param region  region of the current request
+     * @param version current version of the region
+     * @param token   token, may be null
+     * @return the offset of the next page, 0 for a null token, {@link #INVALID} for an invalid token and
+     * {@link #EXPIRED} for a token issued for another version of the region
+     */
+    static int decode(String region, long version, String token) {
+        if (token == null) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int versionEnd = decoded.indexOf(':', PREFIX.length());
+            int offsetEnd = versionEnd < 0 ? -1 : decoded.indexOf(':', versionEnd + 1);
+            if (!decoded.startsWith(PREFIX) || offsetEnd < 0 || !decoded.substring(offsetEnd + 1).equals(region)) {
+                return INVALID;
+            }
+            long tokenVersion = Long.parseLong(decoded.substring(PREFIX.length(), versionEnd));
+            int offset = Integer.parseInt(decoded.substring(versionEnd + 1, offsetEnd));
+            if (offset < 0) {
+                return INVALID;
+            }
+            return tokenVersion == version ? offset : EXPIRED;
+        } catch (IllegalArgumentException ex) {
+            return INVALID;
+        }
+    }
+}
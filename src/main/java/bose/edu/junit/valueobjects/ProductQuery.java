@@ -0,0 +1,40 @@
+package bose.edu.junit.valueobjects;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Paging and projection options for listing the products of a region.
+ */
+public class ProductQuery {
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_PRICE = "price";
+
+    private final int pageSize;
+    private final String pageToken;
+    private final Set<String> fields;
+
+    /**
+     * @param pageSize  maximum number of products returned, 0 for all
+     * @param pageToken continuation token of the previous page, null for the first page
+     * @param fields    product fields to return, null for all
+     */
+    public ProductQuery(int pageSize, String pageToken, Set<String> fields) {
+        this.pageSize = pageSize;
+        this.pageToken = pageToken;
+        this.fields = fields == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(fields));
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+}
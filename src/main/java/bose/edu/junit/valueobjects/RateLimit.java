@@ -0,0 +1,77 @@
+package bose.edu.junit.valueobjects;
+
+/**
+ * Sustained rate and burst of a {@link RateLimiter} bucket.
+ */
+public final class RateLimit {
+    public static final RateLimit UNLIMITED = new RateLimit();
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long emissionNanos;
+    private final long toleranceNanos;
+
+    /**
+     * @param permitsPerSecond sustained rate
+     * @param burst            requests admitted at once after an idle period, at least 1
+     */
+    public RateLimit(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.emissionNanos = Math.max(1, (long) (1e9 / permitsPerSecond));
+        this.toleranceNanos = tolerance(emissionNanos, burst);
+    }
+
+    /**
+     * The tolerance is saturated below the point where a bucket, advanced one emission past it, would wrap
+     * around and look idle; such limits practically never reject.
+     */
+    private static long tolerance(long emissionNanos, int burst) {
+        try {
+            return Math.multiplyExact(emissionNanos, (long) burst) - emissionNanos;
+        } catch (ArithmeticException ex) {
+            return Long.MAX_VALUE - emissionNanos;
+        }
+    }
+
+    private RateLimit() {
+        this.permitsPerSecond = Double.POSITIVE_INFINITY;
+        this.burst = Integer.MAX_VALUE;
+        this.emissionNanos = 0;
+        this.toleranceNanos = Long.MAX_VALUE;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public boolean isUnlimited() {
+        return this == UNLIMITED;
+    }
+
+    /**
+     * @return time one request adds to a bucket
+     */
+    long getEmissionNanos() {
+        return emissionNanos;
+    }
+
+    /**
+     * @return how far a bucket may run ahead of the clock and still admit a request
+     */
+    long getToleranceNanos() {
+        return toleranceNanos;
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "unlimited" : permitsPerSecond + "/s burst " + burst;
+    }
+}
@@ -0,0 +1,191 @@
+package bose.edu.junit.valueobjects;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control per region and per caller with lock-free token buckets.
+ * <p>
+ * Each bucket is one {@link AtomicLong} holding the theoretical arrival time of the next request
+ * (the generic cell rate algorithm): a request is admitted if that time is at most the burst tolerance
+ * ahead of the clock, and moves it one emission interval further with a compare-and-set. Rejections do not
+ * write at all. Limits are read on every call, so changing them takes effect immediately without pausing
+ * or resetting traffic.
+ * <p>
+ * Buckets are created on first use, also for names that turn out to be unknown regions. Whenever the buckets
+ * have doubled since the last sweep, the refilled ones are evicted by the request creating a bucket, so the
+ * number of buckets follows the recently active callers and regions at an amortized constant cost;
+ * {@link #evictIdle()} evicts them on demand.
+ */
+public class RateLimiter {
+    private static final int MIN_SWEEP_SIZE = 1024;
+
+    private final ConcurrentMap<String, AtomicLong> regionBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> callerBuckets = new ConcurrentHashMap<>();
+    private final int minSweepSize;
+    private final AtomicInteger sweepSize;
+    private final ConcurrentMap<String, RateLimit> regionOverrides = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RateLimit> callerOverrides = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private volatile RateLimit regionLimit;
+    private volatile RateLimit callerLimit;
+
+    /**
+     * @param regionLimit limit of every region without its own limit
+     * @param callerLimit limit of every caller without its own limit
+     */
+    public RateLimiter(RateLimit regionLimit, RateLimit callerLimit) {
+        this(regionLimit, callerLimit, System::nanoTime);
+    }
+
+    RateLimiter(RateLimit regionLimit, RateLimit callerLimit, LongSupplier clock) {
+        this(regionLimit, callerLimit, clock, MIN_SWEEP_SIZE);
+    }
+
+    RateLimiter(RateLimit regionLimit, RateLimit callerLimit, LongSupplier clock, int minSweepSize) {
+        this.regionLimit = regionLimit;
+        this.callerLimit = callerLimit;
+        this.clock = clock;
+        this.minSweepSize = minSweepSize;
+        this.sweepSize = new AtomicInteger(minSweepSize);
+    }
+
+    /**
+     * Admits a request if both the caller and the region have capacity left. A caller token taken for a
+     * request the region rejects is given back.
+     *
+     * @param caller caller identity, null for anonymous requests which are only limited per region
+     * @param region requested region
+     * @return true if the request may proceed
+     */
+    public boolean tryAcquire(String caller, String region) {
+        long now = clock.getAsLong();
+        RateLimit callerLimit = caller == null ? RateLimit.UNLIMITED : limit(callerOverrides, this.callerLimit, caller);
+        AtomicLong callerBucket = null;
+        if (!callerLimit.isUnlimited()) {
+            callerBucket = bucket(callerBuckets, caller, now);
+            if (!tryAcquire(callerBucket, callerLimit, now)) {
+                return false;
+            }
+        }
+        RateLimit regionLimit = limit(regionOverrides, this.regionLimit, region);
+        if (regionLimit.isUnlimited() || tryAcquire(bucket(regionBuckets, region, now), regionLimit, now)) {
+            return true;
+        }
+        if (callerBucket != null) {
+            callerBucket.addAndGet(-callerLimit.getEmissionNanos());
+        }
+        return false;
+    }
+
+    public RateLimit getRegionLimit() {
+        return regionLimit;
+    }
+
+    public void setRegionLimit(RateLimit limit) {
+        this.regionLimit = limit;
+    }
+
+    /**
+     * Sets the limit of one region.
+     *
+     * @param region region name
+     * @param limit  limit of the region, null to apply the default limit again
+     */
+    public void setRegionLimit(String region, RateLimit limit) {
+        override(regionOverrides, region, limit);
+    }
+
+    public RateLimit getCallerLimit() {
+        return callerLimit;
+    }
+
+    public void setCallerLimit(RateLimit limit) {
+        this.callerLimit = limit;
+    }
+
+    /**
+     * Sets the limit of one caller.
+     *
+     * @param caller caller identity
+     * @param limit  limit of the caller, null to apply the default limit again
+     */
+    public void setCallerLimit(String caller, RateLimit limit) {
+        override(callerOverrides, caller, limit);
+    }
+
+    /**
+     * Drops the buckets which refilled completely; they behave exactly like new ones.
+     *
+     * @return number of dropped buckets
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = evictIdle(regionBuckets, now) + evictIdle(callerBuckets, now);
+        sweepSize.set((int) Math.max(minSweepSize, Math.min(Integer.MAX_VALUE - 1, 2L * bucketCount())));
+        return evicted;
+    }
+
+    int bucketCount() {
+        return regionBuckets.size() + callerBuckets.size();
+    }
+
+    private static boolean tryAcquire(AtomicLong bucket, RateLimit limit, long now) {
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            if (start - now > limit.getToleranceNanos()) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, start + limit.getEmissionNanos())) {
+                return true;
+            }
+        }
+    }
+
+    private static int evictIdle(ConcurrentMap<String, AtomicLong> buckets, long now) {
+        int evicted = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            /* a request racing with the removal may still charge the dropped bucket, which at worst admits it */
+            if (entry.getValue().get() - now <= 0 && buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private AtomicLong bucket(ConcurrentMap<String, AtomicLong> buckets, String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        int size = sweepSize.get();
+        if (bucketCount() >= size && sweepSize.compareAndSet(size, Integer.MAX_VALUE)) {
+            /* one creating request sweeps, the others keep creating until it has set the next size */
+            evictIdle();
+        }
+        AtomicLong created = new AtomicLong(now);
+        bucket = buckets.putIfAbsent(key, created);
+        return bucket == null ? created : bucket;
+    }
+
+    private static RateLimit limit(ConcurrentMap<String, RateLimit> overrides, RateLimit fallback, String key) {
+        if (overrides.isEmpty()) {
+            return fallback;
+        }
+        RateLimit limit = overrides.get(key);
+        return limit == null ? fallback : limit;
+    }
+
+    private static void override(ConcurrentMap<String, RateLimit> overrides, String key, RateLimit limit) {
+        if (limit == null) {
+            overrides.remove(key);
+        } else {
+            overrides.put(key, limit);
+        }
+    }
+}
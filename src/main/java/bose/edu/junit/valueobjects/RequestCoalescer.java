@@ -0,0 +1,78 @@
+package bose.edu.junit.valueobjects;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent identical requests: the first caller for a key computes the value and every
+ * caller arriving while that computation is in flight waits for it and shares the result.
+ * If the computation fails, every waiter receives the very same exception the first caller throws.
+ * Waiting is interruptible.
+ * Nothing is cached once the computation finished.
+ *
+ * @param <K> request key
+ * @param <V> result
+ */
+public class RequestCoalescer<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V get(K key, Function<K, V> loader) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            return await(existing);
+        }
+        CompletableFuture<V> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.apply(key);
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            created.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Returns the number of keys currently being computed.
+     *
+     * @return in flight computations
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Waits for the computation of another caller. An interrupted waiter stops waiting, keeps its interrupt
+     * status and gets a CancellationException; the computation itself goes on for the other callers.
+     */
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("Interrupted while waiting for the result");
+            cancelled.initCause(ex);
+            throw cancelled;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
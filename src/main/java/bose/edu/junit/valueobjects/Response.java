@@ -1,16 +1,26 @@
 package bose.edu.junit.valueobjects;
 
+import bose.edu.junit.serialization.ResponseTypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.List;
 
+@JsonAdapter(ResponseTypeAdapterFactory.class)
 public class Response {
     private final String status;
     private final String message;
     private final List<Product> products;
+    private final String nextPageToken;
 
     public Response(String status, String message, List<Product> products) {
+        this(status, message, products, null);
+    }
+
+    public Response(String status, String message, List<Product> products, String nextPageToken) {
         this.status = status;
         this.message = message;
         this.products = products;
+        this.nextPageToken = nextPageToken;
     }
 
     public String getStatus() {
@@ -24,4 +34,26 @@ public class Response {
     public List<Product> getProducts() {
         return products;
     }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    /**
+     * Returns the number of products without materializing them.
+     *
+     * @return product count, 0 if there is no product list
+     */
+    public int getProductCount() {
+        return products == null ? 0 : products.size();
+    }
+
+    /**
+     * Returns the products for a single pass, such as serialization, without materializing a list.
+     *
+     * @return products, or null if there is no product list
+     */
+    public Iterable<Product> products() {
+        return products;
+    }
 }
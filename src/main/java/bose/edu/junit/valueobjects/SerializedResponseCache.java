@@ -0,0 +1,65 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.catalog.CatalogListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of serialized responses per region.
+ * Register it as a {@link CatalogListener} so that only the regions which changed are invalidated.
+ */
+public class SerializedResponseCache implements CatalogListener {
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public String get(String region) {
+        Entry entry = entries.get(region);
+        return entry == null ? null : entry.payload;
+    }
+
+    /**
+     * Returns the invalidation generation of a region. Read it before computing a payload and hand it
+     * to {@link #put(String, long, String)}, so a payload computed from stale data is never cached.
+     *
+     * @param region region name
+     * @return current generation
+     */
+    public long generation(String region) {
+        AtomicLong generation = generations.get(region);
+        return generation == null ? 0 : generation.get();
+    }
+
+    public void put(String region, long generation, String payload) {
+        Entry entry = new Entry(payload);
+        entries.put(region, entry);
+        if (generation(region) != generation) {
+            /* invalidated while the payload was computed */
+            entries.remove(region, entry);
+        }
+    }
+
+    public void invalidate(String region) {
+        generations.computeIfAbsent(region, k -> new AtomicLong()).incrementAndGet();
+        entries.remove(region);
+    }
+
+    @Override
+    public void regionsChanged(long version, Set<String> regions) {
+        regions.forEach(this::invalidate);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final String payload;
+
+        private Entry(String payload) {
+            this.payload = payload;
+        }
+    }
+}
@@ -1,22 +1,204 @@
 package bose.edu.junit.valueobjects;
 
+import bose.edu.junit.catalog.Catalog;
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.monitoring.ServiceLookupEvent;
+import bose.edu.junit.search.AttributeQuery;
+import bose.edu.junit.search.SubTypeIndex;
 import com.google.common.collect.Lists;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class Service {
+    private static final Catalog DEFAULT_CATALOG = ProductStore.builder()
+            .add("1", new Product("ipad", "1000$"))
+            .add("1", new Product("iphone", "700$"))
+            .add("1", new Product("mac book pro", "2000$"))
+            .build();
+    private static final Set<String> PRODUCT_FIELDS = new HashSet<>(
+            Arrays.asList(ProductQuery.FIELD_NAME, ProductQuery.FIELD_PRICE));
+
+    private static final int CONSISTENT_READS = 8;
+
+    private final Catalog catalog;
+    private final ConcurrentMap<String, RegionIndex> subTypeIndexes = new ConcurrentHashMap<>();
     Response response ;
-    public Response getAllProducts(String region) {
-        if ("1".equals(region)) {
-            List<Product> products = Lists.newArrayList(new Product("ipad", "1000$"),
-                    new Product("iphone", "700$"), new Product("mac book pro", "2000$"));
 
-            response = new Response( "200", "Products fetched", products);
+    public Service() {
+        this(DEFAULT_CATALOG);
+    }
+
+    public Service(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public Response getAllProducts(String region) {
+        ServiceLookupEvent event = new ServiceLookupEvent();
+        event.begin();
+        List<Product> products = catalog.getProducts(region);
+        if (products != null) {
+            response = new LazyResponse( "200", "Products fetched", products);
         }
         else{
             response = new Response( "400", "Region not supported", null);
         }
+        if (event.shouldCommit()) {
+            event.complete(region, response.getStatus(), response.getProductCount());
+        }
 
         return response ;
     }
+
+    /**
+     * Returns the catalog version in which the products of a region last changed.
+     *
+     * @param region region name
+     * @return region version, or -1 if the region is not supported
+     */
+    public long getRegionVersion(String region) {
+        return catalog.getRegionVersion(region);
+    }
+
+    /**
+     * Returns one page of the products of a region. Page tokens carry the region version they were
+     * issued for; a token of an older version is rejected, as the products it points into have moved.
+     *
+     * @param region region name
+     * @param query  paging and projection options
+     * @return the page, or 400 if the region, a field or the token is not valid
+     */
+    public Response getAllProducts(String region, ProductQuery query) {
+        /* read the products between two equal version reads, so the version describes exactly these products */
+        long version;
+        List<Product> products;
+        int attempts = 0;
+        do {
+            version = catalog.getRegionVersion(region);
+            products = catalog.getProducts(region);
+        } while (products != null && catalog.getRegionVersion(region) != version && ++attempts < CONSISTENT_READS);
+        if (products == null) {
+            return new Response("400", "Region not supported", null);
+        }
+        if (attempts == CONSISTENT_READS) {
+            return new Response("503", "Region is changing, please try later", null);
+        }
+        Set<String> fields = query.getFields();
+        if (fields != null && !PRODUCT_FIELDS.containsAll(fields)) {
+            return new Response("400", "Unsupported field", null);
+        }
+        int from = PageToken.decode(region, version, query.getPageToken());
+        if (from == PageToken.EXPIRED) {
+            return new Response("400", "Page token expired, the region changed", null);
+        }
+        if (from < 0 || from > products.size()) {
+            return new Response("400", "Invalid page token", null);
+        }
+
+        int to = query.getPageSize() > 0
+                ? (int) Math.min(products.size(), (long) from + query.getPageSize()) : products.size();
+        List<Product> page = products.subList(from, to);
+        if (fields != null && !fields.containsAll(PRODUCT_FIELDS)) {
+            boolean name = fields.contains(ProductQuery.FIELD_NAME);
+            boolean price = fields.contains(ProductQuery.FIELD_PRICE);
+            page = Lists.transform(page, product -> new Product(
+                    name ? product.getName() : null, price ? product.getPrice() : null));
+        }
+        String nextPageToken = to < products.size() ? PageToken.encode(region, version, to) : null;
+        return new LazyResponse("200", "Products fetched", page, nextPageToken);
+    }
+
+    /**
+     * Returns the n cheapest products of a region, cheapest first.
+     *
+     * @param region region name
+     * @param n      number of products
+     * @return at most n products, or 400 if the region is not supported
+     */
+    public Response getCheapestProducts(String region, int n) {
+        return getProductsByPrice(region, 0, n);
+    }
+
+    /**
+     * Returns a range of the products of a region sorted by price, cheapest first; only the range is
+     * materialized. Products without a price sort last.
+     *
+     * @param region region name
+     * @param offset number of cheaper products to skip
+     * @param limit  maximum number of products
+     * @return the products in the range, or 400 if the region is not supported or the range is invalid
+     */
+    public Response getProductsByPrice(String region, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            return new Response("400", "Invalid range", null);
+        }
+        List<Product> products = catalog.getProductsByPrice(region, offset, limit);
+        if (products == null) {
+            return new Response("400", "Region not supported", null);
+        }
+        return new Response("200", "Products fetched", products);
+    }
+
+    /**
+     * Returns the products of a region whose sub types match a query. The secondary index of a region
+     * is built on first use and once per changed version of the region, whatever the number of concurrent
+     * requests; a change of prices only keeps the bitmaps and swaps in the new products.
+     *
+     * @param region region name
+     * @param query  sub type filter
+     * @return matching products, or 400 if the region is not supported
+     */
+    public Response findProducts(String region, AttributeQuery query) {
+        SubTypeIndex index = subTypeIndex(region);
+        if (index == null) {
+            return new Response("400", "Region not supported", null);
+        }
+        List<Product> products = new ArrayList<>();
+        for (GenericProduct product : index.select(query)) {
+            products.add(new Product(product.getName(), product.getPrice()));
+        }
+        return new Response("200", "Products fetched", products);
+    }
+
+    private SubTypeIndex subTypeIndex(String region) {
+        /* the version is read before the products, so a concurrent change can only make the index look stale */
+        long version = catalog.getRegionVersion(region);
+        if (version < 0) {
+            /* the region is gone, and so must be its index, or it would keep answering */
+            subTypeIndexes.remove(region);
+            return null;
+        }
+        RegionIndex cached = subTypeIndexes.get(region);
+        if (cached != null && cached.version >= version) {
+            return cached.index;
+        }
+        /* built under the lock of the map entry, so concurrent requests for a region share one build */
+        RegionIndex built = subTypeIndexes.compute(region, (key, current) -> {
+            if (current != null && current.version >= version) {
+                return current;
+            }
+            List<GenericProduct> products = catalog.getGenericProducts(key);
+            if (products == null) {
+                return null;
+            }
+            SubTypeIndex rebound = current == null ? null : current.index.rebind(products);
+            return new RegionIndex(version, rebound != null ? rebound : new SubTypeIndex(products));
+        });
+        return built == null ? null : built.index;
+    }
+
+    private static final class RegionIndex {
+        private final long version;
+        private final SubTypeIndex index;
+
+        private RegionIndex(long version, SubTypeIndex index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package bose.edu.junit.valueobjects;
+
+/**
+ * UTF-8 JSON of a response together with its status, so transports can answer with that status
+ * without parsing the body. Instances are shared by coalesced callers, which must not modify the bytes.
+ */
+public final class Utf8Response {
+    private final byte[] json;
+    private final String status;
+
+    /**
+     * @param json   serialized response
+     * @param status status of the serialized response
+     */
+    public Utf8Response(byte[] json, String status) {
+        this.json = json;
+        this.status = status;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
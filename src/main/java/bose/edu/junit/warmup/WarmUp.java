@@ -0,0 +1,217 @@
+package bose.edu.junit.warmup;
+
+import bose.edu.junit.monitoring.WarmUpEvent;
+import bose.edu.junit.serialization.ResponseEncoding;
+import bose.edu.junit.valueobjects.ConditionalResponse;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.ProductQuery;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Startup phase which primes a {@link Controller} before the node takes traffic.
+ * <p>
+ * Every region is loaded and its JSON response serialized once, which fills the controller's response
+ * cache and entity tags. Then rounds of requests cycle over the regions, an unknown region and every
+ * controller entry point and encoding, so that the serializer adapters, reflection metadata and the
+ * fetch and serialization paths get compiled. The warm-up ends once the JVM reports no new compilation
+ * for a number of consecutive rounds, or at its time limit; {@link #isReady()} turns true then.
+ * <p>
+ * The warm-up sends many requests per region, so give it a controller without rate limiter which shares
+ * the service and response cache of the serving one; compiled code is shared by all instances.
+ */
+public class WarmUp {
+    /**
+     * Region name which no catalog holds, to warm the error path.
+     */
+    static final String UNKNOWN_REGION = "\u0000warm-up";
+    private static final int OPERATIONS = 6;
+    private static final ProductQuery PAGE = new ProductQuery(10, null, null);
+    private static final ProductQuery NAMES = new ProductQuery(0, null,
+            Collections.singleton(ProductQuery.FIELD_NAME));
+    private static final ResponseEncoding[] ENCODINGS = ResponseEncoding.values();
+
+    private final Controller controller;
+    private final List<String> regions;
+    private final LongSupplier compilationMillis;
+    private int callsPerRound = 500;
+    private int stableRounds = 3;
+    private Duration maxDuration = Duration.ofSeconds(60);
+    private volatile boolean ready;
+
+    /**
+     * @param controller controller to warm
+     * @param regions    regions to load, e.g. {@link bose.edu.junit.catalog.Catalog#getRegions()}
+     */
+    public WarmUp(Controller controller, Collection<String> regions) {
+        this(controller, regions, compilationTime());
+    }
+
+    /**
+     * @param compilationMillis total JIT compilation time so far, negative if unknown
+     */
+    WarmUp(Controller controller, Collection<String> regions, LongSupplier compilationMillis) {
+        this.controller = controller;
+        this.regions = new ArrayList<>(regions);
+        this.compilationMillis = compilationMillis;
+    }
+
+    /**
+     * Sets the number of requests of one round, after which compilation is checked.
+     *
+     * @param callsPerRound requests per round
+     */
+    public void setCallsPerRound(int callsPerRound) {
+        if (callsPerRound <= 0) {
+            throw new IllegalArgumentException("Calls per round must be positive: " + callsPerRound);
+        }
+        this.callsPerRound = callsPerRound;
+    }
+
+    /**
+     * Sets the number of consecutive rounds without new compilation after which compilation counts as settled.
+     * If the JVM does not report compilation time, the warm-up runs this many rounds.
+     *
+     * @param stableRounds rounds without compilation
+     */
+    public void setStableRounds(int stableRounds) {
+        if (stableRounds <= 0) {
+            throw new IllegalArgumentException("Stable rounds must be positive: " + stableRounds);
+        }
+        this.stableRounds = stableRounds;
+    }
+
+    /**
+     * Sets the time after which the warm-up ends even if code is still being compiled.
+     *
+     * @param maxDuration time limit
+     */
+    public void setMaxDuration(Duration maxDuration) {
+        if (maxDuration.isNegative()) {
+            throw new IllegalArgumentException("Maximum duration must not be negative: " + maxDuration);
+        }
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Returns whether the warm-up completed; poll it for readiness.
+     *
+     * @return true once the node is warm
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Runs the warm-up on the calling thread.
+     *
+     * @return duration and outcome of the warm-up
+     */
+    public WarmUpReport run() {
+        WarmUpEvent event = new WarmUpEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long compilationStart = compilationMillis.getAsLong();
+
+        for (String region : regions) {
+            controller.getAllProducts(region);
+            controller.getAllProductsIfModified(region, null);
+        }
+
+        long deadline = start + maxDuration.toNanos();
+        long compiled = compilationStart;
+        int rounds = 0;
+        int quietRounds = 0;
+        boolean settled = false;
+        while (true) {
+            round(rounds++);
+            long now = compilationMillis.getAsLong();
+            quietRounds = now == compiled ? quietRounds + 1 : 0;
+            compiled = now;
+            if (quietRounds >= stableRounds) {
+                settled = true;
+                break;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+
+        long compilation = compilationStart < 0 ? -1 : compiled - compilationStart;
+        WarmUpReport report = new WarmUpReport(regions.size(), rounds,
+                Duration.ofNanos(System.nanoTime() - start), compilation, settled);
+        ready = true;
+        if (event.shouldCommit()) {
+            event.complete(regions.size(), rounds, compilation, settled);
+        }
+        return report;
+    }
+
+    /**
+     * Runs the warm-up on a new daemon thread.
+     *
+     * @return completes with the report, or exceptionally if the warm-up failed; the node is not ready then
+     */
+    public CompletableFuture<WarmUpReport> start() {
+        CompletableFuture<WarmUpReport> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(run());
+            } catch (RuntimeException | Error ex) {
+                result.completeExceptionally(ex);
+            }
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Sends one round of requests; consecutive calls go to different regions and entry points.
+     */
+    private void round(int round) {
+        int targets = regions.size() + 1;
+        for (int i = 0; i < callsPerRound; i++) {
+            long call = (long) round * callsPerRound + i;
+            String region = call % targets == regions.size() ? UNKNOWN_REGION : regions.get((int) (call % targets));
+            switch ((int) (call / targets % OPERATIONS)) {
+                case 0:
+                    controller.getAllProducts(region);
+                    break;
+                case 1:
+                    controller.getAllProductsAsUtf8(region);
+                    break;
+                case 2:
+                    ConditionalResponse response = controller.getAllProductsIfModified(region, null);
+                    controller.getAllProductsIfModified(region, response.getEtag());
+                    break;
+                case 3:
+                    controller.getAllProducts(region, PAGE);
+                    break;
+                case 4:
+                    controller.getAllProducts(region, NAMES);
+                    break;
+                default:
+                    for (ResponseEncoding encoding : ENCODINGS) {
+                        controller.getAllProducts(region, encoding);
+                    }
+            }
+        }
+    }
+
+    private static LongSupplier compilationTime() {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        if (compilation == null || !compilation.isCompilationTimeMonitoringSupported()) {
+            return () -> -1;
+        }
+        return compilation::getTotalCompilationTime;
+    }
+}
@@ -0,0 +1,58 @@
+package bose.edu.junit.warmup;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a {@link WarmUp}.
+ */
+public class WarmUpReport {
+    private final int regions;
+    private final int rounds;
+    private final Duration duration;
+    private final long compilationMillis;
+    private final boolean settled;
+
+    WarmUpReport(int regions, int rounds, Duration duration, long compilationMillis, boolean settled) {
+        this.regions = regions;
+        this.rounds = rounds;
+        this.duration = duration;
+        this.compilationMillis = compilationMillis;
+        this.settled = settled;
+    }
+
+    public int getRegions() {
+        return regions;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return time from the start of the warm-up until the node was ready
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return time the JIT compilers spent during the warm-up, or -1 if the JVM does not report it
+     */
+    public long getCompilationMillis() {
+        return compilationMillis;
+    }
+
+    /**
+     * @return false if the warm-up stopped at its time limit while code was still being compiled
+     */
+    public boolean isSettled() {
+        return settled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Warm-up of %d regions took %d ms in %d rounds, %s, %s", regions, duration.toMillis(),
+                rounds, compilationMillis < 0 ? "compilation time unknown" : compilationMillis + " ms compiling",
+                settled ? "compilation settled" : "time limit reached");
+    }
+}
@@ -0,0 +1,78 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.catalog.CatalogAggregator;
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.catalog.RegionStats;
+import bose.edu.junit.valueobjects.GenericProduct;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog aggregation over ten million products with a growing number of fork-join workers,
+ * to check that the throughput scales with cores.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=AggregationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class AggregationBenchmark {
+    private static final String[] COLORS = {"silver", "space grey", "gold", "blue", "midnight", "starlight"};
+
+    @Param({"10000000"})
+    private int products;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private ProductStore store;
+    private ForkJoinPool pool;
+    private CatalogAggregator aggregator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < products; i++) {
+            builder.add(Integer.toString(i % 16), new GenericProduct("product " + (i % 10_000),
+                    (100 + random.nextInt(200_000)) + "$", ImmutableMap.of("color", COLORS[i % COLORS.length])));
+        }
+        store = builder.build();
+        pool = new ForkJoinPool(parallelism);
+        aggregator = new CatalogAggregator(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, RegionStats> regionStats() {
+        return aggregator.regionStats(store);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Long>> colorDistribution() {
+        return aggregator.subTypeDistribution(store, "color");
+    }
+}
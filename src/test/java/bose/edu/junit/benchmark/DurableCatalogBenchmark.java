@@ -0,0 +1,94 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.catalog.CatalogDelta;
+import bose.edu.junit.catalog.DurableCatalog;
+import bose.edu.junit.valueobjects.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Durable product mutations from many threads, one per batch and a hundred per batch; group commit lets
+ * concurrent batches share fsyncs. Scores are mutations per second.
+ * Point {@code java.io.tmpdir} at the disk under test.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=DurableCatalog}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class DurableCatalogBenchmark {
+    private static final int BATCH = 100;
+
+    private final AtomicLong names = new AtomicLong();
+
+    /**
+     * Every batch copies the regions it touches, so few large regions measure the catalog and many
+     * small ones the log.
+     */
+    @Param({"16", "65536"})
+    private int regions;
+
+    private Path directory;
+    private DurableCatalog catalog;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("catalog-benchmark");
+        catalog = DurableCatalog.open(directory, 64L * 1024 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        catalog.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long addBatch() {
+        List<CatalogDelta> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            long id = names.incrementAndGet();
+            batch.add(CatalogDelta.add(Long.toString(id % regions), new Product("product " + id, "1$")));
+        }
+        return catalog.apply(batch);
+    }
+
+    @Benchmark
+    public long add() {
+        long id = names.incrementAndGet();
+        return catalog.apply(Collections.singletonList(
+                CatalogDelta.add(Long.toString(id % regions), new Product("product " + id, "1$"))));
+    }
+}
@@ -0,0 +1,168 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.http.ProductHttpServer;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Service;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@link ProductHttpServer} over loopback: every benchmark thread is a client on its own
+ * kept alive connection, sending one request at a time or a pipelined burst.
+ * The throughput mode reports requests per millisecond, the sample mode the latency percentiles (p0.99)
+ * per request; a pipelined burst counts as {@value #PIPELINE} requests.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=HttpServer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class HttpServerBenchmark {
+    private static final int PIPELINE = 16;
+
+    /**
+     * Products in the requested region; the body is about 40 bytes per product.
+     */
+    @Param({"3", "1000"})
+    private int products;
+
+    private ProductHttpServer server;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < products; i++) {
+            builder.add("1", new Product("product " + i, i + "$"));
+        }
+        Controller controller = new Controller(new Service(builder.build()), new Logger());
+        server = ProductHttpServer.start(controller, new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public int request(Client client) throws IOException {
+        client.send(1);
+        return client.receive(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public int pipelined(Client client) throws IOException {
+        client.send(PIPELINE);
+        return client.receive(PIPELINE);
+    }
+
+    /**
+     * Blocking client on one kept alive connection.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private static final byte[] REQUEST = "GET /products?region=1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        private final ByteBuffer requests = ByteBuffer.allocate(REQUEST.length * PIPELINE);
+        private final ByteBuffer in = ByteBuffer.allocate(256 * 1024);
+        private SocketChannel channel;
+
+        @Setup(Level.Trial)
+        public void connect(HttpServerBenchmark benchmark) throws IOException {
+            channel = SocketChannel.open(benchmark.server.getAddress());
+            channel.socket().setTcpNoDelay(true);
+            for (int i = 0; i < PIPELINE; i++) {
+                requests.put(REQUEST);
+            }
+            in.flip();
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException {
+            channel.close();
+        }
+
+        private void send(int count) throws IOException {
+            requests.limit(REQUEST.length * count).position(0);
+            while (requests.hasRemaining()) {
+                channel.write(requests);
+            }
+        }
+
+        /**
+         * Reads responses and returns the total body length.
+         */
+        private int receive(int count) throws IOException {
+            int bodies = 0;
+            for (int i = 0; i < count; i++) {
+                int headEnd;
+                while ((headEnd = headEnd()) < 0) {
+                    fill();
+                }
+                int length = contentLength(headEnd);
+                in.position(headEnd + 4);
+                while (in.remaining() < length) {
+                    fill();
+                }
+                in.position(in.position() + length);
+                bodies += length;
+            }
+            return bodies;
+        }
+
+        /**
+         * Reads more bytes behind the unread ones; the buffer is in read mode before and after.
+         */
+        private void fill() throws IOException {
+            in.compact();
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            in.flip();
+        }
+
+        private int headEnd() {
+            byte[] bytes = in.array();
+            for (int i = in.position(); i + 3 < in.limit(); i++) {
+                if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int contentLength(int headEnd) {
+            String head = new String(in.array(), in.position(), headEnd - in.position(), StandardCharsets.ISO_8859_1);
+            int at = head.indexOf("Content-Length: ") + "Content-Length: ".length();
+            int end = head.indexOf('\r', at);
+            return Integer.parseInt(head.substring(at, end < 0 ? head.length() : end));
+        }
+    }
+}
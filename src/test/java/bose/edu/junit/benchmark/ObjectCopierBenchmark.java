@@ -0,0 +1,84 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.util.ObjectCopier;
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deep copies of catalogs with {@link ObjectCopier} next to the hand written copy of the same graph.
+ * A response of immutable products is a snapshot of the list and the list built from it; generic products
+ * need a new product and sub type map each. Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=ObjectCopier}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectCopierBenchmark {
+    @Param({"1000", "100000"})
+    private int products;
+
+    private Response response;
+    private List<GenericProduct> genericProducts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Product> list = new ArrayList<>(products);
+        genericProducts = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            list.add(new Product("product " + i, i + "$"));
+            Map<String, String> subTypes = new LinkedHashMap<>();
+            subTypes.put("size", String.valueOf(i % 4));
+            subTypes.put("color", String.valueOf(i % 3));
+            genericProducts.add(new GenericProduct("product " + i, i + "$", subTypes));
+        }
+        response = new Response("200", "Products", list);
+    }
+
+    @Benchmark
+    public Response copyResponse() {
+        return ObjectCopier.deepCopy(response);
+    }
+
+    @Benchmark
+    public Response handCopyResponse() {
+        return new Response(response.getStatus(), response.getMessage(), new ArrayList<>(response.getProducts()),
+                response.getNextPageToken());
+    }
+
+    @Benchmark
+    public List<GenericProduct> copyGenericProducts() {
+        return ObjectCopier.deepCopy(genericProducts);
+    }
+
+    @Benchmark
+    public List<GenericProduct> handCopyGenericProducts() {
+        List<GenericProduct> copy = new ArrayList<>(genericProducts.size());
+        for (GenericProduct product : genericProducts) {
+            Map<String, String> subTypes = product.getSubTypes();
+            copy.add(new GenericProduct(product.getName(), product.getPrice(),
+                    subTypes == null ? null : new LinkedHashMap<>(subTypes)));
+        }
+        return copy;
+    }
+}
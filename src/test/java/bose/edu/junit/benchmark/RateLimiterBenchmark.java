@@ -0,0 +1,89 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.valueobjects.RateLimit;
+import bose.edu.junit.valueobjects.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one admission decision: admitted requests spread over many callers and regions, admitted
+ * requests of all threads on one hot region and caller, and rejected requests, next to the clock read
+ * every decision includes. Scores are per thread, so run with {@code -t 1} on machines with few cores.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=RateLimiter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+    private static final int KEYS = 1024;
+
+    private final String[] regions = new String[KEYS];
+    private final String[] callers = new String[KEYS];
+    private RateLimiter open;
+    private RateLimiter exhausted;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < KEYS; i++) {
+            regions[i] = "region-" + i;
+            callers[i] = "caller-" + i;
+        }
+        RateLimit unreachable = new RateLimit(1e12, 1_000_000);
+        open = new RateLimiter(unreachable, unreachable);
+        exhausted = new RateLimiter(new RateLimit(1e-6, 1), new RateLimit(1e-6, 1));
+        exhausted.tryAcquire("caller-0", "region-0");
+    }
+
+    /**
+     * Every decision reads the clock once; this is that share of the cost.
+     */
+    @Benchmark
+    public long clock() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public boolean admittedSpread(Cursor cursor) {
+        int i = cursor.next();
+        return open.tryAcquire(callers[i], regions[i]);
+    }
+
+    @Benchmark
+    public boolean admittedHot() {
+        return open.tryAcquire(callers[0], regions[0]);
+    }
+
+    @Benchmark
+    public boolean rejected() {
+        return exhausted.tryAcquire(callers[0], regions[0]);
+    }
+
+    /**
+     * Walks the keys so lookups are not always the same map entry.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        private int next() {
+            index = (index + 1) & (KEYS - 1);
+            return index;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hot region requested by many threads at once, with and without request coalescing.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=RequestCoalescing}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class RequestCoalescingBenchmark {
+    private Controller controller;
+    private Service service;
+    private final Gson gson = new Gson();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < 2000; i++) {
+            builder.add("1", new Product("product " + i, i + "$"));
+        }
+        service = new Service(builder.build());
+        controller = new Controller(service, new Logger());
+    }
+
+    @Benchmark
+    public String coalesced() {
+        return controller.getAllProducts("1");
+    }
+
+    @Benchmark
+    public String independent() {
+        return gson.toJson(service.getAllProducts("1"), Response.class);
+    }
+}
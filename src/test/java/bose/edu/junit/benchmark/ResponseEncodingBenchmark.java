@@ -0,0 +1,67 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.serialization.BufferPool;
+import bose.edu.junit.serialization.PooledBuffer;
+import bose.edu.junit.serialization.ResponseEncoding;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode cost per wire format. The encoded size of each format is printed during setup.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=ResponseEncoding}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+    @Param({"JSON", "GZIP_JSON", "DEFLATE_JSON", "BINARY"})
+    private ResponseEncoding encoding;
+
+    @Param({"1000"})
+    private int products;
+
+    private Response response;
+    private BufferPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < products; i++) {
+            builder.add("1", new Product("product " + i, (i % 500) + ".99$"));
+        }
+        response = new Service(builder.build()).getAllProducts("1");
+        pool = new BufferPool(16, 1024 * 1024);
+        System.out.printf("%n%s: %d bytes on the wire for %d products%n", encoding, encode(), products);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        PooledBuffer buffer = pool.acquire();
+        try {
+            encoding.getEncoder().encode(response, buffer);
+            return buffer.size();
+        } finally {
+            pool.release(buffer);
+        }
+    }
+}
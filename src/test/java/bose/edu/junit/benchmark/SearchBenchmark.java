@@ -0,0 +1,72 @@
+package bose.edu.junit.benchmark;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.search.ProductSearchIndex;
+import bose.edu.junit.search.SearchHit;
+import bose.edu.junit.valueobjects.GenericProduct;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead latency on a catalog of a million products. Use {@code -prof gc} or the sample mode
+ * percentiles ({@code -bm sample}) to check the p99.
+ * Run with {@code mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=SearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+    private static final String[] WORDS = {"ipad", "iphone", "mac", "book", "pro", "air", "mini", "max",
+        "watch", "ultra", "studio", "display", "keyboard", "mouse", "pencil", "case", "charger", "cable"};
+    private static final String[] COLORS = {"silver", "space grey", "gold", "blue", "midnight", "starlight"};
+
+    @Param({"1000000"})
+    private int products;
+
+    @Param({"i", "iph", "mac b", "pro max s"})
+    private String query;
+
+    private ProductSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < products; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + Integer.toString(i, 36);
+            builder.add(Integer.toString(i % 16), new GenericProduct(name, "1$",
+                    ImmutableMap.of("color", COLORS[random.nextInt(COLORS.length)])));
+        }
+        index = new ProductSearchIndex(builder.build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.close();
+    }
+
+    @Benchmark
+    public List<SearchHit> typeahead() {
+        return index.typeahead(query, 10);
+    }
+}
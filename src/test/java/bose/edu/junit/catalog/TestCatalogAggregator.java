@@ -0,0 +1,119 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Unit test for CatalogAggregator")
+public class TestCatalogAggregator {
+    private ForkJoinPool pool;
+    private ProductStore store;
+
+    @BeforeEach
+    public void init() {
+        pool = new ForkJoinPool(4);
+        store = ProductStore.builder()
+                .add("1", new GenericProduct("iphone", "700$", ImmutableMap.of("color", "silver")))
+                .add("1", new GenericProduct("ipad", "1000$", ImmutableMap.of("color", "grey")))
+                .add("1", new GenericProduct("mac", "2000.50$", ImmutableMap.of("color", "silver")))
+                .add("1", new Product("gift card", "ask"))
+                .addRegion("2")
+                .add("3", new GenericProduct("watch", "$399", ImmutableMap.of("band", "sport")))
+                .build();
+    }
+
+    @AfterEach
+    public void close() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Region statistics skip unpriced products")
+    public void testRegionStats() {
+        Map<String, RegionStats> stats = new CatalogAggregator(pool).regionStats(store);
+        assertThat(stats.keySet(), contains("1", "2", "3"));
+
+        RegionStats first = stats.get("1");
+        assertThat(first.getProductCount(), is(4L));
+        assertThat(first.getPricedCount(), is(3L));
+        assertThat(first.getMinPrice(), is(70000L));
+        assertThat(first.getMaxPrice(), is(200050L));
+        assertThat(first.getAveragePrice(), closeTo(370050 / 3.0, 1e-9));
+
+        assertThat("Empty region", stats.get("2").getProductCount(), is(0L));
+        assertThat("Empty region", stats.get("2").getMinPrice(), is(Prices.UNPRICED));
+        assertThat("Empty region", Double.isNaN(stats.get("2").getAveragePrice()), is(true));
+        assertThat(stats.get("3").getMaxPrice(), is(39900L));
+    }
+
+    @Test
+    @DisplayName("Splitting rows across tasks gives the same result")
+    public void testSplitRanges() {
+        Map<String, RegionStats> single = new CatalogAggregator(pool).regionStats(store);
+        Map<String, RegionStats> split = new CatalogAggregator(pool, 1).regionStats(store);
+        for (String region : single.keySet()) {
+            assertThat(split.get(region).toString(), is(single.get(region).toString()));
+        }
+        assertThat(new CatalogAggregator(pool, 1).subTypeDistribution(store, "color").get("1"),
+                is(ImmutableMap.of("silver", 2L, "grey", 1L)));
+    }
+
+    @Test
+    @DisplayName("Sub type distribution counts values per region, any catalog layout")
+    public void testSubTypeDistribution() {
+        Map<String, Map<String, Long>> distribution =
+                new CatalogAggregator(pool).subTypeDistribution(new VersionedCatalog(store), "color");
+        assertThat(distribution.get("1"), is(ImmutableMap.of("silver", 2L, "grey", 1L)));
+        assertThat(distribution.get("2").isEmpty(), is(true));
+        assertThat(distribution.get("3").isEmpty(), is(true));
+    }
+
+    @Test
+    @DisplayName("Region statistics of other catalog layouts match the columnar ones")
+    public void testOtherLayouts() {
+        Map<String, RegionStats> columnar = new CatalogAggregator(pool).regionStats(store);
+        Map<String, RegionStats> versioned = new CatalogAggregator(pool).regionStats(new VersionedCatalog(store));
+        assertThat(versioned.keySet(), contains("1", "2", "3"));
+        for (String region : columnar.keySet()) {
+            assertThat(versioned.get(region).toString(), is(columnar.get(region).toString()));
+        }
+    }
+
+    @Test
+    @DisplayName("Small ranges over many regions only accumulate the regions they hold")
+    public void testManyRegions() {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int region = 0; region < 20000; region++) {
+            for (int product = 0; product < region % 3; product++) {
+                builder.add(String.valueOf(region), new GenericProduct("p" + product, (product + 1) + "$",
+                        ImmutableMap.of("color", product == 0 ? "silver" : "grey")));
+            }
+            if (region % 3 == 0) {
+                builder.addRegion(String.valueOf(region));
+            }
+        }
+        ProductStore many = builder.build();
+
+        Map<String, RegionStats> stats = new CatalogAggregator(pool, 2).regionStats(many);
+        assertThat(stats.size(), is(20000));
+        assertThat("Empty", stats.get("3").getProductCount(), is(0L));
+        assertThat("One", stats.get("19999").getProductCount(), is(1L));
+        assertThat("Two", stats.get("19997").getProductCount(), is(2L));
+        assertThat("Two", stats.get("19997").getMaxPrice(), is(200L));
+
+        Map<String, Map<String, Long>> distribution = new CatalogAggregator(pool, 3).subTypeDistribution(many, "color");
+        assertThat(distribution.get("19997"), is(ImmutableMap.of("silver", 1L, "grey", 1L)));
+        assertThat(distribution.get("19998").isEmpty(), is(true));
+        assertThat(distribution.get("1"), is(ImmutableMap.of("silver", 1L)));
+    }
+}
@@ -0,0 +1,95 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for CatalogSnapshot")
+public class TestCatalogSnapshot {
+    private Path file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        file = Files.createTempFile("catalog", ".snapshot");
+        ProductStore store = ProductStore.builder()
+                .add("1", new Product("ipad", "1000$"))
+                .add("1", new GenericProduct("iphone", "700$",
+                        ImmutableMap.of("color", "silver", "storage", "256GB")))
+                .add("2", new Product("café 😀", null))
+                .addRegion("3")
+                .build();
+        CatalogSnapshot.write(store, 42, file);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Snapshot round trip")
+    public void testRoundTrip() throws IOException {
+        MappedCatalog catalog = CatalogSnapshot.open(file);
+        assertThat("Version", catalog.getVersion(), is(42L));
+        assertThat("Regions", catalog.getRegions(), contains("1", "2", "3"));
+
+        List<GenericProduct> products = catalog.getGenericProducts("1");
+        assertThat("Region size", products, hasSize(2));
+        assertThat("Name", products.get(1).getName(), is("iphone"));
+        assertThat("Price", products.get(1).getPrice(), is("700$"));
+        assertThat("Sub types", products.get(1).getSubTypes(), allOf(
+                hasEntry("color", "silver"), hasEntry("storage", "256GB")));
+        assertThat("No sub types", products.get(0).getSubTypes(), nullValue());
+
+        Product product = catalog.getProducts("2").get(0);
+        assertThat("Unicode name", product.getName(), is("café 😀"));
+        assertThat("Null price", product.getPrice(), nullValue());
+        assertThat("Empty region", catalog.getProducts("3"), is(empty()));
+        assertThat("Unknown region", catalog.getProducts("4"), nullValue());
+    }
+
+    @Test
+    @DisplayName("Service serves from the mapped snapshot")
+    public void testService() throws IOException {
+        Response response = new Service(CatalogSnapshot.open(file)).getAllProducts("1");
+        assertThat("Status", response.getStatus(), is("200"));
+        assertThat("Products", response.getProducts(), hasSize(2));
+    }
+
+    @Test
+    @DisplayName("Snapshots with many regions are sliced from one mapping")
+    public void testManyRegions() throws IOException {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < 100_000; i++) {
+            builder.add("region " + i, new Product("product " + i, i + "$"));
+        }
+        CatalogSnapshot.write(builder.build(), 1, file);
+
+        MappedCatalog catalog = CatalogSnapshot.open(file);
+        assertThat("Regions", catalog.getRegions(), hasSize(100_000));
+        assertThat("First", catalog.getProducts("region 0").get(0).getName(), is("product 0"));
+        assertThat("Last", catalog.getProducts("region 99999").get(0).getPrice(), is("99999$"));
+    }
+
+    @Test
+    @DisplayName("Rejects files which are not snapshots")
+    public void testNotASnapshot() throws IOException {
+        Files.write(file, new byte[16]);
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(file));
+    }
+}
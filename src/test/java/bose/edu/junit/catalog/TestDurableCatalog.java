@@ -0,0 +1,244 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for DurableCatalog")
+public class TestDurableCatalog {
+    private Path directory;
+
+    @BeforeEach
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("catalog");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Batches are recovered after a restart")
+    public void testRecovery() throws IOException {
+        try (DurableCatalog catalog = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            catalog.apply(Arrays.asList(
+                    CatalogDelta.add("1", new Product("ipad", "1000$")),
+                    CatalogDelta.add("1", new GenericProduct("iphone", "700$", ImmutableMap.of("color", "silver")))));
+            catalog.apply(Collections.singletonList(CatalogDelta.update("1", new Product("ipad", "900$"))));
+            catalog.apply(Collections.singletonList(CatalogDelta.add("2", new Product("mac", "2000$"))));
+            catalog.apply(Collections.singletonList(CatalogDelta.remove("2", "mac")));
+            assertThrows(IllegalArgumentException.class, () -> catalog.apply(Collections.singletonList(
+                    CatalogDelta.remove("1", "missing"))));
+        }
+
+        try (DurableCatalog recovered = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            assertThat("Version", recovered.getVersion(), is(4L));
+            assertThat("Updated price", recovered.getProducts("1").get(0).getPrice(), is("900$"));
+            assertThat("Sub types", recovered.getGenericProducts("1").get(1).getSubTypes(),
+                    is(ImmutableMap.of("color", "silver")));
+            assertThat("Removed", recovered.getProducts("2"), is(empty()));
+            assertThat("Next version", recovered.apply(Collections.singletonList(
+                    CatalogDelta.add("3", new Product("watch", "399$")))), is(5L));
+        }
+        try (DurableCatalog recovered = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            assertThat(recovered.getRegions(), containsInAnyOrder("1", "2", "3"));
+        }
+    }
+
+    @Test
+    @DisplayName("A torn record at the end of the log is cut off")
+    public void testTornWrite() throws IOException {
+        try (DurableCatalog catalog = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("ipad", "1000$"))));
+        }
+        Path segment = segments().get(0);
+        long valid = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DurableCatalog recovered = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            assertThat(recovered.getVersion(), is(1L));
+            assertThat(Files.size(segment), is(valid));
+            recovered.apply(Collections.singletonList(CatalogDelta.add("1", new Product("iphone", "700$"))));
+        }
+        try (DurableCatalog recovered = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            assertThat(recovered.getProducts("1"), hasSize(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction replaces covered log segments with a snapshot")
+    public void testCompaction() throws IOException {
+        try (DurableCatalog catalog = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("ipad", "1000$"))));
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("iphone", "700$"))));
+            catalog.compact();
+            assertThat("Snapshot", Files.exists(directory.resolve(DurableCatalog.SNAPSHOT)), is(true));
+            assertThat("Only the new segment", segments(), hasSize(1));
+            catalog.apply(Collections.singletonList(CatalogDelta.remove("1", "ipad")));
+        }
+        try (DurableCatalog recovered = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            assertThat(recovered.getVersion(), is(3L));
+            assertThat(recovered.getProducts("1"), contains(hasProperty("name", is("iphone"))));
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent writers share fsyncs and are all recovered")
+    public void testConcurrentWriters() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try (DurableCatalog catalog = DurableCatalog.open(directory, 4096)) {
+            Future<?>[] futures = new Future<?>[8];
+            for (int w = 0; w < futures.length; w++) {
+                String region = Integer.toString(w);
+                futures[w] = writers.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        catalog.apply(Collections.singletonList(CatalogDelta.add(region, new Product("p" + i, i + "$"))));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+        try (DurableCatalog recovered = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            assertThat(recovered.getVersion(), is(800L));
+            for (int w = 0; w < 8; w++) {
+                assertThat(recovered.getProducts(Integer.toString(w)), hasSize(100));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Batches are published only once the log holds them")
+    public void testPublishedAfterLogged() throws IOException {
+        try (DurableCatalog catalog = DurableCatalog.open(directory, Long.MAX_VALUE)) {
+            List<Long> logged = new ArrayList<>();
+            catalog.addListener((version, regions) -> {
+                try {
+                    for (Path segment : segments()) {
+                        CatalogLog.replay(segment, (sequence, batch) -> logged.add(sequence));
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("ipad", "1000$"))));
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("iphone", "700$"))));
+            assertThat("Logged before each notification", logged, contains(1L, 1L, 2L));
+        }
+    }
+
+    @Test
+    @DisplayName("A batch the log fails to write is not published")
+    public void testFailedWrite() throws IOException {
+        DurableCatalog catalog = DurableCatalog.open(directory, Long.MAX_VALUE);
+        catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("ipad", "1000$"))));
+        List<Long> notified = new ArrayList<>();
+        catalog.addListener((version, regions) -> notified.add(version));
+        catalog.close();
+
+        assertThrows(UncheckedIOException.class, () -> catalog.apply(Collections.singletonList(
+                CatalogDelta.update("1", new Product("ipad", "900$")))));
+        assertThat("Version", catalog.getVersion(), is(1L));
+        assertThat("Price", catalog.getProducts("1").get(0).getPrice(), is("1000$"));
+        assertThat("Not notified", notified, is(empty()));
+    }
+
+    @Test
+    @DisplayName("Failed background compactions are counted")
+    public void testCompactionFailure() throws Exception {
+        try (DurableCatalog catalog = DurableCatalog.open(directory, 1)) {
+            /* the snapshot is written through this temporary file first */
+            Files.createDirectory(directory.resolve(DurableCatalog.SNAPSHOT + ".tmp"));
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("ipad", "1000$"))));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (catalog.getCompactionFailures() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat("Counted", catalog.getCompactionFailures(), is(1L));
+            assertThat("Error", catalog.getLastCompactionFailure(), notNullValue());
+            assertThat("Still usable", catalog.apply(Collections.singletonList(
+                    CatalogDelta.add("1", new Product("iphone", "700$")))), is(2L));
+        }
+    }
+
+    @Test
+    @DisplayName("Covered segments are deleted only after the snapshot is forced, moved and its directory forced")
+    public void testCompactionOrder() throws IOException {
+        List<String> operations = new ArrayList<>();
+        Storage recording = new Storage() {
+            @Override
+            void force(FileChannel channel) throws IOException {
+                operations.add("force");
+                super.force(channel);
+            }
+
+            @Override
+            void move(Path source, Path target) throws IOException {
+                operations.add("move " + target.getFileName());
+                super.move(source, target);
+            }
+
+            @Override
+            void syncDirectory(Path directory) throws IOException {
+                operations.add("sync directory");
+                super.syncDirectory(directory);
+            }
+
+            @Override
+            void delete(Path file) throws IOException {
+                operations.add("delete " + file.getFileName());
+                super.delete(file);
+            }
+        };
+        try (DurableCatalog catalog = DurableCatalog.open(directory, Long.MAX_VALUE, recording)) {
+            assertThat("New segment forced into the directory", operations, contains("sync directory"));
+            catalog.apply(Collections.singletonList(CatalogDelta.add("1", new Product("ipad", "1000$"))));
+            operations.clear();
+
+            catalog.compact();
+            assertThat(operations, contains("sync directory", "force", "move " + DurableCatalog.SNAPSHOT,
+                    "sync directory", "delete catalog-00000000000000000001.wal"));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal")).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Unit test for PartitionedCatalog")
+public class TestPartitionedCatalog {
+    private static final int REGIONS = 400;
+
+    private PartitionedCatalog objUnderTest;
+
+    @BeforeEach
+    public void init() {
+        objUnderTest = new PartitionedCatalog(128);
+        for (String shard : new String[]{"a", "b", "c"}) {
+            objUnderTest.addShard(shard, new VersionedCatalog());
+        }
+        List<CatalogDelta> batch = new ArrayList<>();
+        for (int region = 0; region < REGIONS; region++) {
+            batch.add(CatalogDelta.add("r" + region, new Product("product " + region, region + "$")));
+        }
+        objUnderTest.apply(batch);
+    }
+
+    @Test
+    @DisplayName("Reads are routed to the owning shard")
+    public void testRouting() {
+        Service service = new Service(objUnderTest);
+        Response response = service.getAllProducts("r7");
+        assertThat(response.getStatus(), is("200"));
+        assertThat(response.getProducts(), contains(hasProperty("name", is("product 7"))));
+        assertThat(service.getAllProducts("unknown").getStatus(), is("400"));
+        assertThat(objUnderTest.getRegions(), hasSize(REGIONS));
+
+        Map<String, ShardStats> stats = objUnderTest.getShardStats();
+        assertThat(stats.keySet(), containsInAnyOrder("a", "b", "c"));
+        assertThat("Lookups counted on the owner", stats.get(objUnderTest.shardFor("r7")).getLookups(),
+                greaterThanOrEqualTo(1L));
+        assertThat(stats.values().stream().mapToInt(ShardStats::getRegions).sum(), is(REGIONS));
+        for (ShardStats shard : stats.values()) {
+            assertThat(shard.toString(), shard.getOwnership(), closeTo(1 / 3.0, 0.1));
+            assertThat(shard.toString(), shard.getProducts(), is((long) shard.getRegions()));
+        }
+    }
+
+    @Test
+    @DisplayName("Adding and removing a shard moves only the regions whose owner changes")
+    public void testRebalance() {
+        Map<String, String> before = owners();
+        Map<String, Long> versions = versions();
+
+        Set<String> moved = objUnderTest.addShard("d", new VersionedCatalog());
+        Map<String, String> after = owners();
+        Map<String, Long> versionsAfter = versions();
+        for (String region : before.keySet()) {
+            boolean changed = !before.get(region).equals(after.get(region));
+            assertThat(region, changed, is(moved.contains(region)));
+            assertThat("Moves only go to the new shard", !changed || after.get(region).equals("d"), is(true));
+            assertThat("Only moved regions get a new version", versionsAfter.get(region),
+                    changed ? greaterThan(versions.get(region)) : is(versions.get(region)));
+        }
+        assertThat("About a quarter moved", (double) moved.size() / REGIONS, closeTo(0.25, 0.1));
+        assertAllRegionsReadable();
+
+        Set<String> removed = objUnderTest.removeShard("b");
+        for (Map.Entry<String, String> owner : owners().entrySet()) {
+            assertThat(owner.getKey(), removed.contains(owner.getKey()), is(after.get(owner.getKey()).equals("b")));
+        }
+        assertThat(objUnderTest.getShardStats().keySet(), containsInAnyOrder("a", "c", "d"));
+        assertAllRegionsReadable();
+        for (Map.Entry<String, Long> version : versions().entrySet()) {
+            assertThat("Versions never go back", version.getValue(),
+                    greaterThanOrEqualTo(versionsAfter.get(version.getKey())));
+        }
+    }
+
+    @Test
+    @DisplayName("Empty regions move too, and listeners hear of moves and changes")
+    public void testEmptyRegionsAndListeners() {
+        objUnderTest.apply(Collections.singletonList(CatalogDelta.add("empty", new Product("x", "1$"))));
+        objUnderTest.apply(Collections.singletonList(CatalogDelta.remove("empty", "x")));
+        List<Set<String>> notified = new ArrayList<>();
+        objUnderTest.addListener((version, regions) -> notified.add(regions));
+
+        String owner = objUnderTest.shardFor("empty");
+        Set<String> moved = objUnderTest.removeShard(owner);
+        assertThat(moved, hasItem("empty"));
+        assertThat("Still supported", objUnderTest.getProducts("empty"), is(empty()));
+        assertThat("Listed", objUnderTest.getRegions(), hasItem("empty"));
+        assertThat("Moves notified", notified, contains(is(moved)));
+
+        objUnderTest.apply(Collections.singletonList(CatalogDelta.add("empty", new Product("y", "2$"))));
+        assertThat("Changes notified", notified.get(1), contains(equalTo("empty")));
+    }
+
+    @Test
+    @DisplayName("Version reads are not counted as lookups")
+    public void testVersionReadsNotCounted() {
+        String owner = objUnderTest.shardFor("r7");
+        long lookups = objUnderTest.getShardStats().get(owner).getLookups();
+        objUnderTest.getRegionVersion("r7");
+        assertThat(objUnderTest.getShardStats().get(owner).getLookups(), is(lookups));
+        objUnderTest.getProducts("r7");
+        assertThat(objUnderTest.getShardStats().get(owner).getLookups(), is(lookups + 1));
+    }
+
+    @Test
+    @DisplayName("A read routed to the old owner of a region dropped meanwhile reads the new owner")
+    public void testReadDuringRebalance() {
+        PartitionedCatalog catalog = new PartitionedCatalog(128);
+        AtomicBoolean rebalanceOnRead = new AtomicBoolean();
+        catalog.addShard("a", new VersionedCatalog() {
+            @Override
+            public List<Product> getProducts(String region) {
+                if (rebalanceOnRead.getAndSet(false)) {
+                    /* the reader was routed here, now the region moves before it reads */
+                    catalog.addShard("b", new VersionedCatalog());
+                }
+                return super.getProducts(region);
+            }
+        });
+        String region = null;
+        HashRing next = new HashRing(128).withNode("a").withNode("b");
+        for (int i = 0; region == null; i++) {
+            if ("b".equals(next.nodeFor("r" + i))) {
+                region = "r" + i;
+            }
+        }
+        catalog.apply(Collections.singletonList(CatalogDelta.add(region, new Product("ipad", "1000$"))));
+
+        rebalanceOnRead.set(true);
+        assertThat(catalog.getProducts(region), contains(hasProperty("name", is("ipad"))));
+        assertThat("Moved", catalog.shardFor(region), is("b"));
+    }
+
+    @Test
+    @DisplayName("Removing a region drops its version offset")
+    public void testRemoveRegion() {
+        Set<String> moved = objUnderTest.addShard("d", new VersionedCatalog());
+        assertThat(objUnderTest.versionOffsetCount(), is(moved.size()));
+        String region = moved.iterator().next();
+        List<Set<String>> notified = new ArrayList<>();
+        objUnderTest.addListener((version, regions) -> notified.add(regions));
+
+        assertThat(objUnderTest.removeRegion(region), is(true));
+        assertThat(objUnderTest.getRegionVersion(region), is(-1L));
+        assertThat(objUnderTest.getProducts(region), nullValue());
+        assertThat(objUnderTest.versionOffsetCount(), is(moved.size() - 1));
+        assertThat(notified, contains(equalTo(Collections.singleton(region))));
+        assertThat(objUnderTest.removeRegion(region), is(false));
+    }
+
+    private Map<String, Long> versions() {
+        Map<String, Long> versions = new HashMap<>();
+        for (int region = 0; region < REGIONS; region++) {
+            versions.put("r" + region, objUnderTest.getRegionVersion("r" + region));
+        }
+        return versions;
+    }
+
+    private Map<String, String> owners() {
+        Map<String, String> owners = new HashMap<>();
+        for (int region = 0; region < REGIONS; region++) {
+            owners.put("r" + region, objUnderTest.shardFor("r" + region));
+        }
+        return owners;
+    }
+
+    private void assertAllRegionsReadable() {
+        assertThat(objUnderTest.getRegions(), hasSize(REGIONS));
+        for (int region = 0; region < REGIONS; region++) {
+            assertThat(objUnderTest.getProducts("r" + region), contains(hasProperty("price", is(region + "$"))));
+        }
+    }
+}
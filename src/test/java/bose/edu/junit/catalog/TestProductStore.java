@@ -0,0 +1,152 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for ProductStore")
+public class TestProductStore {
+    private ProductStore store;
+
+    @BeforeEach
+    public void init() {
+        store = ProductStore.builder()
+                .add("1", new Product("ipad", "1000$"))
+                .add("2", new GenericProduct("iphone", "700$", ImmutableMap.of("color", "silver")))
+                .add("1", new Product("iphone", "699.99$"))
+                .add("1", new Product("mac book pro", "2000$"))
+                .addRegion("3")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Products are grouped by region in insertion order")
+    public void testGetProducts() {
+        List<Product> products = store.getProducts("1");
+        assertThat("Region size", products, hasSize(3));
+        assertThat("Names", products.get(1).getName(), is("iphone"));
+        assertThat("Price", products.get(1).getPrice(), is("699.99$"));
+        assertThat("Empty region", store.getProducts("3"), is(empty()));
+        assertThat("Unknown region", store.getProducts("4"), nullValue());
+        assertThat("Regions", store.getRegions(), contains("1", "2", "3"));
+        assertThat("Rows", store.size(), is(4));
+    }
+
+    @Test
+    @DisplayName("Views are read only")
+    public void testReadOnlyView() {
+        List<Product> products = store.getProducts("1");
+        assertThrows(UnsupportedOperationException.class, () -> products.add(new Product("x", "1$")));
+        assertThrows(IndexOutOfBoundsException.class, () -> products.get(3));
+    }
+
+    @Test
+    @DisplayName("Generic products keep their sub types")
+    public void testGetGenericProducts() {
+        List<GenericProduct> products = store.getGenericProducts("2");
+        assertThat("Region size", products, hasSize(1));
+        assertThat("Sub types", products.get(0).getSubTypes(), hasEntry("color", "silver"));
+        assertThat("Plain product", store.getGenericProducts("1").get(0).getSubTypes(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Price range scan")
+    public void testFindByPriceRange() {
+        int[] rows = store.findByPriceRange(69999, 100000);
+        assertThat("Rows found", rows.length, is(3));
+        assertThat("Region", store.getRegion(rows[0]), is("1"));
+        assertThat("Region scan", store.findByPriceRange("1", 69999, 100000).length, is(2));
+        assertThat("Minor units", store.getPriceMinorUnits(rows[1]), is(69999L));
+        assertThat("Unknown region", store.findByPriceRange("4", 0, Long.MAX_VALUE).length, is(0));
+    }
+
+    @Test
+    @DisplayName("Name prefix scan")
+    public void testFindByNamePrefix() {
+        int[] rows = store.findByNamePrefix("ip");
+        assertThat("Rows found", rows.length, is(3));
+        assertThat("Region scan", store.findByNamePrefix("2", "ip").length, is(1));
+        assertThat("Product", store.getProduct(store.findByNamePrefix("mac")[0]).getName(), is("mac book pro"));
+    }
+
+    @Test
+    @DisplayName("Copy of another catalog")
+    public void testCopyOf() {
+        ProductStore copy = ProductStore.copyOf(store);
+        assertThat("Regions", copy.getRegions(), contains("1", "2", "3"));
+        assertThat("Rows", copy.size(), is(4));
+    }
+
+    @Test
+    @DisplayName("Display prices to minor units")
+    public void testPrices() {
+        assertThat(Prices.toMinorUnits("1000$"), is(100000L));
+        assertThat(Prices.toMinorUnits("$1,299.9"), is(129990L));
+        assertThat(Prices.toMinorUnits("0.015"), is(1L));
+        assertThat(Prices.toMinorUnits("free"), is(Prices.UNPRICED));
+        assertThat(Prices.toMinorUnits(null), is(Prices.UNPRICED));
+
+        byte[] utf8 = "[1.299,5€]".getBytes(StandardCharsets.UTF_8);
+        assertThat("Bytes", Prices.toMinorUnits(utf8, 1, utf8.length - 1), is(Prices.toMinorUnits("1.299,5€")));
+        assertThat("Byte range", Prices.toMinorUnits(utf8, 0, 3), is(100L));
+    }
+
+    @Test
+    @DisplayName("Price order slices match the bounded heap of the default implementation")
+    public void testProductsByPrice() {
+        assertThat("Cheapest", names(store.getProductsByPrice("1", 0, 2)), contains("iphone", "ipad"));
+        assertThat("Range", names(store.getProductsByPrice("1", 2, 5)), contains("mac book pro"));
+        assertThat("Past the end", store.getProductsByPrice("1", 3, 5), is(empty()));
+        assertThat("Unknown region", store.getProductsByPrice("4", 0, 1), nullValue());
+
+        Random random = new Random(7);
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add("1", new Product("p" + i, i % 50 == 0 ? "free" : random.nextInt(100) + "$"));
+        }
+        ProductStore large = builder.build();
+        Catalog heap = new Catalog() {
+            @Override
+            public Collection<String> getRegions() {
+                return large.getRegions();
+            }
+
+            @Override
+            public List<Product> getProducts(String region) {
+                return large.getProducts(region);
+            }
+
+            @Override
+            public List<GenericProduct> getGenericProducts(String region) {
+                return large.getGenericProducts(region);
+            }
+        };
+        Catalog versioned = new VersionedCatalog(large);
+        for (int[] range : new int[][]{{0, 10}, {0, 500}, {37, 100}, {480, 100}, {0, Integer.MAX_VALUE}}) {
+            List<String> expected = names(heap.getProductsByPrice("1", range[0], range[1]));
+            assertThat("Range " + Arrays.toString(range), names(large.getProductsByPrice("1", range[0], range[1])),
+                    is(expected));
+            assertThat("Versioned " + Arrays.toString(range),
+                    names(versioned.getProductsByPrice("1", range[0], range[1])), is(expected));
+        }
+        assertThat("Unpriced last", large.getProductsByPrice("1", 490, 10).get(9).getPrice(), is("free"));
+    }
+
+    private static List<String> names(List<Product> products) {
+        return products.stream().map(Product::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package bose.edu.junit.catalog;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for VersionedCatalog")
+public class TestVersionedCatalog {
+    private VersionedCatalog catalog;
+    private List<Set<String>> notifications;
+
+    @BeforeEach
+    public void init() {
+        catalog = new VersionedCatalog(ProductStore.builder()
+                .add("1", new Product("ipad", "1000$"))
+                .add("1", new Product("iphone", "700$"))
+                .add("2", new Product("mac book pro", "2000$"))
+                .build());
+        notifications = new ArrayList<>();
+        catalog.addListener((version, regions) -> notifications.add(regions));
+    }
+
+    @Test
+    @DisplayName("Batch of add, update and remove")
+    public void testApply() {
+        List<Product> before = catalog.getProducts("1");
+        long version = catalog.apply(Arrays.asList(
+                CatalogDelta.update("1", new Product("ipad", "900$")),
+                CatalogDelta.remove("1", "iphone"),
+                CatalogDelta.add("1", new GenericProduct("watch", "300$", ImmutableMap.of("color", "red"))),
+                CatalogDelta.add("3", new Product("tv", "800$"))));
+
+        assertThat("Version", version, is(1L));
+        assertThat("Catalog version", catalog.getVersion(), is(1L));
+        assertThat("Products", catalog.getProducts("1"), hasSize(2));
+        assertThat("Updated in place", catalog.getProducts("1").get(0).getPrice(), is("900$"));
+        assertThat("Added", catalog.getGenericProducts("1").get(1).getSubTypes(), hasEntry("color", "red"));
+        assertThat("New region", catalog.getRegions(), containsInAnyOrder("1", "2", "3"));
+        assertThat("Old snapshot unchanged", before.get(1).getName(), is("iphone"));
+
+        assertThat("Changed region version", catalog.getRegionVersion("1"), is(1L));
+        assertThat("Unchanged region version", catalog.getRegionVersion("2"), is(0L));
+        assertThat("Unknown region version", catalog.getRegionVersion("4"), is(-1L));
+        assertThat("Only changed regions notified", notifications, contains(containsInAnyOrder("1", "3")));
+    }
+
+    @Test
+    @DisplayName("Invalid batches are not applied")
+    public void testInvalidBatch() {
+        assertThrows(IllegalArgumentException.class, () -> catalog.apply(Arrays.asList(
+                CatalogDelta.update("1", new Product("ipad", "900$")),
+                CatalogDelta.add("1", new Product("iphone", "1$")))));
+        assertThrows(IllegalArgumentException.class, () -> catalog.apply(Collections.singletonList(
+                CatalogDelta.remove("2", "ipad"))));
+
+        assertThat("Version", catalog.getVersion(), is(0L));
+        assertThat("Unchanged", catalog.getProducts("1").get(0).getPrice(), is("1000$"));
+        assertThat("No notifications", notifications, is(empty()));
+    }
+
+    @Test
+    @DisplayName("Empty batch keeps the version")
+    public void testEmptyBatch() {
+        assertThat("Version", catalog.apply(Collections.emptyList()), is(0L));
+        assertThat("No notifications", notifications, is(empty()));
+    }
+
+    @Test
+    @DisplayName("Price order follows the region version")
+    public void testProductsByPrice() {
+        assertThat(names(catalog.getProductsByPrice("1", 0, 10)), contains("iphone", "ipad"));
+        assertThat("Slice", names(catalog.getProductsByPrice("1", 1, 1)), contains(equalTo("ipad")));
+        assertThat("Past the end", catalog.getProductsByPrice("1", 2, 1), is(empty()));
+        assertThat("Unknown region", catalog.getProductsByPrice("4", 0, 1), nullValue());
+
+        Catalog frozen = catalog.freeze();
+        catalog.apply(Arrays.asList(
+                CatalogDelta.update("1", new Product("ipad", "500$")),
+                CatalogDelta.add("1", new Product("pen", "free"))));
+        assertThat("Reordered", names(catalog.getProductsByPrice("1", 0, 10)), contains("ipad", "iphone", "pen"));
+        assertThat("Frozen order", names(frozen.getProductsByPrice("1", 0, 10)), contains("iphone", "ipad"));
+    }
+
+    @Test
+    @DisplayName("Full price order matches the bounded heap, ties in catalog order")
+    public void testPriceOrderSort() {
+        Random random = new Random(11);
+        List<GenericProduct> generic = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String price = i % 40 == 0 ? "free" : random.nextInt(30) + "$";
+            generic.add(new GenericProduct("p" + i, price, null));
+            products.add(new Product("p" + i, price));
+        }
+        int[] order = PriceOrder.sort(generic);
+        List<Product> selected = PriceOrder.select(products, 0, products.size());
+        assertThat(order.length, is(selected.size()));
+        for (int i = 0; i < order.length; i++) {
+            assertThat(generic.get(order[i]).getName(), is(selected.get(i).getName()));
+        }
+    }
+
+    private static List<String> names(List<Product> products) {
+        List<String> names = new ArrayList<>();
+        products.forEach(product -> names.add(product.getName()));
+        return names;
+    }
+}
@@ -0,0 +1,305 @@
+package bose.edu.junit.http;
+
+import bose.edu.junit.serialization.IndexedResponse;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.RateLimit;
+import bose.edu.junit.valueobjects.RateLimiter;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Unit test for ProductHttpServer")
+public class TestProductHttpServer {
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+    private ExecutorService workers;
+    private ProductHttpServer server;
+
+    @BeforeEach
+    public void init() throws IOException {
+        Service service = new Service() {
+            @Override
+            public Response getAllProducts(String region) {
+                if ("slow".equals(region)) {
+                    try {
+                        slowRelease.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new Response("200", "Slow products", null);
+                }
+                if ("broken".equals(region)) {
+                    throw new IllegalStateException("Catalog unavailable");
+                }
+                return super.getAllProducts(region);
+            }
+        };
+        workers = Executors.newFixedThreadPool(4);
+        server = ProductHttpServer.start(new Controller(service, new Logger()),
+                new InetSocketAddress("127.0.0.1", 0), workers);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        server.close();
+        workers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Products of a region are served over a kept alive connection")
+    public void testKeepAlive() throws IOException {
+        try (Socket socket = connect()) {
+            for (int i = 0; i < 3; i++) {
+                send(socket, "GET /products?region=1 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                HttpResult result = receive(socket);
+                assertThat(result.status, is(200));
+                assertThat(result.headers.get("content-type"), is("application/json"));
+                assertThat(result.headers, not(hasKey("connection")));
+                IndexedResponse response = IndexedResponse.parse(result.body);
+                assertThat(response.getStatus(), is("200"));
+                assertThat(response.getProductCount(), is(3));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Pipelined requests are answered in request order even if a later one completes first")
+    public void testPipelining() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /products?region=slow HTTP/1.1\r\n\r\n"
+                    + "GET /products?region=1 HTTP/1.1\r\n\r\n"
+                    + "GET /products?region=unknown HTTP/1.1\r\n\r\n");
+            /* the later requests are answered by the workers while the first one blocks */
+            sleep(200);
+            slowRelease.countDown();
+
+            assertThat(IndexedResponse.parse(receive(socket).body).getMessage(), is("Slow products"));
+            assertThat(IndexedResponse.parse(receive(socket).body).getProductCount(), is(3));
+            IndexedResponse unknown = IndexedResponse.parse(receive(socket).body);
+            assertThat(unknown.getStatus(), is("400"));
+            assertThat(unknown.getMessage(), is("Region not supported"));
+        }
+    }
+
+    @Test
+    @DisplayName("Requests split over several packets are reassembled")
+    public void testPartialRequest() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /products?reg");
+            sleep(50);
+            send(socket, "ion=%31 HTTP/1.1\r\nHost: local");
+            sleep(50);
+            send(socket, "host\r\n\r\n");
+            assertThat(IndexedResponse.parse(receive(socket).body).getProductCount(), is(3));
+        }
+    }
+
+    @Test
+    @DisplayName("Connection close and HTTP/1.0 end the connection after the response")
+    public void testConnectionClose() throws IOException {
+        for (String request : new String[]{
+                "GET /products?region=1 HTTP/1.1\r\nConnection: close\r\n\r\n",
+                "GET /products?region=1 HTTP/1.0\r\n\r\n"}) {
+            try (Socket socket = connect()) {
+                send(socket, request);
+                HttpResult result = receive(socket);
+                assertThat(result.status, is(200));
+                assertThat(result.headers.get("connection"), is("close"));
+                assertThat(socket.getInputStream().read(), is(-1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid requests are rejected with an error response")
+    public void testErrors() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /orders HTTP/1.1\r\n\r\n"
+                    + "POST /products?region=1 HTTP/1.1\r\nContent-Length: 0\r\n\r\n"
+                    + "GET /products HTTP/1.1\r\n\r\n"
+                    + "GET /products?region=broken HTTP/1.1\r\n\r\n");
+            assertThat(receive(socket).status, is(404));
+            HttpResult notAllowed = receive(socket);
+            assertThat(notAllowed.status, is(405));
+            assertThat(notAllowed.headers.get("allow"), is("GET"));
+            HttpResult missing = receive(socket);
+            assertThat(missing.status, is(400));
+            assertThat(IndexedResponse.parse(missing.body).getMessage(), is("Region is required"));
+            HttpResult broken = receive(socket);
+            assertThat(broken.status, is(500));
+            assertThat(IndexedResponse.parse(broken.body).getStatus(), is("500"));
+        }
+    }
+
+    @Test
+    @DisplayName("The status of the controller response is the HTTP status")
+    public void testControllerStatus() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /products?region=2 HTTP/1.1\r\n\r\n");
+            HttpResult unsupported = receive(socket);
+            assertThat(unsupported.status, is(400));
+            assertThat(IndexedResponse.parse(unsupported.body).getMessage(), is("Region not supported"));
+        }
+        assertThat(ProductHttpServer.httpStatus("429"), is(429));
+        assertThat(ProductHttpServer.httpStatus("OK"), is(500));
+        assertThat(ProductHttpServer.httpStatus(null), is(500));
+    }
+
+    @Test
+    @DisplayName("Oversized heads and malformed request lines close the connection")
+    public void testMalformedRequests() throws IOException {
+        try (Socket socket = connect()) {
+            StringBuilder head = new StringBuilder("GET /products?region=1 HTTP/1.1\r\n");
+            while (head.length() < 10_000) {
+                head.append("X-Padding: 0123456789\r\n");
+            }
+            send(socket, head.toString());
+            /* the rest of the head is never read, so the close may arrive as a reset */
+            assertThat(receive(socket).status, is(431));
+        }
+        try (Socket socket = connect()) {
+            send(socket, "GARBAGE\r\n\r\n");
+            assertThat(receive(socket).status, is(400));
+            assertThat(socket.getInputStream().read(), is(-1));
+        }
+    }
+
+    @Test
+    @DisplayName("Clients are limited by their address, across connections")
+    public void testCallerLimit() throws IOException {
+        RateLimiter limiter = new RateLimiter(RateLimit.UNLIMITED, new RateLimit(0.001, 1));
+        try (ProductHttpServer limited = ProductHttpServer.start(
+                new Controller(new Service(), new Logger(), null, limiter), new InetSocketAddress("127.0.0.1", 0),
+                workers)) {
+            try (Socket first = connect(limited); Socket second = connect(limited)) {
+                send(first, "GET /products?region=1 HTTP/1.1\r\n\r\n");
+                assertThat(receive(first).status, is(200));
+                send(second, "GET /products?region=1 HTTP/1.1\r\n\r\n");
+                HttpResult rejected = receive(second);
+                assertThat(rejected.status, is(429));
+                assertThat(IndexedResponse.parse(rejected.body).getStatus(), is("429"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Readiness is answered with 503 until the flag is set")
+    public void testReady() throws IOException {
+        AtomicBoolean ready = new AtomicBoolean();
+        try (ProductHttpServer warming = ProductHttpServer.start(new Controller(new Service(), new Logger()),
+                new InetSocketAddress("127.0.0.1", 0), workers, ready::get);
+             Socket socket = new Socket()) {
+            socket.connect(warming.getAddress(), 5000);
+            socket.setSoTimeout(10_000);
+            send(socket, "GET /ready HTTP/1.1\r\n\r\n");
+            HttpResult notReady = receive(socket);
+            assertThat(notReady.status, is(503));
+            assertThat(IndexedResponse.parse(notReady.body).getMessage(), is("Warming up"));
+
+            ready.set(true);
+            send(socket, "GET /ready HTTP/1.1\r\n\r\n");
+            assertThat(receive(socket).status, is(200));
+        }
+        try (Socket socket = connect()) {
+            send(socket, "GET /ready HTTP/1.1\r\n\r\n");
+            assertThat(receive(socket).status, is(200));
+        }
+    }
+
+    @Test
+    @DisplayName("Query parameters are URL decoded")
+    public void testParameter() {
+        assertThat(ProductHttpServer.parameter("a=1&region=new%20york&region=x", "region"), is("new york"));
+        assertThat(ProductHttpServer.parameter("region", "region"), is(""));
+        assertThat(ProductHttpServer.parameter("a=1", "region"), nullValue());
+    }
+
+    private Socket connect() throws IOException {
+        return connect(server);
+    }
+
+    private static Socket connect(ProductHttpServer server) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(server.getAddress(), 5000);
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String request) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    /**
+     * Reads one response with a Content-Length body.
+     */
+    static HttpResult receive(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed in the response head");
+            }
+            head.write(b);
+            matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        String[] lines = new String(head.toByteArray(), StandardCharsets.ISO_8859_1).split("\r\n");
+        HttpResult result = new HttpResult(Integer.parseInt(lines[0].split(" ")[1]));
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            result.headers.put(lines[i].substring(0, colon).toLowerCase(), lines[i].substring(colon + 1).trim());
+        }
+        byte[] body = new byte[Integer.parseInt(result.headers.get("content-length"))];
+        for (int read = 0; read < body.length; ) {
+            int n = in.read(body, read, body.length - read);
+            if (n < 0) {
+                throw new IOException("Connection closed in the response body");
+            }
+            read += n;
+        }
+        result.body = body;
+        return result;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static final class HttpResult {
+        private final int status;
+        private final Map<String, String> headers = new HashMap<>();
+        private byte[] body;
+
+        private HttpResult(int status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package bose.edu.junit.load;
+
+import bose.edu.junit.catalog.Catalog;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service which fails a share of the region lookups, to load the error path of the Controller.
+ */
+public class FailingService extends Service {
+    private final double errorRate;
+
+    /**
+     * @param catalog   catalog answering the lookups which do not fail
+     * @param errorRate share of lookups which throw, from 0 to 1
+     */
+    public FailingService(Catalog catalog, double errorRate) {
+        super(catalog);
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1");
+        }
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public Response getAllProducts(String region) {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            throw new IllegalStateException("Injected failure for region " + region);
+        }
+        return super.getAllProducts(region);
+    }
+}
@@ -0,0 +1,122 @@
+package bose.edu.junit.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests are issued on a fixed schedule no matter how long earlier
+ * ones take, like independent clients do, and handed to a pool of worker threads.
+ * <p>
+ * The response time of a request is measured from its scheduled start, not from the moment a worker
+ * picked it up. A stalled target therefore shows up in the percentiles with every request that
+ * was scheduled during the stall, instead of one slow sample (coordinated omission).
+ * The service time, measured from the actual start, is reported next to it for comparison.
+ */
+public final class LoadGenerator {
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoadTarget target;
+    private final RegionSource regions;
+    private final int threads;
+
+    /**
+     * @param target  operation to drive
+     * @param regions regions of the requests
+     * @param threads worker threads calling the target
+     */
+    public LoadGenerator(LoadTarget target, RegionSource regions, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("At least one worker thread is required");
+        }
+        this.target = target;
+        this.regions = regions;
+        this.threads = threads;
+    }
+
+    /**
+     * Drives the target at a fixed rate, first for the warm-up, whose results are dropped, then for the
+     * measured duration. Returns once every issued request has completed.
+     *
+     * @param rate     requests per second
+     * @param warmup   warm-up duration, may be zero
+     * @param duration measured duration
+     * @return results of the measured phase
+     * @throws InterruptedException  if interrupted while waiting for the schedule
+     * @throws IllegalStateException if requests are still running a minute after the last was issued
+     */
+    public LoadReport run(double rate, Duration warmup, Duration duration) throws InterruptedException {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (!warmup.isZero()) {
+                drive(workers, rate, warmup);
+            }
+            return drive(workers, rate, duration);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private LoadReport drive(ExecutorService workers, double rate, Duration duration) throws InterruptedException {
+        Histogram responseTime = new ConcurrentHistogram(3);
+        Histogram serviceTime = new ConcurrentHistogram(3);
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long issued = 0;
+        while (true) {
+            long scheduled = start + (long) (issued * 1e9 / rate);
+            if (scheduled >= end) {
+                break;
+            }
+            for (long wait; (wait = scheduled - System.nanoTime()) > 0; ) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            String region = regions.next();
+            workers.execute(() -> {
+                long begin = System.nanoTime();
+                boolean successful;
+                try {
+                    successful = target.call(region);
+                } catch (RuntimeException ex) {
+                    successful = false;
+                }
+                long finish = System.nanoTime();
+                responseTime.recordValue(finish - scheduled);
+                serviceTime.recordValue(finish - begin);
+                if (!successful) {
+                    errors.increment();
+                }
+                completed.increment();
+            });
+            issued++;
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (completed.sum() < issued) {
+            if (System.nanoTime() > drainDeadline) {
+                throw new IllegalStateException((issued - completed.sum()) + " requests did not complete");
+            }
+            Thread.sleep(1);
+        }
+        return new LoadReport(rate, issued, errors.sum(), System.nanoTime() - start, responseTime, serviceTime);
+    }
+}
@@ -0,0 +1,83 @@
+package bose.edu.junit.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of one measured {@link LoadGenerator} run. Latencies are in nanoseconds.
+ */
+public final class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final double targetRate;
+    private final long requests;
+    private final long errors;
+    private final long elapsedNanos;
+    private final Histogram responseTime;
+    private final Histogram serviceTime;
+
+    LoadReport(double targetRate, long requests, long errors, long elapsedNanos,
+               Histogram responseTime, Histogram serviceTime) {
+        this.targetRate = targetRate;
+        this.requests = requests;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.responseTime = responseTime;
+        this.serviceTime = serviceTime;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return completed requests per second, including the time to drain the last ones
+     */
+    public double getThroughput() {
+        return requests * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return latencies from the scheduled start of every request, free of coordinated omission
+     */
+    public Histogram getResponseTime() {
+        return responseTime;
+    }
+
+    /**
+     * @return latencies from the moment a worker started every request
+     */
+    public Histogram getServiceTime() {
+        return serviceTime;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "target %.0f/s, throughput %.0f/s, %d requests, %d errors (%.2f%%)%n",
+                targetRate, getThroughput(), requests, errors, requests == 0 ? 0.0 : 100.0 * errors / requests));
+        report.append(String.format(Locale.ROOT, "%-10s %14s %14s%n", "percentile", "response ms", "service ms"));
+        for (double percentile : PERCENTILES) {
+            report.append(String.format(Locale.ROOT, "%-10s %14.3f %14.3f%n", percentile,
+                    millis(responseTime.getValueAtPercentile(percentile)),
+                    millis(serviceTime.getValueAtPercentile(percentile))));
+        }
+        report.append(String.format(Locale.ROOT, "%-10s %14.3f %14.3f%n", "max",
+                millis(responseTime.getMaxValue()), millis(serviceTime.getMaxValue())));
+        return report.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
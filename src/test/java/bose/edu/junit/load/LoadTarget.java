@@ -0,0 +1,33 @@
+package bose.edu.junit.load;
+
+import bose.edu.junit.serialization.JsonSerializer;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Response;
+
+/**
+ * Operation driven by a {@link LoadGenerator}, called concurrently from its worker threads.
+ */
+@FunctionalInterface
+public interface LoadTarget {
+
+    /**
+     * Serves one request.
+     *
+     * @param region requested region
+     * @return false if the request failed; throwing counts as a failure too
+     */
+    boolean call(String region);
+
+    /**
+     * Requests {@link Controller#getAllProducts(String)}; every response without status "200" is a failure.
+     *
+     * @param controller controller under load
+     * @return the target
+     */
+    static LoadTarget controller(Controller controller) {
+        String ok = JsonSerializer.getDefault().toJson(new Response("200", null, null));
+        /* the status is the first field, so a successful response starts like the serialized status alone */
+        String prefix = ok.substring(0, ok.length() - 1);
+        return region -> controller.getAllProducts(region).startsWith(prefix);
+    }
+}
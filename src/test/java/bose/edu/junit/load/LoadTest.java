@@ -0,0 +1,62 @@
+package bose.edu.junit.load;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives {@link Controller#getAllProducts(String)} of a synthetic catalog at a fixed rate and prints the
+ * {@link LoadReport}. Settings are system properties:
+ * <ul>
+ * <li>{@code load.rate} requests per second, default 2000</li>
+ * <li>{@code load.duration} and {@code load.warmup} in seconds, default 30 and 10</li>
+ * <li>{@code load.threads} worker threads, default (or 0) twice the processors</li>
+ * <li>{@code load.regions} and {@code load.products} catalog size, default 100 regions of 50 products</li>
+ * <li>{@code load.skew} Zipf exponent of the region popularity, default 0.99</li>
+ * <li>{@code load.trace} file of recorded regions, one per line, replayed instead of the Zipf traffic</li>
+ * <li>{@code load.errorRate} share of service lookups which fail, default 0</li>
+ * </ul>
+ * Run with {@code mvn -Pload integration-test -DskipTests -Dload.rate=5000}.
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "2000"));
+        long duration = Long.getLong("load.duration", 30);
+        long warmup = Long.getLong("load.warmup", 10);
+        int threads = Integer.getInteger("load.threads", 0);
+        if (threads <= 0) {
+            threads = 2 * Runtime.getRuntime().availableProcessors();
+        }
+        int regionCount = Integer.getInteger("load.regions", 100);
+        int products = Integer.getInteger("load.products", 50);
+        double skew = Double.parseDouble(System.getProperty("load.skew", "0.99"));
+        String trace = System.getProperty("load.trace", "");
+        double errorRate = Double.parseDouble(System.getProperty("load.errorRate", "0"));
+
+        ProductStore.Builder builder = ProductStore.builder();
+        List<String> regions = new ArrayList<>(regionCount);
+        for (int region = 0; region < regionCount; region++) {
+            regions.add("region-" + region);
+            for (int i = 0; i < products; i++) {
+                builder.add("region-" + region, new Product("product " + i, i + "$"));
+            }
+        }
+        Controller controller = new Controller(new FailingService(builder.build(), errorRate), new Logger());
+        RegionSource source = trace.isEmpty()
+                ? RegionSource.zipfian(regions, skew, 42) : RegionSource.replay(Paths.get(trace));
+
+        LoadReport report = new LoadGenerator(LoadTarget.controller(controller), source, threads)
+                .run(rate, Duration.ofSeconds(warmup), Duration.ofSeconds(duration));
+        System.out.print(report);
+    }
+}
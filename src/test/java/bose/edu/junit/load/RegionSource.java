@@ -0,0 +1,83 @@
+package bose.edu.junit.load;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Sequence of regions requested by a {@link LoadGenerator}. Only the dispatching thread calls
+ * {@link #next()}, so implementations need no synchronization.
+ */
+public interface RegionSource {
+
+    /**
+     * @return region of the next request
+     */
+    String next();
+
+    /**
+     * Synthetic traffic where the k-th region (from 1) is requested with a weight of 1 / k^skew.
+     *
+     * @param regions regions, most popular first
+     * @param skew    Zipf exponent, 0 for uniform traffic; around 1 is typical for catalogs
+     * @param seed    random seed, so runs are repeatable
+     * @return the source
+     */
+    static RegionSource zipfian(List<String> regions, double skew, long seed) {
+        if (regions.isEmpty()) {
+            throw new IllegalArgumentException("At least one region is required");
+        }
+        double[] cumulative = new double[regions.size()];
+        double total = 0;
+        for (int k = 0; k < cumulative.length; k++) {
+            total += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = total;
+        }
+        String[] names = regions.toArray(new String[0]);
+        Random random = new Random(seed);
+        double sum = total;
+        return () -> {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            return names[Math.min(index < 0 ? -index - 1 : index, names.length - 1)];
+        };
+    }
+
+    /**
+     * Replays a recorded sequence of regions, starting over at its end.
+     *
+     * @param trace recorded regions in request order
+     * @return the source
+     */
+    static RegionSource replay(List<String> trace) {
+        if (trace.isEmpty()) {
+            throw new IllegalArgumentException("The trace is empty");
+        }
+        String[] regions = trace.toArray(new String[0]);
+        int[] position = {0};
+        return () -> {
+            String region = regions[position[0]];
+            position[0] = (position[0] + 1) % regions.length;
+            return region;
+        };
+    }
+
+    /**
+     * Replays a trace file with one region per line; blank lines are skipped.
+     *
+     * @param trace trace file
+     * @return the source
+     * @throws IOException if the file cannot be read
+     */
+    static RegionSource replay(Path trace) throws IOException {
+        List<String> regions = Files.readAllLines(trace, StandardCharsets.UTF_8).stream()
+                .map(String::trim).filter(line -> !line.isEmpty())
+                .collect(Collectors.toCollection(ArrayList::new));
+        return replay(regions);
+    }
+}
@@ -0,0 +1,116 @@
+package bose.edu.junit.load;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for LoadGenerator")
+public class TestLoadGenerator {
+    private static final List<String> REGIONS = Arrays.asList("1", "2", "3", "4");
+
+    @Test
+    @DisplayName("Requests are issued at the target rate and injected failures are counted")
+    public void testRateAndErrors() throws InterruptedException {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (String region : REGIONS) {
+            builder.add(region, new Product("ipad", "1000$"));
+        }
+        Controller controller = new Controller(new FailingService(builder.build(), 0.25), new Logger());
+
+        LoadReport report = new LoadGenerator(LoadTarget.controller(controller),
+                RegionSource.zipfian(REGIONS, 1, 7), 2).run(1000, Duration.ZERO, Duration.ofMillis(1000));
+
+        assertThat(report.getRequests(), is(1000L));
+        assertThat(report.getResponseTime().getTotalCount(), is(1000L));
+        assertThat((double) report.getErrors(), closeTo(250, 100));
+        assertThat(report.getThroughput(), closeTo(1000, 250));
+        assertThat(report.toString(), containsString("99.9"));
+    }
+
+    @Test
+    @DisplayName("A stall delays every request scheduled during it, not just the one which stalled")
+    public void testCoordinatedOmission() throws InterruptedException {
+        AtomicBoolean stalled = new AtomicBoolean();
+        LoadTarget target = region -> {
+            if (stalled.compareAndSet(false, true)) {
+                sleep(200);
+            }
+            return true;
+        };
+
+        LoadReport report = new LoadGenerator(target, RegionSource.replay(REGIONS), 1)
+                .run(500, Duration.ZERO, Duration.ofMillis(1000));
+
+        /* about 100 of 500 requests were scheduled during the stall and waited for it */
+        long p90 = report.getResponseTime().getValueAtPercentile(90);
+        assertThat(p90, greaterThan(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertThat(report.getServiceTime().getValueAtPercentile(90), lessThan(p90));
+        assertThat(report.getResponseTime().getMaxValue(), greaterThan(TimeUnit.MILLISECONDS.toNanos(190)));
+    }
+
+    @Test
+    @DisplayName("Zipfian regions are requested in decreasing popularity")
+    public void testZipfian() {
+        RegionSource source = RegionSource.zipfian(REGIONS, 1, 42);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(source.next(), 1, Integer::sum);
+        }
+        /* weights 1, 1/2, 1/3, 1/4 of a total of 25/12 */
+        assertThat((double) counts.get("1"), closeTo(48_000, 1_000));
+        assertThat((double) counts.get("2"), closeTo(24_000, 1_000));
+        assertThat((double) counts.get("3"), closeTo(16_000, 1_000));
+        assertThat((double) counts.get("4"), closeTo(12_000, 1_000));
+
+        RegionSource uniform = RegionSource.zipfian(REGIONS, 0, 42);
+        counts.clear();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(uniform.next(), 1, Integer::sum);
+        }
+        assertThat(counts.values(), everyItem(both(greaterThan(24_000)).and(lessThan(26_000))));
+    }
+
+    @Test
+    @DisplayName("A recorded trace is replayed in order and starts over at its end")
+    public void testReplay() throws IOException {
+        Path trace = Files.createTempFile("regions", ".txt");
+        try {
+            Files.write(trace, Arrays.asList("2", "", " 1 ", "3"));
+            RegionSource source = RegionSource.replay(trace);
+            String[] regions = new String[5];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = source.next();
+            }
+            assertThat(regions, arrayContaining("2", "1", "3", "2", "1"));
+        } finally {
+            Files.delete(trace);
+        }
+        assertThrows(IllegalArgumentException.class, () -> RegionSource.replay(Arrays.asList()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package bose.edu.junit.monitoring;
+
+import bose.edu.junit.serialization.ResponseEncoding;
+import bose.edu.junit.util.PojoTester;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Service;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Unit test for the flight recorder events")
+public class TestMonitoringEvents {
+    private Path file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        file = Files.createTempFile("catalog", ".jfr");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("The template records controller requests and service lookups")
+    public void testRequestEvents() throws Exception {
+        Controller controller = new Controller(new Service(), new Logger());
+        List<RecordedEvent> events = record(() -> {
+            controller.getAllProducts("1");
+            controller.getAllProducts("unknown");
+            controller.getAllProducts("1", ResponseEncoding.BINARY);
+        });
+
+        List<RecordedEvent> requests = named(events, "bose.edu.junit.ControllerRequest");
+        assertThat(requests.stream().map(event -> event.getString("region") + ":" + event.getString("status")
+                        + ":" + event.getString("operation")).collect(Collectors.toList()),
+                containsInAnyOrder("1:200:json", "unknown:400:json", "1:200:BINARY"));
+        assertThat(requests.get(0).getLong("payloadBytes"), greaterThan(0L));
+        assertThat(requests.get(0).getDuration(), greaterThan(Duration.ZERO));
+
+        List<RecordedEvent> lookups = named(events, "bose.edu.junit.ServiceLookup");
+        assertThat(lookups.stream().map(event -> event.getString("region") + ":" + event.getInt("productCount"))
+                .collect(Collectors.toList()), containsInAnyOrder("1:3", "unknown:0", "1:3"));
+    }
+
+    @Test
+    @DisplayName("Logged errors are reported as a burst once they reach the threshold")
+    public void testErrorBurst() throws Exception {
+        Logger logger = new Logger();
+        List<RecordedEvent> events = record(() -> {
+            for (int i = 0; i < 2 * 10; i++) {
+                logger.log(new IllegalStateException("failed"));
+            }
+            sleep(300);
+        });
+
+        List<RecordedEvent> bursts = named(events, "bose.edu.junit.ErrorBurst");
+        assertThat(bursts, not(empty()));
+        assertThat(bursts.stream().mapToLong(event -> event.getLong("errors")).sum(), is(20L));
+        assertThat(bursts.get(0).getString("lastException"), is(IllegalStateException.class.getName()));
+    }
+
+    @Test
+    @DisplayName("PojoTester records one event per validation phase")
+    public void testPojoValidationEvents() throws Exception {
+        List<RecordedEvent> events = record(() -> PojoTester.validate(Product.class));
+
+        assertThat(named(events, "bose.edu.junit.PojoValidation").stream()
+                        .map(event -> event.getString("className") + ":" + event.getString("phase")
+                                + ":" + event.getBoolean("passed"))
+                        .collect(Collectors.toList()),
+                contains(Product.class.getName() + ":construct:true",
+                        Product.class.getName() + ":getters-setters:true"));
+    }
+
+    private List<RecordedEvent> record(Runnable body) throws IOException, ParseException {
+        Configuration template;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/jfr/product-catalog.jfc"), StandardCharsets.UTF_8)) {
+            template = Configuration.create(reader);
+        }
+        try (Recording recording = new Recording(template)) {
+            /* record every request regardless of the template thresholds, and report bursts quickly */
+            recording.enable(ControllerRequestEvent.class).withoutThreshold();
+            recording.enable(ServiceLookupEvent.class).withoutThreshold();
+            recording.enable(ErrorBurstEvent.class).withPeriod(Duration.ofMillis(100));
+            recording.start();
+            body.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
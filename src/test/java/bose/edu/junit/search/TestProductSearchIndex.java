@@ -0,0 +1,148 @@
+package bose.edu.junit.search;
+
+import bose.edu.junit.catalog.CatalogDelta;
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.catalog.VersionedCatalog;
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Unit test for ProductSearchIndex")
+public class TestProductSearchIndex {
+    private VersionedCatalog catalog;
+    private ProductSearchIndex objUnderTest;
+
+    @BeforeEach
+    public void init() {
+        catalog = new VersionedCatalog(ProductStore.builder()
+                .add("1", new Product("ipad", "1000$"))
+                .add("1", new Product("iphone", "700$"))
+                .add("1", new Product("mac book pro", "2000$"))
+                .add("1", new GenericProduct("iphone pro", "1100$", ImmutableMap.of("color", "Space Grey")))
+                .add("2", new Product("Mac mini", "800$"))
+                .build());
+        objUnderTest = new ProductSearchIndex(catalog);
+        catalog.addListener(objUnderTest);
+    }
+
+    @AfterEach
+    public void close() {
+        objUnderTest.close();
+    }
+
+    @Test
+    @DisplayName("Full text search matches all tokens, case insensitive")
+    public void testSearch() {
+        assertThat("Both tokens", names(objUnderTest.search("Pro MAC", 10)), contains("mac book pro"));
+        assertThat("Across regions", names(objUnderTest.search("mac", 10)), contains("Mac mini", "mac book pro"));
+        assertThat("Sub type values", names(objUnderTest.search("grey", 10)), contains("iphone pro"));
+        assertThat("No partial tokens", objUnderTest.search("mac bo", 10), is(empty()));
+        assertThat("Unknown token", objUnderTest.search("android", 10), is(empty()));
+        assertThat("Region", objUnderTest.search("mini", 10).get(0).getRegion(), is("2"));
+    }
+
+    @Test
+    @DisplayName("Typeahead completes the last token, shortest names first")
+    public void testTypeahead() {
+        assertThat("Prefix", names(objUnderTest.typeahead("ip", 10)), contains("ipad", "iphone", "iphone pro"));
+        assertThat("Top k", names(objUnderTest.typeahead("ip", 2)), contains("ipad", "iphone"));
+        assertThat("Exact and prefix", names(objUnderTest.typeahead("iphone p", 10)), contains("iphone pro"));
+        assertThat("Prefix in sub types", names(objUnderTest.typeahead("spa", 10)), contains("iphone pro"));
+        assertThat("Empty query", objUnderTest.typeahead(" ", 10), is(empty()));
+        assertThat("No match", objUnderTest.typeahead("x", 10), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Prefixes matching many terms scan in rank order")
+    public void testWidePrefix() {
+        ProductStore.Builder builder = ProductStore.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add("1", new Product("item" + i, "1$"));
+        }
+        try (ProductSearchIndex index = new ProductSearchIndex(builder.build())) {
+            assertThat("Top k", names(index.typeahead("item", 3)), contains("item0", "item1", "item2"));
+            assertThat("All", index.typeahead("item", 1000), hasSize(100));
+        }
+    }
+
+    @Test
+    @DisplayName("Only changed regions are reindexed")
+    public void testIncremental() throws InterruptedException {
+        catalog.apply(Arrays.asList(
+                CatalogDelta.add("2", new Product("ipod", "200$")),
+                CatalogDelta.remove("1", "ipad")));
+        assertThat("Indexed", objUnderTest.awaitIndexed(catalog.getVersion(), 5, TimeUnit.SECONDS), is(true));
+
+        assertThat("Added and removed", names(objUnderTest.typeahead("ip", 10)),
+                contains("ipod", "iphone", "iphone pro"));
+        assertThat("New region", objUnderTest.search("ipod", 10).get(0).getRegion(), is("2"));
+    }
+
+    @Test
+    @DisplayName("Rebuilds run on the indexer, once for changes coalesced while pending")
+    public void testRebuildOffThread() throws InterruptedException {
+        List<Runnable> tasks = new ArrayList<>();
+        ProductSearchIndex index = new ProductSearchIndex(catalog, tasks::add);
+        catalog.addListener(index);
+
+        catalog.apply(Collections.singletonList(CatalogDelta.add("2", new Product("ipod", "200$"))));
+        catalog.apply(Collections.singletonList(CatalogDelta.remove("2", "Mac mini")));
+        assertThat("One rebuild scheduled", tasks, hasSize(1));
+        assertThat("Old segment until rebuilt", names(index.search("mac", 10)), contains("Mac mini", "mac book pro"));
+        assertThat("Not indexed yet", index.awaitIndexed(catalog.getVersion(), 0, TimeUnit.SECONDS), is(false));
+
+        tasks.get(0).run();
+        assertThat("Indexed", index.awaitIndexed(catalog.getVersion(), 0, TimeUnit.SECONDS), is(true));
+        assertThat("Both changes", names(index.search("mac", 10)), contains("mac book pro"));
+        assertThat("Added", names(index.search("ipod", 10)), contains("ipod"));
+    }
+
+    @Test
+    @DisplayName("Closing stops indexing and its own indexing thread")
+    public void testClose() throws InterruptedException {
+        catalog.apply(Collections.singletonList(CatalogDelta.add("2", new Product("ipod", "200$"))));
+        assertThat("Indexed", objUnderTest.awaitIndexed(catalog.getVersion(), 5, TimeUnit.SECONDS), is(true));
+        objUnderTest.close();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!objUnderTest.isTerminated() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat("Thread exited", objUnderTest.isTerminated(), is(true));
+
+        catalog.apply(Collections.singletonList(CatalogDelta.remove("2", "ipod")));
+        assertThat("Ignored", objUnderTest.awaitIndexed(catalog.getVersion(), 0, TimeUnit.SECONDS), is(false));
+        assertThat("Last segments", names(objUnderTest.search("ipod", 10)), contains("ipod"));
+
+        List<Runnable> tasks = new ArrayList<>();
+        ProductSearchIndex shared = new ProductSearchIndex(catalog, tasks::add);
+        catalog.addListener(shared);
+        shared.close();
+        catalog.apply(Collections.singletonList(CatalogDelta.add("2", new Product("ipod", "200$"))));
+        assertThat("Nothing scheduled", tasks, is(empty()));
+    }
+
+    @Test
+    @DisplayName("Tokenizer")
+    public void testTokenizer() {
+        assertThat(Tokenizer.tokenize("Mac-Book  Pro, 256GB!"), contains("mac", "book", "pro", "256gb"));
+        assertThat(Tokenizer.tokenize(null), is(empty()));
+    }
+
+    private static List<String> names(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.getProduct().getName()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,151 @@
+package bose.edu.junit.search;
+
+import bose.edu.junit.catalog.Catalog;
+import bose.edu.junit.catalog.CatalogDelta;
+import bose.edu.junit.catalog.VersionedCatalog;
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static bose.edu.junit.search.AttributeQuery.and;
+import static bose.edu.junit.search.AttributeQuery.eq;
+import static bose.edu.junit.search.AttributeQuery.or;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for SubTypeIndex")
+public class TestSubTypeIndex {
+    private List<GenericProduct> products;
+    private SubTypeIndex objUnderTest;
+
+    @BeforeEach
+    public void init() {
+        products = Arrays.asList(
+                new GenericProduct("iphone silver 128", "700$", ImmutableMap.of("color", "silver", "storage", "128GB")),
+                new GenericProduct("iphone silver 256", "800$", ImmutableMap.of("color", "silver", "storage", "256GB")),
+                new GenericProduct("iphone grey 256", "800$", ImmutableMap.of("color", "grey", "storage", "256GB")),
+                new GenericProduct("ipad", "1000$", null));
+        objUnderTest = new SubTypeIndex(products);
+    }
+
+    @Test
+    @DisplayName("Equality, AND and OR select products in catalog order")
+    public void testSelect() {
+        assertThat("Equality", names(objUnderTest.select(eq("color", "silver"))),
+                contains("iphone silver 128", "iphone silver 256"));
+        assertThat("AND", names(objUnderTest.select(and(eq("color", "silver"), eq("storage", "256GB")))),
+                contains("iphone silver 256"));
+        assertThat("OR", names(objUnderTest.select(or(eq("color", "grey"), eq("storage", "128GB")))),
+                contains("iphone silver 128", "iphone grey 256"));
+        assertThat("Nested", objUnderTest.count(
+                and(eq("storage", "256GB"), or(eq("color", "grey"), eq("color", "silver")))), is(2));
+        assertThat("Unknown value", objUnderTest.select(eq("color", "gold")), is(empty()));
+        assertThat("Unknown key", objUnderTest.count(and(eq("size", "11"), eq("color", "grey"))), is(0));
+        assertThat("Values", objUnderTest.values("color"), containsInAnyOrder("silver", "grey"));
+    }
+
+    @Test
+    @DisplayName("Evaluating a query leaves the index unchanged")
+    public void testQueriesDoNotModifyIndex() {
+        objUnderTest.count(and(eq("color", "silver"), eq("storage", "256GB")));
+        objUnderTest.count(or(eq("color", "silver"), eq("color", "grey")));
+        assertThat(objUnderTest.count(eq("color", "silver")), is(2));
+    }
+
+    @Test
+    @DisplayName("Bitmaps are kept when only prices changed")
+    public void testRebind() {
+        List<GenericProduct> repriced = Arrays.asList(
+                new GenericProduct("iphone silver 128", "650$", ImmutableMap.of("color", "silver", "storage", "128GB")),
+                products.get(1), products.get(2), new GenericProduct("ipad", "900$", null));
+
+        SubTypeIndex rebound = objUnderTest.rebind(repriced);
+        assertThat("Rebound", rebound, notNullValue());
+        assertThat("New prices", rebound.select(eq("color", "silver")).get(0).getPrice(), is("650$"));
+        assertThat("Old index unchanged", objUnderTest.select(eq("color", "silver")).get(0).getPrice(), is("700$"));
+
+        List<GenericProduct> recolored = Arrays.asList(products.get(0), products.get(1),
+                new GenericProduct("iphone grey 256", "800$", ImmutableMap.of("color", "gold", "storage", "256GB")),
+                products.get(3));
+        assertThat("Sub types changed", objUnderTest.rebind(recolored), nullValue());
+        assertThat("Size changed", objUnderTest.rebind(products.subList(0, 3)), nullValue());
+    }
+
+    @Test
+    @DisplayName("An empty composition is rejected")
+    public void testEmptyComposition() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, AttributeQuery::and);
+        assertThat(e.getMessage(), is("At least one query is required"));
+    }
+
+    @Test
+    @DisplayName("Service answers faceted queries and follows catalog changes")
+    public void testServiceFindProducts() {
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.apply(Collections.singletonList(CatalogDelta.add("1", products.get(0))));
+        Service service = new Service(catalog);
+
+        Response response = service.findProducts("1", eq("color", "silver"));
+        assertThat(response.getStatus(), is("200"));
+        assertThat(response.getProducts(), contains(hasProperty("name", is("iphone silver 128"))));
+
+        catalog.apply(Collections.singletonList(CatalogDelta.add("1", products.get(1))));
+        assertThat("Index rebuilt after a change", service.findProducts("1", eq("storage", "256GB")).getProducts(),
+                contains(hasProperty("name", is("iphone silver 256"))));
+        assertThat(service.findProducts("2", eq("color", "silver")).getStatus(), is("400"));
+
+        catalog.apply(Collections.singletonList(CatalogDelta.update("1",
+                new GenericProduct("iphone silver 256", "750$", products.get(1).getSubTypes()))));
+        assertThat("New price after a price change", service.findProducts("1", eq("storage", "256GB")).getProducts(),
+                contains(hasProperty("price", is("750$"))));
+    }
+
+    @Test
+    @DisplayName("A removed region is not answered from its old index")
+    public void testServiceRemovedRegion() {
+        AtomicReference<List<GenericProduct>> region = new AtomicReference<>(products);
+        Catalog catalog = new Catalog() {
+            @Override
+            public Collection<String> getRegions() {
+                return region.get() == null ? Collections.emptySet() : Collections.singleton("1");
+            }
+
+            @Override
+            public List<Product> getProducts(String name) {
+                return null;
+            }
+
+            @Override
+            public List<GenericProduct> getGenericProducts(String name) {
+                return "1".equals(name) ? region.get() : null;
+            }
+
+            @Override
+            public long getRegionVersion(String name) {
+                return getGenericProducts(name) == null ? -1 : 1;
+            }
+        };
+        Service service = new Service(catalog);
+        assertThat(service.findProducts("1", eq("color", "grey")).getStatus(), is("200"));
+
+        region.set(null);
+        assertThat(service.findProducts("1", eq("color", "grey")).getStatus(), is("400"));
+    }
+
+    private static List<String> names(List<? extends GenericProduct> hits) {
+        return hits.stream().map(GenericProduct::getName).collect(Collectors.toList());
+    }
+}
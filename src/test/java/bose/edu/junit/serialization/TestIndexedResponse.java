@@ -0,0 +1,89 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Unit test for IndexedResponse")
+public class TestIndexedResponse {
+    private final Gson gson = new Gson();
+
+    @Test
+    @DisplayName("Controller output is read without materializing products")
+    public void testControllerOutput() {
+        Controller controller = new Controller(new Service(), mock(Logger.class));
+        IndexedResponse response = IndexedResponse.parse(controller.getAllProductsAsUtf8("1"));
+
+        assertThat(response.hasStatus("200"), is(true));
+        assertThat(response.getMessage(), is("Products fetched"));
+        assertThat(response.getProductCount(), is(3));
+        assertThat(response.getNextPageToken(), nullValue());
+
+        List<String> names = new ArrayList<>();
+        long total = 0;
+        for (IndexedResponse.ProductCursor cursor = response.products(); cursor.next(); ) {
+            names.add(cursor.name());
+            total += cursor.priceMinorUnits();
+        }
+        assertThat(names, contains("ipad", "iphone", "mac book pro"));
+        assertThat(total, is(370000L));
+    }
+
+    @Test
+    @DisplayName("Decodes the same values as Gson, including escapes and non-ASCII text")
+    public void testSameAsGson() {
+        Response original = new Response("200", "Produits récupérés \"<ok>\"", Arrays.asList(
+                new Product("ipad 😀 \\ mini", "1000€"), new Product("tab\there", null), new Product(null, "1.5$")),
+                "next=token");
+        String json = gson.toJson(original);
+        Response decoded = IndexedResponse.parse(json).toResponse();
+
+        assertThat(gson.toJson(decoded), is(json));
+        IndexedResponse.ProductCursor cursor = IndexedResponse.parse(json).products();
+        cursor.next();
+        assertThat(cursor.nameEquals("ipad 😀 \\ mini"), is(true));
+        assertThat(cursor.nameEquals("ipad"), is(false));
+        cursor.next();
+        assertThat(cursor.price(), nullValue());
+        assertThat(cursor.priceMinorUnits(), is(Long.MIN_VALUE));
+        cursor.next();
+        assertThat(cursor.nameEquals(null), is(true));
+        assertThat(cursor.priceMinorUnits(), is(150L));
+        assertThat(cursor.next(), is(false));
+        assertThrows(IllegalStateException.class, cursor::name);
+    }
+
+    @Test
+    @DisplayName("Unknown fields, whitespace and missing product lists")
+    public void testShapes() {
+        IndexedResponse response = IndexedResponse.parse(
+                " { \"extra\" : {\"a\":[1,{\"b\":\"}\"}]}, \"status\" : \"400\" , \"count\": 3, \"products\": null } ");
+        assertThat(response.getStatus(), is("400"));
+        assertThat(response.hasProducts(), is(false));
+        assertThat(response.getMessage(), nullValue());
+
+        IndexedResponse empty = IndexedResponse.parse("{\"products\":[{\"name\":\"x\",\"tags\":[\"a\"]},{}]}");
+        assertThat(empty.getProductCount(), is(2));
+        assertThat(empty.toResponse().getProducts().get(1).getName(), nullValue());
+
+        assertThrows(IllegalArgumentException.class, () -> IndexedResponse.parse("{\"status\":\"200\""));
+        assertThrows(IllegalArgumentException.class, () -> IndexedResponse.parse("[]"));
+        assertThrows(IllegalArgumentException.class, () -> IndexedResponse.parse("{\"status\":\"\\u20\"}"));
+        assertThrows(IllegalArgumentException.class, () -> IndexedResponse.parse("{\"status\":\"\\x\"}"));
+        assertThat(IndexedResponse.parse("{\"status\":\"\\u20AC\\/\"}").getStatus(), is("€/"));
+    }
+}
@@ -0,0 +1,148 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.LazyResponse;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Unit test for JsonSerializer")
+public class TestJsonSerializer {
+    private final Gson gson = new Gson();
+    private final JsonSerializer objUnderTest = new JsonSerializer(new BufferPool(4, 64 * 1024));
+
+    @Test
+    @DisplayName("Same JSON as Gson, as text and as UTF-8")
+    public void testSameAsGson() {
+        Response response = new Response("200", "Produits récupérés", Arrays.asList(
+                new Product("ipad 😀", "1000€"), new Product("broken \uD800 pair", null)));
+        String expected = gson.toJson(response, Response.class);
+
+        assertThat("Text", objUnderTest.toJson(response), is(expected));
+        assertThat("UTF-8", objUnderTest.toUtf8(response), is(expected.getBytes(StandardCharsets.UTF_8)));
+        assertThat("Repeated", objUnderTest.toJson(response), is(expected));
+    }
+
+    @Test
+    @DisplayName("Responses larger than the retained buffers")
+    public void testLargeResponse() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            products.add(new Product("product " + i, i + "$"));
+        }
+        Response large = new Response("200", "Products fetched", products);
+        String expected = gson.toJson(large, Response.class);
+
+        assertThat("Text", objUnderTest.toJson(large), is(expected));
+        assertThat("UTF-8", new String(objUnderTest.toUtf8(large), StandardCharsets.UTF_8), is(expected));
+        assertThat("Large buffer not retained", objUnderTest.getBuffers().size(), is(0));
+        assertThat("Large builder not retained", objUnderTest.pooledBuilders(), is(0));
+
+        Response small = new Response("400", "Region not supported", null);
+        assertThat("Small after large", objUnderTest.toJson(small), is(gson.toJson(small, Response.class)));
+        objUnderTest.toUtf8(small);
+        assertThat("Small buffer retained", objUnderTest.getBuffers().size(), is(1));
+    }
+
+    @Test
+    @DisplayName("Idle builders are bounded regardless of the number of threads")
+    public void testBuildersBounded() throws InterruptedException {
+        Response response = new Response("400", "Region not supported", null);
+        String expected = gson.toJson(response, Response.class);
+        List<Thread> threads = new ArrayList<>();
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 64; i++) {
+            threads.add(new Thread(() -> results.add(objUnderTest.toJson(response))));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(results, everyItem(is(expected)));
+        assertThat(results, hasSize(64));
+        assertThat(objUnderTest.pooledBuilders(), allOf(greaterThan(0), lessThanOrEqualTo(16)));
+    }
+
+    @Test
+    @DisplayName("Pooled content copied into a ByteBuffer")
+    public void testWriteToByteBuffer() throws IOException {
+        Response response = new Response("400", "Region not supported", null);
+        PooledBuffer buffer = objUnderTest.getBuffers().acquire();
+        objUnderTest.writeUtf8(response, buffer);
+        ByteBuffer target = ByteBuffer.allocate(buffer.size());
+        buffer.writeTo(target);
+        objUnderTest.getBuffers().release(buffer);
+
+        assertThat("Content", new String(target.array(), StandardCharsets.UTF_8),
+                is(gson.toJson(response, Response.class)));
+    }
+
+    @Test
+    @DisplayName("Controller UTF-8 variant matches the text variant")
+    public void testController() {
+        Controller controller = new Controller(new Service(), mock(Logger.class));
+        assertThat("Same payload", new String(controller.getAllProductsAsUtf8("1"), StandardCharsets.UTF_8),
+                is(controller.getAllProducts("1")));
+    }
+
+    @Test
+    @DisplayName("Lazy responses stream their products without materializing them")
+    public void testLazyResponse() {
+        List<Product> source = ProductStore.builder()
+                .add("1", new Product("ipad <mini>", "1000$"))
+                .add("1", new Product("iphone", null))
+                .build().getProducts("1");
+        LazyResponse lazy = new LazyResponse("200", "Products fetched", source, "token");
+        String expected = gson.toJson(new Response("200", "Products fetched", new ArrayList<>(source), "token"),
+                Response.class);
+
+        assertThat("Count", lazy.getProductCount(), is(2));
+        assertThat("Text", objUnderTest.toJson(lazy), is(expected));
+        assertThat("UTF-8", objUnderTest.toUtf8(lazy), is(expected.getBytes(StandardCharsets.UTF_8)));
+        assertThat("Not materialized", lazy.isMaterialized(), is(false));
+        assertThat("Materialized on access", lazy.getProducts(), hasSize(2));
+        assertThat("Same list afterwards", lazy.getProducts(), sameInstance(lazy.getProducts()));
+    }
+
+    @Test
+    @DisplayName("Lazy responses round trip through a plain Gson")
+    public void testLazyResponsePlainGson() {
+        List<Product> source = Arrays.asList(new Product("ipad", "1000$"), new Product("iphone", "700$"));
+        LazyResponse lazy = new LazyResponse("200", "Products fetched", source, "token");
+
+        String json = new Gson().toJson(lazy);
+        assertThat("Same as the serializer", json, is(objUnderTest.toJson(lazy)));
+        assertThat("Declared as a response", new Gson().toJson(lazy, Response.class), is(json));
+
+        Response read = new Gson().fromJson(json, Response.class);
+        assertThat(read.getStatus(), is("200"));
+        assertThat(read.getNextPageToken(), is("token"));
+        assertThat(read.getProducts(), hasSize(2));
+        assertThat(read.getProducts().get(1).getPrice(), is("700$"));
+    }
+
+    @Test
+    @DisplayName("Fields without a value are omitted")
+    public void testNullFields() {
+        assertThat(objUnderTest.toJson(new Response("400", "Region not supported", null)),
+                is("{\"status\":\"400\",\"message\":\"Region not supported\"}"));
+    }
+}
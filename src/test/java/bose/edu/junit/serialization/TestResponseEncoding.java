@@ -0,0 +1,107 @@
+package bose.edu.junit.serialization;
+
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.Response;
+import bose.edu.junit.valueobjects.Service;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Unit test for response encodings")
+public class TestResponseEncoding {
+    private Controller objUnderTest;
+    private String json;
+
+    @BeforeEach
+    public void init() {
+        objUnderTest = new Controller(new Service(), mock(Logger.class));
+        json = objUnderTest.getAllProducts("1");
+    }
+
+    @Test
+    @DisplayName("JSON encoding matches the text response")
+    public void testJson() {
+        byte[] encoded = objUnderTest.getAllProducts("1", ResponseEncoding.JSON);
+        assertThat("Same JSON", new String(encoded, StandardCharsets.UTF_8), is(json));
+    }
+
+    @Test
+    @DisplayName("Compressed encodings inflate to the text response")
+    public void testCompressed() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            byte[] gzip = objUnderTest.getAllProducts("1", ResponseEncoding.GZIP_JSON);
+            assertThat("Gzip", IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(gzip)),
+                    StandardCharsets.UTF_8), is(json));
+
+            byte[] deflate = objUnderTest.getAllProducts("1", ResponseEncoding.DEFLATE_JSON);
+            assertThat("Deflate", IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(deflate)),
+                    StandardCharsets.UTF_8), is(json));
+        }
+    }
+
+    @Test
+    @DisplayName("Binary encoding round trip")
+    public void testBinary() {
+        byte[] encoded = objUnderTest.getAllProducts("1", ResponseEncoding.BINARY);
+        assertThat("Smaller than JSON", encoded.length, lessThan(json.length()));
+
+        Response response = new BinaryResponseCodec().decode(encoded);
+        assertThat("Status", response.getStatus(), is("200"));
+        assertThat("Message", response.getMessage(), is("Products fetched"));
+        assertThat("Products", response.getProducts(), hasSize(3));
+        assertThat("Name", response.getProducts().get(2).getName(), is("mac book pro"));
+        assertThat("Price", response.getProducts().get(2).getPrice(), is("2000$"));
+
+        Response unsupported = new BinaryResponseCodec().decode(
+                objUnderTest.getAllProducts("2", ResponseEncoding.BINARY));
+        assertThat("Status", unsupported.getStatus(), is("400"));
+        assertThat("No products", unsupported.getProducts(), nullValue());
+        assertThat("No token", unsupported.getNextPageToken(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Binary decoding rejects malformed input")
+    public void testBinaryMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> new BinaryResponseCodec().decode(new byte[]{9}));
+        assertThrows(IllegalArgumentException.class, () -> new BinaryResponseCodec().decode(new byte[]{1, 5}));
+    }
+
+    @Test
+    @DisplayName("Buffers are reused unless they grew too large")
+    public void testBufferPool() {
+        BufferPool pool = new BufferPool(1, 16);
+        PooledBuffer buffer = pool.acquire();
+        buffer.write(new byte[8], 0, 8);
+        pool.release(buffer);
+        assertThat("Pooled", pool.size(), is(1));
+
+        PooledBuffer reused = pool.acquire();
+        assertThat("Reused", reused, sameInstance(buffer));
+        assertThat("Reset", reused.size(), is(0));
+
+        reused.write(new byte[32], 0, 32);
+        pool.release(reused);
+        assertThat("Too large to retain", pool.size(), is(0));
+
+        pool.release(pool.acquire());
+        pool.release(pool.acquire());
+        PooledBuffer first = pool.acquire();
+        PooledBuffer second = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        assertThat("Bounded", pool.size(), is(1));
+    }
+}
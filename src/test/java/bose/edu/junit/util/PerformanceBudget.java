@@ -0,0 +1,30 @@
+package bose.edu.junit.util;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Checks a test against its allocation and latency budget in the baseline file, see
+ * {@link PerformanceBudgetExtension}. After the test passed, its method is invoked again on the same
+ * instance: first to warm up, then measured. The method therefore must take no parameters and must be
+ * repeatable, for instance it must not verify interactions with mocks.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(PerformanceBudgetExtension.class)
+public @interface PerformanceBudget {
+
+    /**
+     * @return invocations before measuring, enough for the JIT to compile the measured code
+     */
+    int warmup() default 20000;
+
+    /**
+     * @return measured invocations
+     */
+    int iterations() default 1000;
+}
@@ -0,0 +1,204 @@
+package bose.edu.junit.util;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Measures tests annotated with {@link PerformanceBudget} and fails them when they exceed their allocation budget.
+ * <p>
+ * Per invocation the extension measures the bytes allocated by the test thread, through
+ * {@code com.sun.management.ThreadMXBean}, and the median time. Budgets are read from
+ * {@value #BASELINE} on the test classpath, keyed by test class and method name:
+ *
+ * <pre>
+ * bose.edu.junit.valueobjects.TestPerformanceBudgets.getAllProducts.bytes=0
+ * bose.edu.junit.valueobjects.TestPerformanceBudgets.getAllProducts.nanos=150
+ * </pre>
+ * A test fails if it exceeds its allocation budget by more than the margin, a share of the budget set with
+ * the system property {@code performance.allocationMargin} (default 0.25). Latency depends on the machine and
+ * on what else it runs, so a latency budget exceeded by more than {@code performance.latencyMargin} (default
+ * 1.0) is only published as a report entry, unless {@code -Dperformance.enforceLatency=true} makes it fatal
+ * too, e.g. on a dedicated performance runner. Every measurement is published as a report entry; a test
+ * without budgets also publishes its baseline lines, to be added to the file. {@code -Dperformance.skip=true} turns the
+ * measurements off, e.g. for coverage runs.
+ */
+public class PerformanceBudgetExtension implements AfterTestExecutionCallback {
+    static final String BASELINE = "performance-baseline.properties";
+    private static final Object[] NO_ARGUMENTS = {};
+    private static final Properties BUDGETS = loadBudgets();
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws Exception {
+        if (context.getExecutionException().isPresent() || Boolean.getBoolean("performance.skip")) {
+            return;
+        }
+        Method method = context.getRequiredTestMethod();
+        PerformanceBudget budget = method.getAnnotation(PerformanceBudget.class);
+        if (budget == null) {
+            return;
+        }
+        if (method.getParameterCount() != 0) {
+            throw new ExtensionConfigurationException("@PerformanceBudget test " + method + " must not take parameters");
+        }
+        Measurement measurement = measure(context.getRequiredTestInstance(), method, budget);
+        String key = context.getRequiredTestClass().getName() + "." + method.getName();
+        long bytesBudget = budget(key + ".bytes");
+        long nanosBudget = budget(key + ".nanos");
+        context.publishReportEntry("performance", measurement.toString());
+        if (bytesBudget < 0 && nanosBudget < 0) {
+            context.publishReportEntry("performance.unbudgeted", key + ".bytes=" + measurement.getBytes()
+                    + ", " + key + ".nanos=" + measurement.getNanos());
+        }
+
+        String latency = latencyViolation(measurement, nanosBudget, margin("performance.latencyMargin", 1.0));
+        if (latency != null && !Boolean.getBoolean("performance.enforceLatency")) {
+            context.publishReportEntry("performance.latencyExceeded", latency);
+            latency = null;
+        }
+        String allocation = allocationViolation(measurement, bytesBudget,
+                margin("performance.allocationMargin", 0.25));
+        List<String> violations = new ArrayList<>();
+        if (allocation != null) {
+            violations.add(allocation);
+        }
+        if (latency != null) {
+            violations.add(latency);
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Performance budget of " + key + " exceeded: " + String.join(", ", violations));
+        }
+    }
+
+    /**
+     * Compares the allocations of a measurement to their budget.
+     *
+     * @param measurement measured test
+     * @param bytesBudget allocated bytes per invocation, negative if there is none
+     * @param margin      share of the budget a test may exceed it by
+     * @return the violation, or null if the test is within its budget
+     */
+    static String allocationViolation(Measurement measurement, long bytesBudget, double margin) {
+        if (bytesBudget >= 0 && measurement.getBytes() > bytesBudget * (1 + margin)) {
+            return measurement.getBytes() + " bytes/op allocated, budget " + bytesBudget;
+        }
+        return null;
+    }
+
+    /**
+     * Compares the median latency of a measurement to its budget.
+     *
+     * @param measurement measured test
+     * @param nanosBudget median nanoseconds per invocation, negative if there is none
+     * @param margin      share of the budget a test may exceed it by
+     * @return the violation, or null if the test is within its budget
+     */
+    static String latencyViolation(Measurement measurement, long nanosBudget, double margin) {
+        if (nanosBudget >= 0 && measurement.getNanos() > nanosBudget * (1 + margin)) {
+            return measurement.getNanos() + " ns/op, budget " + nanosBudget;
+        }
+        return null;
+    }
+
+    private static Measurement measure(Object instance, Method method, PerformanceBudget budget) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new ExtensionConfigurationException("The JVM does not measure allocated bytes per thread");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        method.setAccessible(true);
+        for (int i = 0; i < budget.warmup(); i++) {
+            invoke(instance, method);
+        }
+
+        long[] nanos = new long[budget.iterations()];
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            invoke(instance, method);
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        Arrays.sort(nanos);
+        return new Measurement(allocated / nanos.length, nanos[nanos.length / 2]);
+    }
+
+    private static void invoke(Object instance, Method method) throws Exception {
+        try {
+            method.invoke(instance, NO_ARGUMENTS);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static long budget(String key) {
+        String value = BUDGETS.getProperty(key);
+        return value == null ? -1 : Long.parseLong(value.trim());
+    }
+
+    private static double margin(String property, double fallback) {
+        String value = System.getProperty(property);
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+
+    /**
+     * Loads the budgets from the file named by {@code performance.baseline}, or from the test classpath.
+     */
+    private static Properties loadBudgets() {
+        Properties budgets = new Properties();
+        String file = System.getProperty("performance.baseline");
+        try (InputStream in = file != null ? Files.newInputStream(Paths.get(file))
+                : PerformanceBudgetExtension.class.getResourceAsStream("/" + BASELINE)) {
+            if (in != null) {
+                budgets.load(in);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return budgets;
+    }
+
+    /**
+     * Allocated bytes and median latency per invocation of a test.
+     */
+    static final class Measurement {
+        private final long bytes;
+        private final long nanos;
+
+        Measurement(long bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return bytes + " bytes/op, " + nanos + " ns/op";
+        }
+    }
+}
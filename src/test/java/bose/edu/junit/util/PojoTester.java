@@ -127,7 +127,7 @@ public class PojoTester {
         this.ignoredEqualsAndHash
                 = Optional.ofNullable(ignoredEqualsAndHash).orElseGet(HashSet::new);
 
-        setObjectUnderTest(clazz);
+        phase(clazz, PojoValidationEvent.CONSTRUCT, () -> setObjectUnderTest(clazz));
     }
 
     /**
@@ -151,7 +151,8 @@ public class PojoTester {
      */
     public static boolean validate(Class<?> clazz, Map<Class<?>, Supplier<?>> customMappers,
                                    Set<String> ignoreFields) {
-        new PojoTester(clazz, customMappers, ignoreFields, null).testGettersAndSetters();
+        PojoTester tester = new PojoTester(clazz, customMappers, ignoreFields, null);
+        phase(clazz, PojoValidationEvent.GETTERS_AND_SETTERS, tester::testGettersAndSetters);
         return true;
     }
 
@@ -192,11 +193,32 @@ public class PojoTester {
                                                         Set<String> ignoreFields,
                                                         Set<String> ignoredEqualsAndHash) {
         PojoTester tester = new PojoTester(clazz, customMappers, ignoreFields, ignoredEqualsAndHash);
-        tester.testGettersAndSetters();
-        tester.testEqualsAndHashcode();
+        phase(clazz, PojoValidationEvent.GETTERS_AND_SETTERS, tester::testGettersAndSetters);
+        phase(clazz, PojoValidationEvent.EQUALS_AND_HASHCODE, tester::testEqualsAndHashcode);
         return true;
     }
 
+    /**
+     * Runs one validation phase inside a {@link PojoValidationEvent}.
+     *
+     * @param clazz class of object under test
+     * @param phase phase name
+     * @param body  phase to run
+     */
+    private static void phase(Class<?> clazz, String phase, Runnable body) {
+        PojoValidationEvent event = new PojoValidationEvent();
+        event.begin();
+        boolean passed = false;
+        try {
+            body.run();
+            passed = true;
+        } finally {
+            if (event.shouldCommit()) {
+                event.complete(clazz, phase, passed);
+            }
+        }
+    }
+
     /**
      * Tests the equality of Object under test with another object using shallow copy.
      */
@@ -411,51 +433,7 @@ public class PojoTester {
      * @return Map - field name and getter setter pair
      */
     private Map<String, GetterSetterPair> getGetterSettersPair() {
-        /* Sort items for consistent test runs. */
-        final SortedMap<String, GetterSetterPair> getterSetterMapping = new TreeMap<>();
-
-        for (final Method method : objectUnderTest.getClass().getMethods()) {
-            final String methodName = method.getName();
-
-            if (this.ignoredGetMethods.contains(methodName)) {
-                continue;
-            }
-
-            String objectName;
-            GetterSetterPair getterSettingPair = new GetterSetterPair();
-            if (methodName.startsWith("get") && method.getParameters().length == 0) {
-                /* Found the get method. */
-                objectName = methodName.substring("get".length());
-                getterSettingPair.setGetter(method);
-
-                getterSetterMapping.merge(objectName, getterSettingPair,
-                        (k, v) -> {
-                            k.setGetter(method);
-                            return k;
-                        });
-            } else if (methodName.startsWith("set") && method.getParameters().length == 1) {
-                /* Found the set method. */
-                objectName = methodName.substring("set".length());
-                getterSettingPair.setSetter(method);
-
-                getterSetterMapping.merge(objectName, getterSettingPair,
-                        (k, v) -> {
-                            k.setSetter(method);
-                            return k;
-                        });
-            } else if (methodName.startsWith("is") && method.getParameters().length == 0) {
-                /* Found the is method, which really is a get method. */
-                objectName = methodName.substring("is".length());
-                getterSettingPair.setGetter(method);
-
-                getterSetterMapping.merge(objectName, getterSettingPair,
-                        (k, v) -> {
-                            k.setGetter(method);
-                            return k;
-                        });
-            }
-        }
-        return getterSetterMapping;
+        return GetterSetterPair.scan(objectUnderTest.getClass(), ignoredGetMethods);
     }
 
     /**
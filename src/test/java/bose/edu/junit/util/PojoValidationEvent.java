@@ -0,0 +1,38 @@
+package bose.edu.junit.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering one validation phase of {@link PojoTester} for one class.
+ */
+@Name("bose.edu.junit.PojoValidation")
+@Label("Pojo Validation")
+@Category({"Product Catalog", "Tests"})
+@Description("Validation phase of PojoTester for one class")
+@StackTrace(false)
+class PojoValidationEvent extends Event {
+    static final String CONSTRUCT = "construct";
+    static final String GETTERS_AND_SETTERS = "getters-setters";
+    static final String EQUALS_AND_HASHCODE = "equals-hashcode";
+
+    @Label("Class")
+    String className;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Passed")
+    boolean passed;
+
+    void complete(Class<?> clazz, String phase, boolean passed) {
+        this.className = clazz.getName();
+        this.phase = phase;
+        this.passed = passed;
+        commit();
+    }
+}
@@ -0,0 +1,307 @@
+package bose.edu.junit.util;
+
+import bose.edu.junit.valueobjects.GenericProduct;
+import bose.edu.junit.valueobjects.LazyResponse;
+import bose.edu.junit.valueobjects.Product;
+import bose.edu.junit.valueobjects.Response;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for ObjectCopier")
+public class TestObjectCopier {
+
+    @Test
+    @DisplayName("Immutable values are shared and classes with mutable state are not")
+    public void testImmutable() {
+        assertThat(ObjectCopier.isImmutable(String.class), is(true));
+        assertThat(ObjectCopier.isImmutable(LocalDateTime.class), is(true));
+        assertThat(ObjectCopier.isImmutable(Product.class), is(true));
+        assertThat(ObjectCopier.isImmutable(GenericProduct.class), is(false));
+        assertThat(ObjectCopier.isImmutable(Date.class), is(false));
+        assertThat(ObjectCopier.isImmutable(Sample.class), is(false));
+
+        Product product = new Product("ipad", "100$");
+        assertThat(ObjectCopier.deepCopy(product), sameInstance(product));
+        assertThat(ObjectCopier.deepCopy(null), nullValue());
+    }
+
+    @Test
+    @DisplayName("A response is copied with a new product list holding the same immutable products")
+    public void testResponse() {
+        List<Product> products = Arrays.asList(new Product("ipad", "100$"), new Product("mac", "200$"));
+        Response response = new Response("200", "Products", products, "token");
+
+        Response copy = ObjectCopier.deepCopy(response);
+
+        assertThat(copy, not(sameInstance(response)));
+        assertThat(copy.getStatus(), is("200"));
+        assertThat(copy.getMessage(), is("Products"));
+        assertThat(copy.getNextPageToken(), is("token"));
+        assertThat(copy.getProducts(), not(sameInstance(products)));
+        assertThat(copy.getProducts(), hasSize(2));
+        assertThat(copy.getProducts().get(0), sameInstance(products.get(0)));
+        assertThat(copy.getProducts().get(1), sameInstance(products.get(1)));
+    }
+
+    @Test
+    @DisplayName("Generic products are copied with their sub types, keeping map order and comparator")
+    public void testGenericProducts() {
+        Map<String, String> ordered = new LinkedHashMap<>();
+        ordered.put("size", "128gb");
+        ordered.put("color", "black");
+        Map<String, String> sorted = new TreeMap<>(Comparator.reverseOrder());
+        sorted.put("a", "1");
+        sorted.put("b", "2");
+        List<GenericProduct> products = new ArrayList<>(Arrays.asList(
+                new GenericProduct("ipad", "100$", ordered), new GenericProduct("mac", "200$", sorted),
+                new GenericProduct("pen", "1$", null)));
+
+        List<GenericProduct> copy = ObjectCopier.deepCopy(products);
+
+        assertThat(copy, hasSize(3));
+        for (int i = 0; i < products.size(); i++) {
+            assertThat(copy.get(i), not(sameInstance(products.get(i))));
+            assertThat(copy.get(i).getName(), sameInstance(products.get(i).getName()));
+            assertThat(copy.get(i).getPrice(), is(products.get(i).getPrice()));
+        }
+        assertThat(copy.get(0).getSubTypes(), not(sameInstance(ordered)));
+        assertThat(copy.get(0).getSubTypes(), instanceOf(LinkedHashMap.class));
+        assertThat(copy.get(0).getSubTypes().keySet(), contains("size", "color"));
+        assertThat(copy.get(1).getSubTypes().keySet(), contains("b", "a"));
+        assertThat(copy.get(2).getSubTypes(), nullValue());
+
+        ordered.put("weight", "1kg");
+        assertThat(copy.get(0).getSubTypes(), not(hasKey("weight")));
+    }
+
+    @Test
+    @DisplayName("Unmodifiable collections stay unmodifiable and immutable ones of immutable values are shared")
+    public void testCollections() {
+        List<Product> immutable = ImmutableList.of(new Product("ipad", "100$"));
+        assertThat(ObjectCopier.deepCopy(immutable), sameInstance(immutable));
+
+        List<GenericProduct> unmodifiable = Collections.unmodifiableList(
+                new ArrayList<>(Collections.singletonList(new GenericProduct("ipad", "100$", null))));
+        List<GenericProduct> copy = ObjectCopier.deepCopy(unmodifiable);
+        assertThat(copy, not(sameInstance(unmodifiable)));
+        assertThat(copy.get(0), not(sameInstance(unmodifiable.get(0))));
+        assertThrows(UnsupportedOperationException.class, () -> copy.add(null));
+    }
+
+    @Test
+    @DisplayName("Primitive fields, arrays and cloneable JDK types are copied")
+    public void testFields() {
+        Sample sample = new Sample();
+        sample.count = 7;
+        sample.values = new long[]{1, 2};
+        sample.created = new Date(1000);
+        sample.children = new Sample[]{new Sample()};
+        sample.children[0].count = 3;
+
+        Sample copy = ObjectCopier.deepCopy(sample);
+
+        assertThat(copy.count, is(7));
+        assertThat(copy.values, not(sameInstance(sample.values)));
+        assertThat(copy.values[1], is(2L));
+        assertThat(copy.created, not(sameInstance(sample.created)));
+        assertThat(copy.created, is(sample.created));
+        assertThat(copy.children[0], not(sameInstance(sample.children[0])));
+        assertThat(copy.children[0].count, is(3));
+    }
+
+    @Test
+    @DisplayName("A lazy response keeps its product source")
+    public void testLazyResponse() {
+        List<Product> source = Collections.singletonList(new Product("ipad", "100$"));
+        LazyResponse copy = ObjectCopier.deepCopy(new LazyResponse("200", "Products", source));
+
+        assertThat(copy.getProductCount(), is(1));
+        assertThat(copy.getProducts(), contains(sameInstance(source.get(0))));
+    }
+
+    @Test
+    @DisplayName("Shallow copies share the values of the source")
+    public void testShallowCopy() {
+        Map<String, String> subTypes = Collections.singletonMap("size", "128gb");
+        GenericProduct product = new GenericProduct("ipad", "100$", subTypes);
+
+        GenericProduct copy = ObjectCopier.shallowCopy(product);
+        assertThat(copy, not(sameInstance(product)));
+        assertThat(copy.getSubTypes(), sameInstance(subTypes));
+
+        GenericProduct target = new GenericProduct(null, null, null);
+        ObjectCopier.copyProperties(product, target);
+        assertThat(target.getName(), is("ipad"));
+        assertThat(target.getSubTypes(), sameInstance(subTypes));
+        assertThrows(IllegalArgumentException.class, () -> ObjectCopier.copyProperties(product, new Sample()));
+    }
+
+    @Test
+    @DisplayName("JDK types which can neither be shared nor cloned are rejected")
+    public void testUncopyable() {
+        assertThrows(IllegalArgumentException.class, () -> ObjectCopier.deepCopy(new AtomicLong()));
+    }
+
+    @Test
+    @DisplayName("Fields of other JDK collection classes keep their class")
+    public void testCollectionClasses() {
+        Containers containers = new Containers();
+        containers.prices.put(TimeUnit.SECONDS, new Date(1));
+        containers.queue.add(new Date(2));
+        containers.listeners.add(new Date(3));
+        containers.units.add(TimeUnit.DAYS);
+
+        Containers copy = ObjectCopier.deepCopy(containers);
+
+        assertThat(copy.prices, instanceOf(EnumMap.class));
+        assertThat(copy.prices.get(TimeUnit.SECONDS), is(new Date(1)));
+        assertThat(copy.prices.get(TimeUnit.SECONDS), not(sameInstance(containers.prices.get(TimeUnit.SECONDS))));
+        assertThat(copy.queue, instanceOf(ArrayDeque.class));
+        assertThat(copy.queue.peek(), not(sameInstance(containers.queue.peek())));
+        assertThat(copy.listeners, instanceOf(CopyOnWriteArrayList.class));
+        assertThat(copy.listeners, contains(equalTo(new Date(3))));
+        assertThat(copy.units, contains(equalTo(TimeUnit.DAYS)));
+        assertThat(copy.units, not(sameInstance(containers.units)));
+
+        EnumMap<TimeUnit, String> empty = new EnumMap<>(TimeUnit.class);
+        EnumMap<TimeUnit, String> emptyCopy = ObjectCopier.deepCopy(empty);
+        emptyCopy.put(TimeUnit.DAYS, "day");
+        assertThat(empty.isEmpty(), is(true));
+    }
+
+    @Test
+    @DisplayName("Copies are created through the canonical or the no-argument constructor")
+    public void testConstructors() {
+        Checked source = new Checked("ipad");
+        Checked copy = ObjectCopier.deepCopy(source);
+        assertThat(copy, not(sameInstance(source)));
+        assertThat(copy.name, is("ipad"));
+
+        source.name = null;
+        assertThrows(IllegalArgumentException.class, () -> ObjectCopier.deepCopy(source),
+                "The canonical constructor checks the values of the source");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> ObjectCopier.deepCopy(new Unconstructible(1, 2)));
+        assertThat(ex.getMessage(), containsString("constructor"));
+    }
+
+    @Test
+    @DisplayName("Fields declared as a collection type copies may not have are rejected when the copier is built")
+    public void testUncopyableField() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> ObjectCopier.deepCopy(new Backlog()));
+        assertThat(ex.getMessage(), containsString("pending"));
+    }
+
+    static class Containers {
+        private EnumMap<TimeUnit, Date> prices = new EnumMap<>(TimeUnit.class);
+        private ArrayDeque<Date> queue = new ArrayDeque<>();
+        private CopyOnWriteArrayList<Date> listeners = new CopyOnWriteArrayList<>();
+        private EnumSet<TimeUnit> units = EnumSet.noneOf(TimeUnit.class);
+
+        public EnumMap<TimeUnit, Date> getPrices() {
+            return prices;
+        }
+
+        public ArrayDeque<Date> getQueue() {
+            return queue;
+        }
+
+        public CopyOnWriteArrayList<Date> getListeners() {
+            return listeners;
+        }
+
+        public EnumSet<TimeUnit> getUnits() {
+            return units;
+        }
+    }
+
+    static class Backlog {
+        private BlockingQueue<Date> pending = new LinkedBlockingQueue<>();
+
+        public BlockingQueue<Date> getPending() {
+            return pending;
+        }
+    }
+
+    static class Checked {
+        private String name;
+
+        Checked(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("Name is required");
+            }
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    static class Unconstructible {
+        private int low;
+        private int high;
+
+        Unconstructible(int bound, long unused) {
+            this.low = bound;
+            this.high = bound;
+        }
+
+        public int getLow() {
+            return low;
+        }
+
+        public int getHigh() {
+            return high;
+        }
+    }
+
+    static class Sample {
+        private int count;
+        private long[] values;
+        private Date created;
+        private Sample[] children;
+
+        public int getCount() {
+            return count;
+        }
+
+        public long[] getValues() {
+            return values;
+        }
+
+        public Date getCreated() {
+            return created;
+        }
+
+        public Sample[] getChildren() {
+            return children;
+        }
+    }
+}
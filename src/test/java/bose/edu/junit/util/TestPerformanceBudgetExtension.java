@@ -0,0 +1,39 @@
+package bose.edu.junit.util;
+
+import bose.edu.junit.util.PerformanceBudgetExtension.Measurement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Unit test for PerformanceBudgetExtension")
+public class TestPerformanceBudgetExtension {
+    private long[] sink = new long[0];
+
+    @Test
+    @DisplayName("Budgets are exceeded only beyond their margin")
+    public void testViolations() {
+        Measurement measurement = new Measurement(120, 300);
+
+        assertThat(PerformanceBudgetExtension.allocationViolation(measurement, 100, 0.25), nullValue());
+        assertThat(PerformanceBudgetExtension.latencyViolation(measurement, 200, 1.0), nullValue());
+        assertThat(PerformanceBudgetExtension.allocationViolation(measurement, 90, 0.25),
+                is("120 bytes/op allocated, budget 90"));
+        assertThat(PerformanceBudgetExtension.latencyViolation(measurement, 100, 1.0), is("300 ns/op, budget 100"));
+        assertThat("A zero budget allows no allocation",
+                PerformanceBudgetExtension.allocationViolation(new Measurement(8, 0), 0, 0.25), notNullValue());
+        assertThat("Missing budgets are not checked",
+                PerformanceBudgetExtension.allocationViolation(measurement, -1, 0), nullValue());
+        assertThat("Missing budgets are not checked",
+                PerformanceBudgetExtension.latencyViolation(measurement, -1, 0), nullValue());
+    }
+
+    @Test
+    @PerformanceBudget(warmup = 100, iterations = 100)
+    @DisplayName("An annotated test without budgets is measured and passes")
+    public void testWithoutBudget() {
+        sink = new long[16];
+        assertThat(sink.length, is(16));
+    }
+}
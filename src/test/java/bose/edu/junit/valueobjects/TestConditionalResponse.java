@@ -0,0 +1,105 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.catalog.CatalogDelta;
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.catalog.VersionedCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Unit test for conditional product requests")
+public class TestConditionalResponse {
+    private VersionedCatalog catalog;
+    private Service service;
+    private Controller objUnderTest;
+
+    @BeforeEach
+    public void init() {
+        catalog = new VersionedCatalog(ProductStore.builder()
+                .add("1", new Product("ipad", "1000$"))
+                .build());
+        service = spy(new Service(catalog));
+        objUnderTest = new Controller(service, mock(Logger.class));
+    }
+
+    @Test
+    @DisplayName("Matching tag is answered without fetching the products")
+    public void testNotModified() {
+        ConditionalResponse first = objUnderTest.getAllProductsIfModified("1", null);
+        assertThat("Modified", first.isModified(), is(true));
+        assertThat("Tag", first.getEtag(), org.hamcrest.Matchers.startsWith("\""));
+        assertThat("Body", first.getBody(), is(objUnderTest.getAllProducts("1")));
+        assertThat("Status", first.getStatus(), is("200"));
+
+        reset(service);
+        ConditionalResponse second = objUnderTest.getAllProductsIfModified("1", first.getEtag());
+        assertThat("Not modified", second.isModified(), is(false));
+        assertThat("Same tag", second.getEtag(), is(first.getEtag()));
+        assertThat("Short body", second.getBody(), is("{\"status\":\"304\",\"message\":\"Not modified\"}"));
+        assertThat("Status", second.getStatus(), is("304"));
+        verify(service, never()).getAllProducts(anyString());
+    }
+
+    @Test
+    @DisplayName("A new region version invalidates the tag")
+    public void testChanged() {
+        String etag = objUnderTest.getAllProductsIfModified("1", null).getEtag();
+        catalog.apply(Collections.singletonList(CatalogDelta.update("1", new Product("ipad", "900$"))));
+
+        ConditionalResponse changed = objUnderTest.getAllProductsIfModified("1", etag);
+        assertThat("Modified", changed.isModified(), is(true));
+        assertThat("New tag", changed.getEtag(), not(etag));
+        assertThat("New body", changed.getBody(), containsString("900$"));
+    }
+
+    @Test
+    @DisplayName("Content identical after a version change is still not modified")
+    public void testSameContentNewVersion() {
+        String etag = objUnderTest.getAllProductsIfModified("1", null).getEtag();
+        catalog.apply(Collections.singletonList(CatalogDelta.update("1", new Product("ipad", "1000$"))));
+
+        ConditionalResponse response = objUnderTest.getAllProductsIfModified("1", etag);
+        assertThat("Not modified", response.isModified(), is(false));
+    }
+
+    @Test
+    @DisplayName("A body read while the region changes carries no tag")
+    public void testChangedDuringLoad() {
+        doAnswer(invocation -> {
+            Object products = invocation.callRealMethod();
+            catalog.apply(Collections.singletonList(CatalogDelta.update("1", new Product("ipad", "900$"))));
+            return products;
+        }).doCallRealMethod().when(service).getAllProducts("1");
+
+        ConditionalResponse during = objUnderTest.getAllProductsIfModified("1", null);
+        assertThat("Old body", during.getBody(), containsString("1000$"));
+        assertThat("No tag", during.getEtag(), nullValue());
+
+        ConditionalResponse after = objUnderTest.getAllProductsIfModified("1", null);
+        assertThat("New body", after.getBody(), containsString("900$"));
+        assertThat("Tag", after.getEtag(), notNullValue());
+
+        reset(service);
+        ConditionalResponse same = objUnderTest.getAllProductsIfModified("1", after.getEtag());
+        assertThat("Not modified", same.isModified(), is(false));
+        ConditionalResponse other = objUnderTest.getAllProductsIfModified("1", "\"stale\"");
+        assertThat("Tagged body", other.getBody(), is(after.getBody()));
+        assertThat("Same tag", other.getEtag(), is(after.getEtag()));
+        verify(service, never()).getAllProducts(anyString());
+    }
+
+    @Test
+    @DisplayName("Errors carry no tag")
+    public void testUnsupportedRegion() {
+        ConditionalResponse response = objUnderTest.getAllProductsIfModified("2", "\"x\"");
+        assertThat("Modified", response.isModified(), is(true));
+        assertThat("No tag", response.getEtag(), nullValue());
+        assertThat("Body", response.getBody(), containsString("Region not supported"));
+    }
+}
@@ -0,0 +1,79 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.util.PerformanceBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation and latency budgets of the request path, kept in performance-baseline.properties.
+ * The checks avoid hamcrest matchers, which would allocate on every measured invocation.
+ */
+@DisplayName("Performance budgets of Controller, Service and value objects")
+public class TestPerformanceBudgets {
+    private Service service;
+    private Controller controller;
+    private Controller cachedController;
+    private String etag;
+    private Response response;
+
+    @BeforeEach
+    public void init() {
+        service = new Service();
+        controller = new Controller(service, new Logger());
+        cachedController = new Controller(service, new Logger(), new SerializedResponseCache());
+        cachedController.getAllProducts("1");
+        etag = controller.getAllProductsIfModified("1", null).getEtag();
+        response = service.getAllProducts("1");
+    }
+
+    @Test
+    @PerformanceBudget
+    @DisplayName("Cached JSON responses are served without fetching or serializing")
+    public void getAllProductsCached() {
+        assertTrue(cachedController.getAllProducts("1").startsWith("{\"status\":\"200\""));
+    }
+
+    @Test
+    @PerformanceBudget
+    @DisplayName("Uncached JSON responses are fetched and serialized")
+    public void getAllProducts() {
+        assertTrue(controller.getAllProducts("1").startsWith("{\"status\":\"200\""));
+    }
+
+    @Test
+    @PerformanceBudget
+    @DisplayName("UTF-8 responses are encoded from a pooled buffer")
+    public void getAllProductsAsUtf8() {
+        assertEquals('{', controller.getAllProductsAsUtf8("1")[0]);
+    }
+
+    @Test
+    @PerformanceBudget
+    @DisplayName("A matching entity tag is answered without fetching")
+    public void getAllProductsNotModified() {
+        assertFalse(controller.getAllProductsIfModified("1", etag).isModified());
+    }
+
+    @Test
+    @PerformanceBudget
+    @DisplayName("Service lookups only allocate the lazy response")
+    public void serviceGetAllProducts() {
+        assertEquals(3, service.getAllProducts("1").getProductCount());
+    }
+
+    @Test
+    @PerformanceBudget
+    @DisplayName("Products of a lazy response are streamed without materializing them")
+    public void responseProducts() {
+        int characters = 0;
+        for (Product product : response.products()) {
+            characters += product.getName().length();
+        }
+        assertEquals(22, characters);
+    }
+}
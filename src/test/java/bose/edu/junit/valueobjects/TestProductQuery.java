@@ -0,0 +1,132 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.catalog.CatalogDelta;
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.catalog.VersionedCatalog;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static com.jayway.jsonpath.matchers.JsonPathMatchers.*;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Unit test for paged and projected product queries")
+public class TestProductQuery {
+    private Controller objUnderTest;
+    private Logger logger;
+    private JsonProvider jsonProvider = Configuration.defaultConfiguration().jsonProvider();
+
+    @BeforeEach
+    public void init() {
+        logger = mock(Logger.class);
+        objUnderTest = new Controller(new Service(), logger);
+    }
+
+    @Test
+    @DisplayName("Pages are chained with continuation tokens")
+    public void testPagination() {
+        String first = objUnderTest.getAllProducts("1", new ProductQuery(2, null, null));
+        assertThat("First page", jsonProvider.parse(first), isJson(allOf(
+                withJsonPath("$.status", equalTo("200")),
+                withJsonPath("$.products[*].name", contains("ipad", "iphone")),
+                withJsonPath("$.nextPageToken"))));
+
+        String token = JsonPath.read(first, "$.nextPageToken");
+        String last = objUnderTest.getAllProducts("1", new ProductQuery(2, token, null));
+        assertThat("Last page", jsonProvider.parse(last), isJson(allOf(
+                withJsonPath("$.products[*].name", contains(equalTo("mac book pro"))),
+                withoutJsonPath("$.nextPageToken"))));
+        verifyZeroInteractions(logger);
+    }
+
+    @Test
+    @DisplayName("A page token expires once its region changes")
+    public void testPaginationAcrossChange() {
+        VersionedCatalog catalog = new VersionedCatalog(ProductStore.builder()
+                .add("1", new Product("a", "1$")).add("1", new Product("b", "2$"))
+                .add("1", new Product("c", "3$")).add("2", new Product("x", "9$")).build());
+        Controller controller = new Controller(new Service(catalog), logger);
+        String first = controller.getAllProducts("1", new ProductQuery(2, null, null));
+        String token = JsonPath.read(first, "$.nextPageToken");
+
+        /* a change of another region keeps the token valid */
+        catalog.apply(Collections.singletonList(CatalogDelta.remove("2", "x")));
+        assertThat("Other region changed", jsonProvider.parse(controller.getAllProducts("1",
+                new ProductQuery(2, token, null))), isJson(withJsonPath("$.products[*].name", contains(equalTo("c")))));
+
+        /* removing "a" would shift "c" to offset 1 and an offset cursor would skip it */
+        catalog.apply(Collections.singletonList(CatalogDelta.remove("1", "a")));
+        assertThat("Region changed", jsonProvider.parse(controller.getAllProducts("1",
+                new ProductQuery(2, token, null))), isJson(allOf(
+                withJsonPath("$.status", equalTo("400")),
+                withJsonPath("$.message", equalTo("Page token expired, the region changed")))));
+
+        String restarted = controller.getAllProducts("1", new ProductQuery(2, null, null));
+        assertThat("Restarted", jsonProvider.parse(restarted), isJson(allOf(
+                withJsonPath("$.products[*].name", contains("b", "c")),
+                withoutJsonPath("$.nextPageToken"))));
+    }
+
+    @Test
+    @DisplayName("Without a page size all products are returned")
+    public void testNoPageSize() {
+        String response = objUnderTest.getAllProducts("1", new ProductQuery(0, null, null));
+        assertThat("All products", jsonProvider.parse(response), isJson(allOf(
+                withJsonPath("$.products", hasSize(3)),
+                withoutJsonPath("$.nextPageToken"))));
+    }
+
+    @Test
+    @DisplayName("Only projected fields are serialized")
+    public void testProjection() {
+        String response = objUnderTest.getAllProducts("1",
+                new ProductQuery(0, null, Collections.singleton(ProductQuery.FIELD_NAME)));
+        assertThat("Names only", jsonProvider.parse(response), isJson(allOf(
+                withJsonPath("$.products[*].name", hasSize(3)),
+                withJsonPath("$.products[*].price", is(empty())))));
+        assertThat("Serialized", response, not(containsString("price")));
+    }
+
+    @Test
+    @DisplayName("Invalid queries are rejected")
+    public void testInvalidQueries() {
+        assertThat("Unknown field", jsonProvider.parse(objUnderTest.getAllProducts("1",
+                new ProductQuery(0, null, Collections.singleton("color")))),
+                isJson(withJsonPath("$.message", equalTo("Unsupported field"))));
+        assertThat("Garbage token", jsonProvider.parse(objUnderTest.getAllProducts("1",
+                new ProductQuery(1, "%%%", null))),
+                isJson(withJsonPath("$.message", equalTo("Invalid page token"))));
+
+        String token = JsonPath.read(objUnderTest.getAllProducts("1", new ProductQuery(1, null, null)),
+                "$.nextPageToken");
+        assertThat("Token of another region", jsonProvider.parse(objUnderTest.getAllProducts("2",
+                new ProductQuery(1, token, null))),
+                isJson(withJsonPath("$.message", equalTo("Region not supported"))));
+        assertThat("Unknown region", jsonProvider.parse(objUnderTest.getAllProducts("2",
+                new ProductQuery(1, null, null))),
+                isJson(withJsonPath("$.status", equalTo("400"))));
+    }
+
+    @Test
+    @DisplayName("Cheapest products and price ranges are sorted by price")
+    public void testProductsByPrice() {
+        Service service = new Service();
+        Response cheapest = service.getCheapestProducts("1", 2);
+        assertThat(cheapest.getStatus(), is("200"));
+        assertThat(cheapest.getProducts(), hasSize(2));
+        assertThat(cheapest.getProducts().get(0).getName(), is("iphone"));
+        assertThat(cheapest.getProducts().get(1).getName(), is("ipad"));
+        assertThat(service.getProductsByPrice("1", 2, 10).getProducts(),
+                contains(hasProperty("name", is("mac book pro"))));
+        assertThat(service.getProductsByPrice("1", -1, 10).getMessage(), is("Invalid range"));
+        assertThat(service.getCheapestProducts("2", 1).getMessage(), is("Region not supported"));
+    }
+}
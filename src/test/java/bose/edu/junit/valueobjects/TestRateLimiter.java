@@ -0,0 +1,208 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.serialization.BinaryResponseCodec;
+import bose.edu.junit.serialization.IndexedResponse;
+import bose.edu.junit.serialization.ResponseEncoding;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for RateLimiter")
+public class TestRateLimiter {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Starts away from zero, since nanoTime values may be anywhere including negative.
+     */
+    private final AtomicLong clock = new AtomicLong(-5 * SECOND);
+
+    @Test
+    @DisplayName("A bucket admits its burst at once and then the sustained rate")
+    public void testBurstAndRefill() {
+        RateLimiter limiter = limiter(new RateLimit(10, 3), RateLimit.UNLIMITED);
+
+        assertThat(acquire(limiter, null, "1", 5), is(3));
+        clock.addAndGet(SECOND / 10);
+        assertThat(acquire(limiter, null, "1", 5), is(1));
+        clock.addAndGet(SECOND);
+        assertThat("Refills up to the burst only", acquire(limiter, null, "1", 20), is(3));
+        assertThat("Regions have their own buckets", acquire(limiter, null, "2", 5), is(3));
+    }
+
+    @Test
+    @DisplayName("Callers are limited independently and keep their token when the region rejects")
+    public void testCallerLimit() {
+        RateLimiter limiter = limiter(new RateLimit(1, 3), new RateLimit(1, 2));
+
+        assertThat(acquire(limiter, "alice", "1", 5), is(2));
+        assertThat(acquire(limiter, "bob", "1", 5), is(1));
+        assertThat("Anonymous requests only count for the region", acquire(limiter, null, "2", 5), is(3));
+
+        assertThat("Region 1 is exhausted", limiter.tryAcquire("carol", "1"), is(false));
+        assertThat("Carol's token was given back", acquire(limiter, "carol", "3", 5), is(2));
+    }
+
+    @Test
+    @DisplayName("Limits change at runtime without resetting the buckets")
+    public void testReconfiguration() {
+        RateLimiter limiter = limiter(new RateLimit(1, 1), RateLimit.UNLIMITED);
+        assertThat(acquire(limiter, null, "1", 5), is(1));
+
+        limiter.setRegionLimit(new RateLimit(1, 4));
+        assertThat("The larger burst applies to the same bucket", acquire(limiter, null, "1", 5), is(3));
+
+        limiter.setRegionLimit("1", RateLimit.UNLIMITED);
+        assertThat(acquire(limiter, null, "1", 100), is(100));
+        assertThat(acquire(limiter, null, "2", 5), is(4));
+
+        limiter.setRegionLimit("1", null);
+        assertThat("Back to the default limit", acquire(limiter, null, "1", 5), is(0));
+        assertThat(limiter.getRegionLimit().getBurst(), is(4));
+
+        limiter.setCallerLimit("noisy", new RateLimit(1, 1));
+        assertThat(acquire(limiter, "noisy", "3", 5), is(1));
+        assertThat(acquire(limiter, "quiet", "3", 5), is(3));
+    }
+
+    @Test
+    @DisplayName("Concurrent callers never exceed the burst")
+    public void testConcurrentAcquire() throws Exception {
+        RateLimiter limiter = limiter(new RateLimit(1, 1000), RateLimit.UNLIMITED);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> admitted = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                admitted.add(executor.submit(() -> {
+                    start.await();
+                    return acquire(limiter, null, "1", 500);
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : admitted) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total, is(1000));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Refilled buckets are evicted")
+    public void testEvictIdle() {
+        RateLimiter limiter = limiter(new RateLimit(1, 2), new RateLimit(1, 2));
+        limiter.tryAcquire("alice", "1");
+        limiter.tryAcquire("bob", "2");
+        assertThat(limiter.bucketCount(), is(4));
+        assertThat(limiter.evictIdle(), is(0));
+
+        clock.addAndGet(SECOND);
+        assertThat(limiter.evictIdle(), is(4));
+        assertThat(limiter.bucketCount(), is(0));
+        assertThat("An evicted bucket starts full", acquire(limiter, "alice", "1", 5), is(2));
+    }
+
+    @Test
+    @DisplayName("Creating buckets evicts the refilled ones once they doubled")
+    public void testSweep() {
+        RateLimiter limiter = new RateLimiter(new RateLimit(1, 2), RateLimit.UNLIMITED, clock::get, 4);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire(null, "unknown " + i);
+        }
+        assertThat(limiter.bucketCount(), is(4));
+
+        clock.addAndGet(SECOND);
+        limiter.tryAcquire(null, "1");
+        assertThat("Refilled buckets were swept", limiter.bucketCount(), is(1));
+
+        for (int i = 0; i < 7; i++) {
+            limiter.tryAcquire(null, "busy " + i);
+        }
+        assertThat("Active buckets are kept", limiter.bucketCount(), is(8));
+        limiter.tryAcquire(null, "busy 7");
+        assertThat(limiter.bucketCount(), is(9));
+    }
+
+    @Test
+    @DisplayName("A huge burst saturates the tolerance instead of overflowing")
+    public void testHugeBurst() {
+        RateLimit limit = new RateLimit(1e-6, Integer.MAX_VALUE);
+        assertThat(limit.getToleranceNanos(), greaterThan(0L));
+        assertThat(limit.getToleranceNanos() + limit.getEmissionNanos(), is(Long.MAX_VALUE));
+
+        RateLimiter limiter = limiter(limit, RateLimit.UNLIMITED);
+        assertThat(acquire(limiter, null, "1", 1000), is(1000));
+    }
+
+    @Test
+    @DisplayName("Invalid limits are rejected")
+    public void testInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimit(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimit(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimit(Double.NaN, 1));
+    }
+
+    @Test
+    @DisplayName("The Controller answers over limit requests with a 429 response")
+    public void testController() {
+        RateLimiter limiter = new RateLimiter(new RateLimit(0.001, 2), new RateLimit(0.001, 1));
+        Controller controller = new Controller(new Service(), new Logger(), null, limiter);
+
+        assertThat(IndexedResponse.parse(controller.getAllProducts("1")).getStatus(), is("200"));
+        assertThat(IndexedResponse.parse(controller.getAllProductsFor("alice", "1")).getStatus(), is("200"));
+        assertThat(IndexedResponse.parse(controller.getAllProductsFor("bob", "1")).getMessage(),
+                is("Too many requests, please try later"));
+        assertThat(IndexedResponse.parse(controller.getAllProductsAsUtf8("1")).getStatus(), is("429"));
+        assertThat(controller.getAllProductsIfModified("1", null).getBody(), containsString("\"429\""));
+        assertThat(controller.getAllProducts("1", new ProductQuery(10, null, null)), containsString("\"429\""));
+        assertThat(controller.getAllProducts("1", ResponseEncoding.BINARY).length, greaterThan(0));
+
+        assertThat("Other regions are not affected",
+                IndexedResponse.parse(controller.getAllProductsFor("carol", "2")).getStatus(), is("400"));
+    }
+
+    @Test
+    @DisplayName("Every Controller endpoint charges the caller")
+    public void testControllerCaller() {
+        RateLimiter limiter = new RateLimiter(RateLimit.UNLIMITED, new RateLimit(0.001, 1));
+        Controller controller = new Controller(new Service(), new Logger(), null, limiter);
+
+        assertThat(IndexedResponse.parse(controller.getAllProductsAsUtf8For("alice", "1")).getStatus(), is("200"));
+        assertThat(controller.getAllProductsIfModifiedFor("alice", "1", null).getStatus(), is("429"));
+        assertThat(controller.getAllProductsFor("alice", "1", new ProductQuery(10, null, null)),
+                containsString("\"429\""));
+        assertThat(new BinaryResponseCodec().decode(controller.getAllProductsFor("alice", "1",
+                ResponseEncoding.BINARY)).getStatus(), is("429"));
+        assertThat(IndexedResponse.parse(controller.getAllProductsAsUtf8For("alice", "1")).getStatus(), is("429"));
+        assertThat("Other callers are not affected",
+                controller.getAllProductsIfModifiedFor("bob", "1", null).getStatus(), is("200"));
+    }
+
+    private RateLimiter limiter(RateLimit regionLimit, RateLimit callerLimit) {
+        return new RateLimiter(regionLimit, callerLimit, clock::get);
+    }
+
+    private static int acquire(RateLimiter limiter, String caller, String region, int attempts) {
+        int admitted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.tryAcquire(caller, region)) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+}
@@ -0,0 +1,202 @@
+package bose.edu.junit.valueobjects;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Unit test for RequestCoalescer")
+public class TestRequestCoalescer {
+    private static final int CALLERS = 16;
+
+    private final RequestCoalescer<String, Object> objUnderTest = new RequestCoalescer<>();
+
+    @Test
+    @DisplayName("Concurrent callers share one computation")
+    public void testSharedResult() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        List<Object> results = runConcurrently(key -> {
+            calls.incrementAndGet();
+            return new Object();
+        });
+
+        assertThat("Computed once", calls.get(), is(1));
+        assertThat("Same result", results, everyItem(sameInstance(results.get(0))));
+        assertThat("Nothing in flight", objUnderTest.inFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("Every waiter receives the same exception")
+    public void testSharedException() throws Exception {
+        RuntimeException failure = new IllegalStateException("AWS down");
+        List<Object> results = runConcurrently(key -> {
+            throw failure;
+        });
+
+        assertThat("Same exception", results, everyItem(sameInstance(failure)));
+        assertThat("Nothing in flight", objUnderTest.inFlight(), is(0));
+        assertThrows(IllegalStateException.class, () -> objUnderTest.get("1", key -> {
+            throw failure;
+        }));
+    }
+
+    @Test
+    @DisplayName("An interrupted waiter stops waiting and keeps its interrupt status")
+    public void testInterruptedWaiter() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> objUnderTest.get("1", key -> {
+            loading.countDown();
+            await(release);
+            return new Object();
+        }));
+        loader.start();
+        loading.await();
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                objUnderTest.get("1", key -> new Object());
+            } catch (RuntimeException ex) {
+                thrown.set(ex);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        waiter.interrupt();
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat("Stopped waiting", waiter.isAlive(), is(false));
+        assertThat(thrown.get(), instanceOf(CancellationException.class));
+        assertThat("Interrupt status", interrupted.get(), is(true));
+        assertThat("Still loading", objUnderTest.inFlight(), is(1));
+        release.countDown();
+        loader.join();
+        assertThat("Nothing in flight", objUnderTest.inFlight(), is(0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    @DisplayName("Finished computations are not cached")
+    public void testNotCached() {
+        Object first = objUnderTest.get("1", key -> new Object());
+        assertThat("Recomputed", objUnderTest.get("1", key -> new Object()), not(sameInstance(first)));
+    }
+
+    @Test
+    @DisplayName("Controller fetches a region once for concurrent callers")
+    public void testController() throws Exception {
+        Set<Thread> callers = ConcurrentHashMap.newKeySet();
+        Service service = spy(Service.class);
+        doAnswer(invocation -> {
+            awaitJoined(callers);
+            return invocation.callRealMethod();
+        }).when(service).getAllProducts("1");
+        Controller controller = new Controller(service, mock(Logger.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    callers.add(Thread.currentThread());
+                    return controller.getAllProducts("1");
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertThat("Products", future.get(5, TimeUnit.SECONDS), containsString("ipad"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(service, times(1)).getAllProducts("1");
+    }
+
+    /**
+     * Starts all callers, lets the first computation wait until every other caller joined it and
+     * returns what each caller got, either its result or its exception.
+     */
+    private List<Object> runConcurrently(Function<String, Object> loader) throws Exception {
+        Set<Thread> callers = ConcurrentHashMap.newKeySet();
+        Function<String, Object> slowLoader = key -> {
+            awaitJoined(callers);
+            return loader.apply(key);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    callers.add(Thread.currentThread());
+                    try {
+                        return objUnderTest.get("1", slowLoader);
+                    } catch (RuntimeException ex) {
+                        return ex;
+                    }
+                }));
+            }
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits until all callers started and every caller but the current one is parked, which a caller
+     * only is while it waits for the computation in flight.
+     */
+    private static void awaitJoined(Set<Thread> callers) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!joined(callers)) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Callers did not join");
+            }
+            Thread.yield();
+        }
+    }
+
+    private static boolean joined(Set<Thread> callers) {
+        if (callers.size() < CALLERS) {
+            return false;
+        }
+        for (Thread caller : callers) {
+            if (caller != Thread.currentThread() && caller.getState() != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
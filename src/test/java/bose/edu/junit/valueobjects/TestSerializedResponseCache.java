@@ -0,0 +1,69 @@
+package bose.edu.junit.valueobjects;
+
+import bose.edu.junit.catalog.CatalogDelta;
+import bose.edu.junit.catalog.ProductStore;
+import bose.edu.junit.catalog.VersionedCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Unit test for SerializedResponseCache")
+public class TestSerializedResponseCache {
+    private VersionedCatalog catalog;
+    private Service service;
+    private SerializedResponseCache cache;
+    private Controller objUnderTest;
+
+    @BeforeEach
+    public void init() {
+        catalog = new VersionedCatalog(ProductStore.builder()
+                .add("1", new Product("ipad", "1000$"))
+                .add("2", new Product("iphone", "700$"))
+                .build());
+        cache = new SerializedResponseCache();
+        catalog.addListener(cache);
+        service = spy(new Service(catalog));
+        objUnderTest = new Controller(service, mock(Logger.class), cache);
+    }
+
+    @Test
+    @DisplayName("Responses are served from the cache until their region changes")
+    public void testInvalidation() {
+        String region1 = objUnderTest.getAllProducts("1");
+        String region2 = objUnderTest.getAllProducts("2");
+        assertThat("Cached", objUnderTest.getAllProducts("1"), sameInstance(region1));
+        verify(service, times(1)).getAllProducts("1");
+
+        catalog.apply(Collections.singletonList(CatalogDelta.update("1", new Product("ipad", "900$"))));
+
+        assertThat("Recomputed", objUnderTest.getAllProducts("1"), containsString("900$"));
+        assertThat("Other region still cached", objUnderTest.getAllProducts("2"), sameInstance(region2));
+        verify(service, times(2)).getAllProducts("1");
+        verify(service, times(1)).getAllProducts("2");
+    }
+
+    @Test
+    @DisplayName("Only successful responses are cached")
+    public void testErrorsNotCached() {
+        objUnderTest.getAllProducts("3");
+        assertThat("Nothing cached", cache.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("A payload computed before an invalidation is dropped")
+    public void testStalePut() {
+        long generation = cache.generation("1");
+        cache.invalidate("1");
+        cache.put("1", generation, "stale");
+        assertThat("Stale payload", cache.get("1"), nullValue());
+
+        cache.put("1", cache.generation("1"), "fresh");
+        assertThat("Fresh payload", cache.get("1"), is("fresh"));
+    }
+}
@@ -0,0 +1,100 @@
+package bose.edu.junit.warmup;
+
+import bose.edu.junit.valueobjects.Controller;
+import bose.edu.junit.valueobjects.Logger;
+import bose.edu.junit.valueobjects.SerializedResponseCache;
+import bose.edu.junit.valueobjects.Service;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Unit test for WarmUp")
+public class TestWarmUp {
+    private final SerializedResponseCache cache = new SerializedResponseCache();
+    private final Controller controller = new Controller(new Service(), new Logger(), cache);
+
+    @Test
+    @DisplayName("Regions are pre-serialized and the warm-up ends once compilation settles")
+    public void testSettles() {
+        /* compilation time grows during the first rounds and stops after the third */
+        AtomicLong reads = new AtomicLong();
+        WarmUp warmUp = new WarmUp(controller, Arrays.asList("1", "2"), () -> Math.min(reads.getAndIncrement(), 3) * 10);
+        warmUp.setCallsPerRound(20);
+        warmUp.setStableRounds(2);
+        assertThat(warmUp.isReady(), is(false));
+
+        WarmUpReport report = warmUp.run();
+
+        assertThat(warmUp.isReady(), is(true));
+        assertThat(report.isSettled(), is(true));
+        assertThat(report.getRounds(), is(5));
+        assertThat(report.getRegions(), is(2));
+        assertThat(report.getCompilationMillis(), is(30L));
+        assertThat(report.getDuration(), greaterThan(Duration.ZERO));
+        assertThat(report.toString(), containsString("30 ms compiling, compilation settled"));
+        /* only the supported region has a cached response */
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get("1"), containsString("ipad"));
+    }
+
+    @Test
+    @DisplayName("The warm-up stops at its time limit if compilation does not settle")
+    public void testTimeLimit() {
+        AtomicLong compilation = new AtomicLong();
+        WarmUp warmUp = new WarmUp(controller, Collections.singletonList("1"), compilation::incrementAndGet);
+        warmUp.setCallsPerRound(10);
+        warmUp.setMaxDuration(Duration.ZERO);
+
+        WarmUpReport report = warmUp.run();
+
+        assertThat(warmUp.isReady(), is(true));
+        assertThat(report.isSettled(), is(false));
+        assertThat(report.getRounds(), is(1));
+        assertThat(report.toString(), containsString("time limit reached"));
+    }
+
+    @Test
+    @DisplayName("Without compilation time the warm-up runs the stable rounds")
+    public void testCompilationTimeUnknown() {
+        WarmUp warmUp = new WarmUp(controller, Collections.singletonList("1"), () -> -1);
+        warmUp.setCallsPerRound(10);
+        warmUp.setStableRounds(4);
+
+        WarmUpReport report = warmUp.run();
+
+        assertThat(report.getRounds(), is(4));
+        assertThat(report.getCompilationMillis(), is(-1L));
+        assertThat(report.toString(), containsString("compilation time unknown"));
+    }
+
+    @Test
+    @DisplayName("A warm-up started in the background turns the node ready when it completes")
+    public void testStart() throws Exception {
+        WarmUp warmUp = new WarmUp(controller, Collections.singletonList("1"));
+        warmUp.setCallsPerRound(50);
+        warmUp.setMaxDuration(Duration.ofSeconds(2));
+
+        WarmUpReport report = warmUp.start().get(30, TimeUnit.SECONDS);
+
+        assertThat(warmUp.isReady(), is(true));
+        assertThat(report.getRounds(), greaterThan(0));
+    }
+
+    @Test
+    @DisplayName("Invalid settings are rejected")
+    public void testSettings() {
+        WarmUp warmUp = new WarmUp(controller, Collections.singletonList("1"));
+        assertThrows(IllegalArgumentException.class, () -> warmUp.setCallsPerRound(0));
+        assertThrows(IllegalArgumentException.class, () -> warmUp.setStableRounds(0));
+        assertThrows(IllegalArgumentException.class, () -> warmUp.setMaxDuration(Duration.ofSeconds(-1)));
+    }
+}